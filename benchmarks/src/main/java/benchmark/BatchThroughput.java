@@ -0,0 +1,116 @@
+package main.java.benchmark;
+
+import java.awt.Point;
+import java.util.SplittableRandom;
+
+import main.java.sim.BatchSimulator;
+import main.java.tile.character.BattleEventSink;
+import main.java.tile.character.Player;
+
+/**
+ * Measures how many game steps per second the BatchSimulator plays, and for comparison how many the
+ * object engine plays stepping one Player per game. Games play random moves, and any game that ends
+ * is reset onto its seed again, so the batch stays full.
+ *
+ * Usage: BatchThroughput [games] [distinct worlds] [seconds]
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public final class BatchThroughput {
+
+    // how many ticks of random moves to generate up front and cycle through
+    private static final int MOVE_TICKS = 64;
+
+    private BatchThroughput() {
+    }
+
+    public static void main(String[] args) {
+        int games = (args.length > 0) ? Integer.parseInt(args[0]) : 100_000;
+        int worlds = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+        int seconds = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+
+        SplittableRandom random = new SplittableRandom(1);
+        int[][] moves = new int[MOVE_TICKS][games];
+        for (int[] tick : moves) {
+            for (int game = 0; game < games; game++) {
+                tick[game] = random.nextInt(4);
+            }
+        }
+
+        long setupStart = System.nanoTime();
+        BatchSimulator batch = new BatchSimulator(games);
+        for (int game = 0; game < games; game++) {
+            batch.reset(game, game % worlds);
+        }
+        System.out.printf("batch:   %,d games on %,d worlds set up in %.1f s, %d cores%n", games, worlds,
+                (System.nanoTime() - setupStart) / 1e9, Runtime.getRuntime().availableProcessors());
+        System.out.printf("batch:   %,.0f steps/sec%n", measureBatch(batch, moves, worlds, seconds));
+
+        Player[] players = new Player[games];
+        for (int game = 0; game < games; game++) {
+            players[game] = newPlayer(game % worlds);
+        }
+        System.out.printf("objects: %,.0f steps/sec%n", measureObjects(players, moves, worlds, seconds));
+    }
+
+    /**
+     * Steps the batch for the given time, after a warm-up, and returns the steps per second
+     */
+    private static double measureBatch(BatchSimulator batch, int[][] moves, int worlds, int seconds) {
+        runBatch(batch, moves, worlds, Math.min(3, seconds) * 1_000_000_000L);
+        long start = System.nanoTime();
+        long ticks = runBatch(batch, moves, worlds, seconds * 1_000_000_000L);
+        return ticks * (double) batch.getGames() / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static long runBatch(BatchSimulator batch, int[][] moves, int worlds, long nanos) {
+        long end = System.nanoTime() + nanos;
+        long ticks = 0;
+        while (System.nanoTime() < end) {
+            batch.step(moves[(int) (ticks % MOVE_TICKS)]);
+            for (int game = 0; game < batch.getGames(); game++) {
+                if (batch.getStatus(game) != BatchSimulator.PLAYING) {
+                    batch.reset(game, game % worlds);
+                }
+            }
+            ticks++;
+        }
+        return ticks;
+    }
+
+    /**
+     * Steps every Player for the given time, after a warm-up, and returns the steps per second
+     */
+    private static double measureObjects(Player[] players, int[][] moves, int worlds, int seconds) {
+        runObjects(players, moves, worlds, Math.min(3, seconds) * 1_000_000_000L);
+        long start = System.nanoTime();
+        long ticks = runObjects(players, moves, worlds, seconds * 1_000_000_000L);
+        return ticks * (double) players.length / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static long runObjects(Player[] players, int[][] moves, int worlds, long nanos) {
+        Point[] directions = { new Point(-1, 0), new Point(1, 0), new Point(0, -1), new Point(0, 1) };
+        long end = System.nanoTime() + nanos;
+        long ticks = 0;
+        while (System.nanoTime() < end) {
+            int[] tick = moves[(int) (ticks % MOVE_TICKS)];
+            for (int game = 0; game < players.length; game++) {
+                Player player = players[game];
+                if (!player.isAlive()) {
+                    players[game] = newPlayer(game % worlds);
+                } else if (player.updateLocation(directions[tick[game]])) {
+                    player.playTile(player.getFloorTile());
+                }
+            }
+            ticks++;
+        }
+        return ticks;
+    }
+
+    private static Player newPlayer(long seed) {
+        Player player = new Player(1, seed);
+        player.setBattleSink(BattleEventSink.IGNORE);
+        return player;
+    }
+}
@@ -0,0 +1,62 @@
+package main.java.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import main.java.tile.character.BattleEventSink;
+import main.java.tile.character.Enemy;
+import main.java.tile.character.Player;
+
+/**
+ * Benchmarks whole battles through Player.playTile, for each archetype in the shipped bestiary,
+ * with the battle described as text (as the GUI does) or sent to a sink that ignores it (as headless play does).
+ * Each battle is against a freshly created enemy, so enemy construction is included.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BattleBenchmark {
+
+    // index of the archetype in the shipped bestiary
+    @Param({"0", "1", "2", "3", "4"})
+    public int archetype;
+
+    // "text" to describe battles with a BattleLog, "headless" to ignore them
+    @Param({"text", "headless"})
+    public String output;
+
+    private Player player;
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() {
+        this.player = new Player(3, 1234L);
+        this.player.setBattleSink(this.output.equals("headless") ? BattleEventSink.IGNORE : null);
+        this.random = new SplittableRandom(99);
+    }
+
+    @Benchmark
+    public String battle() {
+        this.player.resetHP();
+        this.player.setAlive(true);
+        return this.player.playTile(new Enemy(3, this.archetype, this.random));
+    }
+}
@@ -0,0 +1,121 @@
+package main.java.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import main.java.locations.ChunkStore;
+import main.java.locations.ChunkedFloor;
+import main.java.metrics.LatencyHistogram;
+
+/**
+ * Walks a player across an endless floor at a steady pace and reports whether the chunks keep up:
+ * how long each step takes, how many steps were blocked because the chunk ahead hadn't arrived yet,
+ * and how much heap and disk the floor holds. The walk is a staircase along the chunks' corridors,
+ * 64 tiles right then 64 tiles down, so a new row or column of chunks is needed every 64 steps.
+ * Every 16th step changes a tile beside the corridor, so chunks are dropped dirty and written to the store.
+ *
+ * Usage: EndlessWalk [steps per second, 0 for flat out] [seconds] [radius in chunks]
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public final class EndlessWalk {
+
+    // a step taking longer than this counts as a hitch
+    private static final long HITCH_NANOS = 1_000_000;
+
+    private EndlessWalk() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int speed = (args.length > 0) ? Integer.parseInt(args[0]) : 8;
+        int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : 30;
+        int radius = (args.length > 2) ? Integer.parseInt(args[2]) : 2;
+
+        Path folder = Files.createTempDirectory("chunks");
+        ChunkedFloor floor = new ChunkedFloor(42L, 0, radius, new ChunkStore(folder));
+        int x = ChunkedFloor.START_X;
+        int y = ChunkedFloor.START_Y;
+        floor.setCentre(x, y);
+        floor.awaitLoaded(10_000);
+        long baseline = retainedHeap();
+
+        LatencyHistogram stepTime = new LatencyHistogram();
+        long steps = 0;
+        long blocked = 0;
+        long hitches = 0;
+        int mostLoaded = 0;
+        long interval = (speed == 0) ? 0 : 1_000_000_000L / speed;
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        long next = start;
+        while (next < end) {
+            if (interval > 0) {
+                LockSupport.parkNanos(next - System.nanoTime());
+            }
+            long stepStart = System.nanoTime();
+            // right along a corridor row for 64 steps, then down a corridor column for 64
+            boolean right = ((steps >> 6) & 1) == 0;
+            int nextX = right ? x : x + 1;
+            int nextY = right ? y + 1 : y;
+            if (floor.isPassable(nextX, nextY)) {
+                x = nextX;
+                y = nextY;
+                floor.setCentre(x, y);
+                if ((steps & 15) == 0) {
+                    floor.setTile(right ? x + 2 : x, right ? y : y + 2, (byte) 'o');
+                }
+                steps++;
+            } else {
+                blocked++;
+            }
+            long took = System.nanoTime() - stepStart;
+            stepTime.record(took);
+            if (took > HITCH_NANOS) {
+                hitches++;
+            }
+            mostLoaded = Math.max(mostLoaded, floor.getLoadedChunkCount());
+            next = (interval > 0) ? next + interval : System.nanoTime();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        floor.flush();
+        long retained = retainedHeap() - baseline;
+
+        long stored;
+        try (Stream<Path> files = Files.list(folder)) {
+            stored = files.count();
+        }
+        System.out.printf("steps:             %,d in %.1f s (%,.0f/s), radius %d%n", steps, elapsed, steps / elapsed, radius);
+        System.out.printf("tiles travelled:   %,d right, %,d down%n", y - ChunkedFloor.START_Y, x - ChunkedFloor.START_X);
+        System.out.printf("blocked steps:     %,d (chunk ahead not loaded yet)%n", blocked);
+        System.out.printf("hitches > 1 ms:    %,d%n", hitches);
+        System.out.printf("step p50/p99/max:  %,.1f / %,.1f / %,.1f us%n", stepTime.getPercentile(50) / 1000.0,
+                stepTime.getPercentile(99) / 1000.0, stepTime.getMax() / 1000.0);
+        System.out.printf("chunks loaded:     at most %d (capacity %d, %,d bytes of tiles each)%n",
+                mostLoaded, floor.getCapacity(), 64 * 64);
+        System.out.printf("heap growth:       %,d KB over the walk%n", retained >> 10);
+        System.out.printf("chunks in store:   %,d%n", stored);
+
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(folder);
+    }
+
+    /**
+     * Returns the heap in use after collecting everything that can be collected
+     */
+    private static long retainedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
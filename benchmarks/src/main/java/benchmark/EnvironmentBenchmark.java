@@ -0,0 +1,63 @@
+package main.java.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import main.java.sim.Environment;
+
+/**
+ * Benchmarks Environment.step with random actions, observing into a direct buffer as a trainer sharing
+ * memory would. Games that end are reset onto the next of a few seeds, whose worlds are compiled in setup.
+ * Run with the gc profiler to check a step allocates nothing.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvironmentBenchmark {
+
+    private static final int SEEDS = 8;
+
+    private Environment environment;
+    private FloatBuffer observation;
+    private SplittableRandom random;
+    private int resets;
+
+    @Setup
+    public void setup() {
+        this.environment = new Environment();
+        this.observation = ByteBuffer.allocateDirect(Environment.OBSERVATION_SIZE * Float.BYTES)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        for (int seed = 0; seed < SEEDS; seed++) {
+            this.environment.reset(seed, this.observation);
+        }
+        this.random = new SplittableRandom(3);
+    }
+
+    @Benchmark
+    public float step() {
+        if (this.environment.isDone()) {
+            this.environment.reset(this.resets++ % SEEDS, this.observation);
+        }
+        return this.environment.step(this.random.nextInt(Environment.ACTIONS), this.observation);
+    }
+}
@@ -0,0 +1,121 @@
+package main.java.benchmark;
+
+import java.awt.Point;
+import java.io.ByteArrayInputStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import main.java.locations.Floor;
+import main.java.tile.Tile;
+
+/**
+ * Benchmarks Floor: construction (including parsing the plan), move validation (through the passability bitmap,
+ * and the old way through the HashMap for comparison), tile lookup and map printing,
+ * on a shipped floor plan and on synthetic large floors.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FloorBenchmark {
+
+    // 0 = a shipped floor plan, else the width and height of a synthetic floor
+    @Param({"0", "256", "1024"})
+    public int size;
+
+    // the number of points probed, a power of two
+    private static final int PROBES = 1024;
+
+    private byte[] plan;
+    private Floor floor;
+    private Point[] probes;
+    private int next;
+    private final Point neighbour = new Point();
+
+    @Setup
+    public void setup() {
+        this.plan = SyntheticFloors.plan(this.size);
+        this.floor = construct();
+        // probe anywhere on the floor, plus a ring just outside it
+        int extent = (this.size == 0) ? 8 : this.size;
+        SplittableRandom random = new SplittableRandom(7);
+        this.probes = new Point[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            this.probes[i] = new Point(random.nextInt(-1, extent + 1), random.nextInt(-1, extent + 1));
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Floor construct() {
+        return new Floor(0, 0, new SplittableRandom(1), new ByteArrayInputStream(this.plan));
+    }
+
+    @Benchmark
+    public boolean checkValidPlayerLocation() {
+        return this.floor.checkValidPlayerLocation(this.probes[this.next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public boolean isPassable() {
+        Point probe = this.probes[this.next++ & (PROBES - 1)];
+        return this.floor.isPassable(probe.x, probe.y);
+    }
+
+    @Benchmark
+    public int getPassableNeighbours() {
+        Point probe = this.probes[this.next++ & (PROBES - 1)];
+        return this.floor.getPassableNeighbours(probe.x, probe.y);
+    }
+
+    // the four-neighbour check as pathfinding did it before getPassableNeighbours, for comparison
+    @Benchmark
+    public int checkFourNeighboursByPoint() {
+        Point probe = this.probes[this.next++ & (PROBES - 1)];
+        this.neighbour.setLocation(probe.x - 1, probe.y);
+        int mask = this.floor.checkValidPlayerLocation(this.neighbour) ? 1 : 0;
+        this.neighbour.setLocation(probe.x + 1, probe.y);
+        mask |= this.floor.checkValidPlayerLocation(this.neighbour) ? 2 : 0;
+        this.neighbour.setLocation(probe.x, probe.y - 1);
+        mask |= this.floor.checkValidPlayerLocation(this.neighbour) ? 4 : 0;
+        this.neighbour.setLocation(probe.x, probe.y + 1);
+        return mask | (this.floor.checkValidPlayerLocation(this.neighbour) ? 8 : 0);
+    }
+
+    // move validation as it was before the passability bitmap, for comparison
+    @Benchmark
+    public boolean checkValidByHashMap() {
+        Point probe = this.probes[this.next++ & (PROBES - 1)];
+        // getTileByPoint does two lookups for a tile that is there, one for one that isn't - as containsKey then get did
+        Tile tile = this.floor.getTileByPoint(probe);
+        return tile != null && !tile.getName().equals("Wall");
+    }
+
+    @Benchmark
+    public Tile getTileByPoint() {
+        return this.floor.getTileByPoint(this.probes[this.next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String getFloorMap() {
+        return this.floor.getFloorMap(this.floor.getStartPos());
+    }
+}
@@ -0,0 +1,89 @@
+package main.java.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import main.java.locations.FloorPlanReader;
+
+/**
+ * Benchmarks parsing a floor plan file into a grid of tiles, leaving out building the Tiles themselves:
+ * the old way with a Scanner and String.split, and with a FloorPlanReader from a stream and from a memory-mapped file.
+ * Parse throughput in MB/s is the file size (printed at setup) divided by the average time.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FloorParseBenchmark {
+
+    // the width and height of the synthetic floor
+    @Param({"256", "1024", "4096"})
+    public int size;
+
+    private byte[] plan;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.plan = SyntheticFloors.synthetic(this.size, this.size, 42);
+        this.file = Files.createTempFile("floorplan", ".txt");
+        Files.write(this.file, this.plan);
+        System.out.printf("%nfloor plan file: %,d bytes%n", this.plan.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    @Benchmark
+    public byte[] scannerSplit() {
+        // what Floor did before FloorPlanReader
+        try (Scanner reader = new Scanner(new ByteArrayInputStream(this.plan), "UTF-8")) {
+            int rows = reader.nextInt();
+            int cols = reader.nextInt();
+            reader.useDelimiter("\\Z");
+            String[] lines = reader.next().trim().split("\\n");
+            byte[] grid = new byte[rows * cols];
+            for (int x = 0; x < rows; x++) {
+                for (int y = 0; y < cols; y++) {
+                    grid[x * cols + y] = (byte) lines[x].charAt(y);
+                }
+            }
+            return grid;
+        }
+    }
+
+    @Benchmark
+    public byte[] streamReader() throws IOException {
+        return new FloorPlanReader(new ByteArrayInputStream(this.plan)).read().getGrid();
+    }
+
+    @Benchmark
+    public byte[] mappedReader() throws IOException {
+        return new FloorPlanReader(this.file).read().getGrid();
+    }
+}
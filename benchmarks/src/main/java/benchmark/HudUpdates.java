@@ -0,0 +1,124 @@
+package main.java.benchmark;
+
+import java.util.SplittableRandom;
+
+import main.java.gui.HudModel;
+import main.java.metrics.Metrics;
+import main.java.tile.character.BattleEventSink;
+import main.java.tile.character.Player;
+
+/**
+ * Plays games the way the GUI does, with random moves, and compares two ways of updating the HUD's six stat labels
+ * after each move: setting all six to Integer.toString of their stat, as the Controller used to, and the HudModel
+ * the labels are now bound to, which only touches the stats the Player reports as changed.
+ * Runs headless, so the labels are stood in for: for the old way, by the text each label last showed - a JavaFX
+ * label ignores text equal to what it has, so only different text makes it lay out again; for the HudModel, by the
+ * count it keeps in Metrics of every stat it changes. Needs -Dddc.metrics=true, which the gradle task sets.
+ *
+ * Usage: HudUpdates [moves] [seed]
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public final class HudUpdates {
+
+    // the number of stat labels on the HUD
+    private static final int LABELS = 6;
+
+    private HudUpdates() {
+    }
+
+    public static void main(String[] args) {
+        int moves = (args.length > 0) ? Integer.parseInt(args[0]) : 100_000;
+        long seed = (args.length > 1) ? Long.parseLong(args[1]) : 42L;
+        if (!Metrics.ENABLED) {
+            System.err.println("run with -Dddc.metrics=true so label updates are counted");
+            return;
+        }
+
+        HudModel hud = new HudModel();
+        String[] shown = new String[LABELS];
+        SplittableRandom random = new SplittableRandom(seed);
+        Player player = newPlayer(seed);
+        hud.refresh(player);
+        setAll(player, shown);
+        Metrics.HUD_LABEL_UPDATES.reset();
+
+        long played = 0;
+        long oldChanges = 0;
+        long oldBytes = 0;
+        long newBytes = 0;
+        long quietMoves = 0;
+        int games = 1;
+        for (int i = 0; i < moves; i++) {
+            if (!player.isAlive()) {
+                player = newPlayer(seed + games++);
+                hud.refresh(player);
+                setAll(player, shown);
+            }
+            if (!player.move(random.nextInt(4))) {
+                continue;
+            }
+            player.playTile(player.getFloorTile());
+            played++;
+
+            long start = Metrics.currentThreadAllocatedBytes();
+            oldChanges += setAll(player, shown);
+            long middle = Metrics.currentThreadAllocatedBytes();
+            long before = Metrics.HUD_LABEL_UPDATES.sum();
+            hud.update(player);
+            newBytes += Metrics.currentThreadAllocatedBytes() - middle;
+            oldBytes += middle - start;
+            if (Metrics.HUD_LABEL_UPDATES.sum() == before) {
+                quietMoves++;
+            }
+        }
+
+        System.out.printf("%d moves played over %d games%n", played, games);
+        System.out.printf("label setText calls per move:        all six labels %d, HudModel %.3f%n",
+                LABELS, (double) Metrics.HUD_LABEL_UPDATES.sum() / played);
+        System.out.printf("label text changes (relayouts) per move: all six labels %.3f, HudModel %.3f%n",
+                (double) oldChanges / played, (double) Metrics.HUD_LABEL_UPDATES.sum() / played);
+        System.out.printf("bytes allocated per HUD update:      all six labels %.1f, HudModel %.1f%n",
+                (double) oldBytes / played, (double) newBytes / played);
+        System.out.printf("moves with no HUD text change: %.1f%%%n", 100.0 * quietMoves / played);
+    }
+
+    /**
+     * Sets every label's text as the Controller used to, and counts the ones that really changed
+     *
+     * @param player The player whose stats are shown
+     * @param shown The text each label shows
+     * @return How many labels were given different text
+     */
+    private static int setAll(Player player, String[] shown) {
+        return set(shown, 0, Integer.toString(player.getCurrentDungeonID() + 1))
+                + set(shown, 1, Integer.toString(player.getCurrentFloorID() + 1))
+                + set(shown, 2, Integer.toString(player.getLevel()))
+                + set(shown, 3, Integer.toString(player.getHp()))
+                + set(shown, 4, Integer.toString(player.getXp()))
+                + set(shown, 5, Integer.toString(player.getGold()));
+    }
+
+    /**
+     * Sets one label's text, as a JavaFX label does: text equal to what it shows is ignored
+     *
+     * @return 1 if the text changed, else 0
+     */
+    private static int set(String[] shown, int label, String text) {
+        if (text.equals(shown[label])) {
+            return 0;
+        }
+        shown[label] = text;
+        return 1;
+    }
+
+    /**
+     * Starts a game as the GUI does, without describing battles in text
+     */
+    private static Player newPlayer(long seed) {
+        Player player = new Player(1, seed);
+        player.setBattleSink(BattleEventSink.IGNORE);
+        return player;
+    }
+}
@@ -0,0 +1,78 @@
+package main.java.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import main.java.gui.LogHistory;
+
+/**
+ * Benchmarks the game log's history at different lengths: adding a turn's text, as every turn does, and reading
+ * a random older line back from the transcript, as scrolling back does. Both should cost the same however many
+ * lines the log already has.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogBenchmark {
+
+    // a typical turn's text
+    private static final String TURN = "\nYou take the stairs, going down another floor...\n";
+
+    // how many lines are in the log before measuring
+    @Param({"0", "100000", "1000000"})
+    public int lines;
+
+    private Path file;
+    private LogHistory history;
+    private final SplittableRandom random = new SplittableRandom(11);
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.file = Files.createTempFile("log", ".txt");
+        this.history = new LogHistory(this.file);
+        // a first screenful, so there is always an older line to read back
+        for (int i = 0; i < this.lines + 2 * LogHistory.DEFAULT_CAPACITY; i += 2) {
+            this.history.append(TURN);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.history.close();
+        Files.deleteIfExists(this.file);
+    }
+
+    @Benchmark
+    public int append() {
+        return this.history.append(TURN);
+    }
+
+    @Benchmark
+    public String readOlderLine() {
+        int older = this.history.size() - LogHistory.DEFAULT_CAPACITY;
+        return this.history.get(this.random.nextInt(older));
+    }
+}
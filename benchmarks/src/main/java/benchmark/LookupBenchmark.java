@@ -0,0 +1,66 @@
+package main.java.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import main.java.locations.Dungeon;
+import main.java.locations.Floor;
+import main.java.locations.Map;
+import main.java.locations.RandomSource;
+
+/**
+ * Benchmarks finding dungeons and floors by ID in campaigns of different lengths:
+ * the last dungeon (the furthest from the front of the list), and a random dungeon and floor.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    // the number of dungeons in the campaign
+    @Param({"4", "1000"})
+    public int dungeons;
+
+    private Map world;
+    private final SplittableRandom random = new SplittableRandom(5);
+
+    @Setup
+    public void setup() {
+        this.world = new Map(new RandomSource(42L), this.dungeons);
+    }
+
+    @Benchmark
+    public Dungeon lastDungeon() {
+        return this.world.getDungeonByID(this.dungeons - 1);
+    }
+
+    @Benchmark
+    public Floor lastFloorOfLastDungeon() {
+        Dungeon dungeon = this.world.getDungeonByID(this.dungeons - 1);
+        return dungeon.getFloorByID(dungeon.getFloorCount() - 1);
+    }
+
+    @Benchmark
+    public Floor randomFloor() {
+        Dungeon dungeon = this.world.getDungeonByID(this.random.nextInt(this.dungeons));
+        return dungeon.getFloorByID(this.random.nextInt(dungeon.getFloorCount()));
+    }
+}
@@ -0,0 +1,166 @@
+package main.java.benchmark;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.SplittableRandom;
+
+import main.java.metrics.LatencyHistogram;
+import main.java.server.NetworkServer;
+import main.java.server.Protocol;
+
+/**
+ * A load test of the NetworkServer. A non-blocking client opens many loopback connections and keeps one
+ * command in flight on each: as soon as a STATE reply arrives, it sends that connection a new random move.
+ * Reports how many connections were held, how many moves per second were played, the round-trip latency,
+ * and the bytes received per move. Starts a server in the same process unless given one to connect to.
+ *
+ * Usage: NetworkLoadTest [connections] [seconds] [host:port]
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public final class NetworkLoadTest {
+
+    private NetworkLoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int connectionCount = (args.length > 0) ? Integer.parseInt(args[0]) : 4_000;
+        int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+
+        NetworkServer server = null;
+        InetSocketAddress address;
+        if (args.length > 2) {
+            String[] hostPort = args[2].split(":");
+            address = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+        } else {
+            server = new NetworkServer(new InetSocketAddress("127.0.0.1", 0), Runtime.getRuntime().availableProcessors(), 0);
+            address = new InetSocketAddress("127.0.0.1", server.getPort());
+        }
+
+        Selector selector = Selector.open();
+        Client[] clients = new Client[connectionCount];
+        long openStart = System.nanoTime();
+        for (int i = 0; i < connectionCount; i++) {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.configureBlocking(false);
+            clients[i] = new Client(channel, channel.register(selector, SelectionKey.OP_READ), i);
+            channel.keyFor(selector).attach(clients[i]);
+        }
+        // every connection's game is generated when it connects, so wait for all their first states
+        while (Client.connected < connectionCount) {
+            selector.select(Client::onReadable, 100);
+        }
+        System.out.printf("opened %,d connections and their games in %.1f s%n",
+                connectionCount, (System.nanoTime() - openStart) / 1e9);
+
+        // let the JIT warm up, then measure from a clean slate
+        long warmUntil = System.nanoTime() + Math.min(3, seconds) * 1_000_000_000L;
+        while (System.nanoTime() < warmUntil) {
+            selector.select(Client::onReadable, 100);
+        }
+        LatencyHistogram latency = Client.latency;
+        latency.reset();
+        Client.moves = 0;
+        Client.bytes = 0;
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        while (System.nanoTime() < end) {
+            selector.select(Client::onReadable, 100);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("connections held: %,d%n", selector.keys().size());
+        System.out.printf("moves/sec:        %,.0f%n", Client.moves / elapsed);
+        System.out.printf("bytes/move:       %.1f%n", (double) Client.bytes / Math.max(1, Client.moves));
+        System.out.printf("latency p50:      %,.1f us%n", latency.getPercentile(50) / 1000.0);
+        System.out.printf("latency p99:      %,.1f us%n", latency.getPercentile(99) / 1000.0);
+        System.out.printf("latency max:      %,.1f us%n", latency.getMax() / 1000.0);
+        System.out.printf("heap used:        %,d MB%n", (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+
+        for (Client client : clients) {
+            client.channel.close();
+        }
+        selector.close();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * One connection: decodes STATE replies into its copy of the player's state and answers each with a move
+     */
+    private static final class Client {
+
+        // the client only runs on the main thread, so these are shared without synchronisation
+        static final LatencyHistogram latency = new LatencyHistogram();
+        static long moves = 0;
+        static long bytes = 0;
+        static int connected = 0;
+
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocateDirect(1024);
+        final ByteBuffer out = ByteBuffer.allocateDirect(Protocol.COMMAND_FRAME);
+        final int[] state = new int[Protocol.FIELDS];
+        final SplittableRandom random;
+        long sentAt = 0;
+
+        Client(SocketChannel channel, SelectionKey key, long seed) {
+            this.channel = channel;
+            this.key = key;
+            this.random = new SplittableRandom(seed);
+        }
+
+        static void onReadable(SelectionKey key) {
+            Client client = (Client) key.attachment();
+            try {
+                client.read();
+            } catch (IOException e) {
+                key.cancel();
+            }
+        }
+
+        void read() throws IOException {
+            int read = this.channel.read(this.in);
+            if (read < 0) {
+                this.key.cancel();
+                return;
+            }
+            bytes += read;
+            this.in.flip();
+            boolean replied = false;
+            while (this.in.remaining() >= Protocol.HEADER) {
+                int length = this.in.getShort(this.in.position()) & 0xFFFF;
+                if (this.in.remaining() < Protocol.HEADER + length) {
+                    break;
+                }
+                this.in.position(this.in.position() + Protocol.HEADER);
+                this.in.get(); // always STATE
+                Protocol.readState(this.in, this.state);
+                replied = true;
+            }
+            this.in.compact();
+            if (replied) {
+                if (this.sentAt == 0) {
+                    connected++;
+                } else {
+                    latency.record(System.nanoTime() - this.sentAt);
+                    moves++;
+                }
+                this.out.clear();
+                Protocol.writeCommand(this.out, this.random.nextInt(4));
+                this.out.flip();
+                this.sentAt = System.nanoTime();
+                this.channel.write(this.out); // 4 bytes always fit in an idle socket's send buffer
+            }
+        }
+    }
+}
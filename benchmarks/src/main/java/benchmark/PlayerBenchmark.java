@@ -0,0 +1,79 @@
+package main.java.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import main.java.tile.Stairs;
+import main.java.tile.Tile;
+import main.java.tile.character.BattleEventSink;
+import main.java.tile.character.Player;
+
+/**
+ * Benchmarks one turn of the game as the GUI plays it - Player.move then playTile - by
+ * bouncing the player between its start tile and a neighbouring tile. Players only play the shipped floors.
+ * Also benchmarks the move on its own: run with -prof gc, a steady-state move should show
+ * gc.alloc.rate.norm of 0 bytes per operation.
+ *
+ * @version 1.1
+ * @author tp275
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerBenchmark {
+
+    // the move, as numbered by Player, that undoes each move
+    private static final int[] OPPOSITE = { Player.MOVE_DOWN, Player.MOVE_UP, Player.MOVE_RIGHT, Player.MOVE_LEFT };
+
+    private Player player;
+    private int there;
+    private int back;
+    private boolean out;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        this.player = new Player(1, 1234L);
+        this.player.setBattleSink(BattleEventSink.IGNORE);
+        // find a neighbour of the start tile that isn't the stairs, so the player stays on this floor
+        for (int move = Player.MOVE_UP; move <= Player.MOVE_RIGHT; move++) {
+            if (this.player.move(move)) {
+                boolean stairs = this.player.getFloorTile() instanceof Stairs;
+                this.player.move(OPPOSITE[move]);
+                if (!stairs) {
+                    this.there = move;
+                    this.back = OPPOSITE[move];
+                    return;
+                }
+            }
+        }
+        throw new IllegalStateException("start tile has no neighbour to bounce to");
+    }
+
+    @Benchmark
+    public String moveAndPlayTile() {
+        this.out = !this.out;
+        this.player.move(this.out ? this.there : this.back);
+        return this.player.playTile(this.player.getFloorTile());
+    }
+
+    @Benchmark
+    public Tile move() {
+        this.out = !this.out;
+        this.player.move(this.out ? this.there : this.back);
+        return this.player.getFloorTile();
+    }
+}
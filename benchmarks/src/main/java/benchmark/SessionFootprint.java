@@ -0,0 +1,66 @@
+package main.java.benchmark;
+
+import java.util.concurrent.CountDownLatch;
+
+import main.java.server.GameSession;
+import main.java.server.SessionManager;
+
+/**
+ * Measures the heap held per game session. Opens many sessions - all on one seed, as in a tournament,
+ * or each on its own seed - plays some moves on each so they have something to remember,
+ * then reports the retained heap after a full GC divided by the number of sessions.
+ *
+ * Usage: SessionFootprint [sessions] [same|distinct] [moves per session]
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public final class SessionFootprint {
+
+    private SessionFootprint() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int sessionCount = (args.length > 0) ? Integer.parseInt(args[0]) : 10_000;
+        boolean sameSeed = (args.length <= 1) || args[1].equals("same");
+        int moves = (args.length > 2) ? Integer.parseInt(args[2]) : 50;
+
+        long before = retainedHeap();
+        SessionManager manager = new SessionManager();
+        long openStart = System.nanoTime();
+        for (int i = 0; i < sessionCount; i++) {
+            manager.openSession(sameSeed ? 42 : i);
+        }
+        double openSeconds = (System.nanoTime() - openStart) / 1e9;
+
+        // the same walk on every session: down and right, so tournament players end up fighting the same enemies
+        CountDownLatch played = new CountDownLatch(sessionCount * moves);
+        for (int i = 0; i < sessionCount; i++) {
+            GameSession session = manager.getSession(i);
+            for (int move = 0; move < moves; move++) {
+                session.send(((move & 1) == 0) ? GameSession.MOVE_DOWN : GameSession.MOVE_RIGHT,
+                        (s, command, accepted, sentAt) -> played.countDown());
+            }
+        }
+        played.await();
+
+        long retained = retainedHeap() - before;
+        System.out.printf("sessions:         %,d (%s seed)%n", sessionCount, sameSeed ? "same" : "distinct");
+        System.out.printf("opened in:        %.1f s%n", openSeconds);
+        System.out.printf("retained heap:    %,d MB%n", retained >> 20);
+        System.out.printf("per session:      %,d bytes%n", retained / sessionCount);
+        manager.shutdown();
+    }
+
+    /**
+     * Returns the heap in use after collecting everything that can be collected
+     */
+    private static long retainedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,81 @@
+package main.java.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import main.java.metrics.LatencyHistogram;
+import main.java.server.GameSession;
+import main.java.server.SessionListener;
+import main.java.server.SessionManager;
+
+/**
+ * A load test of the SessionManager. A loopback client in the same process opens many sessions and keeps
+ * one move in flight on each: as soon as a move has been played, it sends that session a new random one.
+ * Reports how many sessions were held, how many moves per second were played, and the latency
+ * of a move from being sent to being played.
+ *
+ * Usage: SessionLoadTest [sessions] [seconds] [threads]
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public final class SessionLoadTest {
+
+    private SessionLoadTest() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int sessionCount = (args.length > 0) ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        SessionManager manager = new SessionManager(threads);
+        LoopbackClient client = new LoopbackClient();
+
+        long openStart = System.nanoTime();
+        for (int i = 0; i < sessionCount; i++) {
+            manager.openSession(i);
+        }
+        System.out.printf("opened %,d sessions in %.1f s on %d threads%n",
+                manager.size(), (System.nanoTime() - openStart) / 1e9, threads);
+
+        for (int i = 0; i < sessionCount; i++) {
+            manager.getSession(i).send(GameSession.MOVE_DOWN, client);
+        }
+
+        // let the JIT warm up, then measure from a clean slate
+        Thread.sleep(Math.min(3, seconds) * 1000L);
+        client.latency.reset();
+        client.moves.reset();
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long played = client.moves.sum();
+        LatencyHistogram latency = client.latency;
+
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("sessions held:   %,d%n", manager.size());
+        System.out.printf("moves/sec:       %,.0f%n", played / elapsed);
+        System.out.printf("latency p50:     %,.1f us%n", latency.getPercentile(50) / 1000.0);
+        System.out.printf("latency p99:     %,.1f us%n", latency.getPercentile(99) / 1000.0);
+        System.out.printf("latency max:     %,.1f us%n", latency.getMax() / 1000.0);
+        System.out.printf("heap used:       %,d MB%n", (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+        manager.shutdown();
+    }
+
+    /**
+     * Keeps each session busy: records the move just played, then sends that session another
+     */
+    private static final class LoopbackClient implements SessionListener {
+
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder moves = new LongAdder();
+
+        @Override
+        public void onCommandPlayed(GameSession session, int command, boolean accepted, long sentAt) {
+            this.latency.record(System.nanoTime() - sentAt);
+            this.moves.increment();
+            session.send(ThreadLocalRandom.current().nextInt(GameSession.MOVE_RIGHT + 1), this);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package main.java.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the auto-play simulator (main.java.bot.AutoPlayer) as a separate process, on the JVM or as the native
+ * executable built by gradle nativeSim, and reports how long it took from launch to exit and its peak resident
+ * memory. Run it with one short game to compare startup, and with many to compare games/sec, which the
+ * simulator prints itself. Peak memory is the kernel's high-water mark (VmHWM in /proc), sampled every
+ * millisecond until the process exits, so it is only reported on Linux.
+ *
+ * Usage: SimulatorRun [runs] [jvm|native] [simulator arguments...]
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public final class SimulatorRun {
+
+    private SimulatorRun() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+        String build = (args.length > 1) ? args[1] : "jvm";
+        List<String> command = new ArrayList<>();
+        if (build.equals("native")) {
+            command.add(System.getProperty("sim.native"));
+        } else {
+            command.addAll(Arrays.asList(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("sim.classpath"), "main.java.bot.AutoPlayer"));
+        }
+        command.addAll(Arrays.asList(args).subList(Math.min(2, args.length), args.length));
+        if (build.equals("native") && !new File(command.get(0)).canExecute()) {
+            System.err.println("no native simulator at " + command.get(0) + " - build it with gradle nativeSim");
+            return;
+        }
+
+        Path output = Files.createTempFile("simulator", ".txt");
+        long[] millis = new long[runs];
+        long peakKb = 0;
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(output.toFile()).start();
+            Path status = Paths.get("/proc", Long.toString(process.pid()), "status");
+            long runPeakKb = 0;
+            while (!process.waitFor(1, TimeUnit.MILLISECONDS)) {
+                runPeakKb = Math.max(runPeakKb, highWaterMark(status));
+            }
+            millis[run] = (System.nanoTime() - start) / 1_000_000;
+            peakKb = Math.max(peakKb, runPeakKb);
+            if (process.exitValue() != 0) {
+                System.err.println("the simulator failed:");
+                System.err.println(Files.readString(output));
+                return;
+            }
+        }
+
+        Arrays.sort(millis);
+        System.out.println(String.join(" ", command));
+        System.out.print(Files.readString(output)); // the last run's output, with its games/sec
+        System.out.printf("%s, %d runs: launch to exit median %d ms, min %d ms, max %d ms; peak RSS %s%n",
+                build, runs, millis[runs / 2], millis[0], millis[runs - 1],
+                (peakKb == 0) ? "not known" : String.format("%,d KB", peakKb));
+        Files.delete(output);
+    }
+
+    /**
+     * Reads a process's peak resident memory so far
+     *
+     * @param status The process's /proc status file
+     * @return Its VmHWM in KB, or 0 if it can't be read, eg. the process has just exited or this isn't Linux
+     */
+    private static long highWaterMark(Path status) {
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // gone, or not Linux
+        }
+        return 0;
+    }
+}
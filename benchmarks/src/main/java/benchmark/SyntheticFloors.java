@@ -0,0 +1,82 @@
+package main.java.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+/**
+ * Makes floor plans for benchmarks: either one of the shipped files, or a synthetic floor of any size
+ * in the same format, with a wall border, a start, some stairs and a scattering of enemies and gold.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+final class SyntheticFloors {
+
+    private SyntheticFloors() {
+    }
+
+    /**
+     * Returns the bytes of a floor plan - a shipped one if size is 0, else a synthetic size x size one
+     *
+     * @param size 0 for a shipped floor plan, else the width and height of a synthetic floor
+     * @return The floor plan file's bytes
+     */
+    static byte[] plan(int size) {
+        return (size == 0) ? shipped("floorplan0-1.txt") : synthetic(size, size, 42);
+    }
+
+    /**
+     * Reads one of the floor plans bundled with the game
+     *
+     * @param name The file name, eg. floorplan0-1.txt
+     * @return The file's bytes
+     */
+    static byte[] shipped(String name) {
+        try (InputStream in = SyntheticFloors.class.getResourceAsStream("/main/res/" + name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("could not read " + name, e);
+        }
+    }
+
+    /**
+     * Generates a floor plan with the given number of rows (lines) and columns (characters per line)
+     *
+     * @param rows The number of rows
+     * @param cols The number of columns
+     * @param seed The seed for placing enemies and gold
+     * @return The floor plan file's bytes
+     */
+    static byte[] synthetic(int rows, int cols, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder plan = new StringBuilder(rows * (cols + 1) + 16);
+        plan.append(rows).append('\n').append(cols).append('\n');
+        for (int x = 0; x < rows; x++) {
+            for (int y = 0; y < cols; y++) {
+                char c;
+                if (x == 0 || y == 0 || x == rows - 1 || y == cols - 1) {
+                    c = '-';
+                } else if (x == 1 && y == 1) {
+                    c = 's';
+                } else if (x == rows - 2 && y == cols - 2) {
+                    c = 'x';
+                } else {
+                    int roll = random.nextInt(100);
+                    c = (roll < 15) ? '-' : (roll < 20) ? 'e' : (roll < 25) ? 'g' : 'o';
+                }
+                plan.append(c);
+            }
+            plan.append('\n');
+        }
+        return plan.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
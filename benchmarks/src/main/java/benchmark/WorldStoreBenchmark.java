@@ -0,0 +1,98 @@
+package main.java.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import main.java.locations.Dungeon;
+import main.java.locations.Floor;
+import main.java.locations.Map;
+import main.java.locations.RandomSource;
+import main.java.locations.WorldStore;
+
+/**
+ * Benchmarks saved worlds: opening a campaign from its WorldStore against generating it, reading one floor
+ * of a freshly opened world, and looking up random floors once they are open.
+ *
+ * @version 1.1
+ * @author tp275
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldStoreBenchmark {
+
+    // the number of dungeons in the campaign
+    @Param({"4", "1000"})
+    public int dungeons;
+
+    private Path file;
+    private Map opened;
+    private final SplittableRandom random = new SplittableRandom(3);
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.file = Files.createTempFile("world", ".ddc");
+        WorldStore.write(this.file, new Map(new RandomSource(42L), this.dungeons));
+        this.opened = new Map(WorldStore.open(this.file));
+        // open every floor, so randomFloor only measures the lookup
+        for (int d = 0; d < this.dungeons; d++) {
+            Dungeon dungeon = this.opened.getDungeonByID(d);
+            for (int f = 0; f < dungeon.getFloorCount(); f++) {
+                dungeon.getFloorByID(f);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    @Benchmark
+    public Map generateWorld() {
+        // dungeons are generated when first asked for, so ask for them all
+        Map world = new Map(new RandomSource(42L), this.dungeons);
+        for (int d = 0; d < this.dungeons; d++) {
+            world.getDungeonByID(d);
+        }
+        return world;
+    }
+
+    @Benchmark
+    public Map openWorld() throws IOException {
+        return new Map(WorldStore.open(this.file));
+    }
+
+    @Benchmark
+    public Floor openWorldAndFloor() throws IOException {
+        Map world = new Map(WorldStore.open(this.file));
+        Dungeon dungeon = world.getDungeonByID(this.random.nextInt(this.dungeons));
+        return dungeon.getFloorByID(this.random.nextInt(dungeon.getFloorCount()));
+    }
+
+    @Benchmark
+    public Floor randomFloor() {
+        Dungeon dungeon = this.opened.getDungeonByID(this.random.nextInt(this.dungeons));
+        return dungeon.getFloorByID(this.random.nextInt(dungeon.getFloorCount()));
+    }
+}
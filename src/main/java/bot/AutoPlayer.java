@@ -0,0 +1,157 @@
+package main.java.bot;
+
+import main.java.locations.Map;
+import main.java.locations.WorldTemplates;
+import main.java.tile.character.BattleEventSink;
+import main.java.tile.character.Player;
+
+/**
+ * Plays whole games without a GUI, as fast as they can be played, letting a Policy choose every move.
+ * Each turn is played as Controller.play plays it - move, then play the tile moved onto - until the
+ * player wins, dies, or runs out of turns. Battles are not described in text.
+ *
+ * Usage: AutoPlayer [random|stairs|gold|explore] [games] [distinct worlds]
+ *
+ * @version 1.2
+ * @author tp275
+ */
+public class AutoPlayer {
+
+    /**
+     * How a game ended
+     */
+    public enum Outcome {
+        VICTORY, DEATH, TURN_LIMIT
+    }
+
+    /**
+     * Told about every turn played, eg. to check the game's invariants
+     */
+    public interface TurnListener {
+
+        /**
+         * Called after each turn
+         *
+         * @param player The player, after the turn
+         * @param move The move chosen
+         * @param moved Whether the move was to a valid location, and a tile was played
+         */
+        void onTurn(Player player, int move, boolean moved);
+    }
+
+    // chooses every move
+    private final Policy policy;
+    // the most turns a game may take before it is abandoned
+    private final int maxTurns;
+    // the number of turns the last game took
+    private int turns;
+
+    /**
+     * Creates an auto player
+     *
+     * @param policy The policy to choose moves with
+     * @param maxTurns The most turns a game may take before it is abandoned
+     */
+    public AutoPlayer(Policy policy, int maxTurns) {
+        this.policy = policy;
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Plays a new level 1 game on the given seed to the end
+     *
+     * @param seed The seed to generate the world from
+     * @return How the game ended
+     */
+    public Outcome play(long seed) {
+        return play(seed, null);
+    }
+
+    /**
+     * Plays a new level 1 game on the given seed to the end
+     *
+     * @param seed The seed to generate the world from
+     * @param listener Told about every turn, or null
+     * @return How the game ended
+     */
+    public Outcome play(long seed, TurnListener listener) {
+        Player player = new Player(1, seed);
+        player.setBattleSink(BattleEventSink.IGNORE);
+        this.policy.reset(seed);
+        for (this.turns = 0; this.turns < this.maxTurns; this.turns++) {
+            if (!player.isAlive()) {
+                return player.isVictorious() ? Outcome.VICTORY : Outcome.DEATH;
+            }
+            int move = this.policy.chooseMove(player);
+            boolean moved = player.move(move);
+            if (moved) {
+                player.playTile(player.getFloorTile());
+            }
+            if (listener != null) {
+                listener.onTurn(player, move, moved);
+            }
+        }
+        if (!player.isAlive()) {
+            return player.isVictorious() ? Outcome.VICTORY : Outcome.DEATH;
+        }
+        return Outcome.TURN_LIMIT;
+    }
+
+    /**
+     * Returns the number of turns the last game took
+     *
+     * @return The number of turns the last game took
+     */
+    public int getTurns() {
+        return this.turns;
+    }
+
+    /**
+     * Creates one of the bundled policies by name
+     *
+     * @param name random, stairs, gold or explore
+     * @param seed The seed for the policy's own random choices
+     * @return The policy
+     * @throws IllegalArgumentException If there is no policy with that name
+     */
+    public static Policy policy(String name, long seed) {
+        switch (name) {
+        case "random":
+            return new RandomWalkPolicy(seed);
+        case "stairs":
+            return new StairsPolicy(seed);
+        case "gold":
+            return new GoldCollectorPolicy(seed);
+        case "explore":
+            return new ExplorePolicy(seed);
+        }
+        throw new IllegalArgumentException("No policy called " + name);
+    }
+
+    public static void main(String[] args) {
+        String name = (args.length > 0) ? args[0] : "stairs";
+        int games = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+        int worlds = (args.length > 2) ? Integer.parseInt(args[2]) : 100;
+
+        // hold on to every world, so they aren't collected and regenerated between games
+        Map[] pinned = new Map[worlds];
+        for (int world = 0; world < worlds; world++) {
+            pinned[world] = WorldTemplates.get(world);
+        }
+
+        AutoPlayer autoPlayer = new AutoPlayer(policy(name, 1), 100_000);
+        int[] outcomes = new int[Outcome.values().length];
+        long totalTurns = 0;
+        long start = System.nanoTime();
+        for (int game = 0; game < games; game++) {
+            outcomes[autoPlayer.play(game % worlds).ordinal()]++;
+            totalTurns += autoPlayer.getTurns();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %,d games in %.1f s (%,.0f games/s, %,.0f turns/s)%n",
+                name, games, seconds, games / seconds, totalTurns / seconds);
+        for (Outcome outcome : Outcome.values()) {
+            System.out.printf("  %-10s %,d%n", outcome, outcomes[outcome.ordinal()]);
+        }
+    }
+}
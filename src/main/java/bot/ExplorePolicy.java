@@ -0,0 +1,34 @@
+package main.java.bot;
+
+import main.java.tile.Stairs;
+import main.java.tile.Tile;
+
+/**
+ * Stands on every reachable tile of each floor, nearest first, before taking the stairs
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public class ExplorePolicy extends SearchPolicy {
+
+    /**
+     * Creates a full-explore policy
+     *
+     * @param seed The seed for moves made when nothing can be reached
+     */
+    public ExplorePolicy(long seed) {
+        super(seed);
+    }
+
+    /**
+     * Looks for any tile the player hasn't stood on yet, except the stairs, which would end the floor early
+     *
+     * @param tile The tile
+     * @param visited Whether the player has stood on it
+     * @return True for tiles not yet stood on
+     */
+    @Override
+    protected boolean isTarget(Tile tile, boolean visited) {
+        return !visited && !(tile instanceof Stairs);
+    }
+}
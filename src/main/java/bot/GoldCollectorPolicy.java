@@ -0,0 +1,34 @@
+package main.java.bot;
+
+import main.java.tile.Gold;
+import main.java.tile.Tile;
+
+/**
+ * Picks up every pile of gold on each floor, nearest first, then takes the stairs
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public class GoldCollectorPolicy extends SearchPolicy {
+
+    /**
+     * Creates a gold collector
+     *
+     * @param seed The seed for moves made when nothing can be reached
+     */
+    public GoldCollectorPolicy(long seed) {
+        super(seed);
+    }
+
+    /**
+     * Looks for gold the player hasn't picked up yet on this floor
+     *
+     * @param tile The tile
+     * @param visited Whether the player has stood on it
+     * @return True for gold not yet picked up
+     */
+    @Override
+    protected boolean isTarget(Tile tile, boolean visited) {
+        return !visited && tile instanceof Gold;
+    }
+}
@@ -0,0 +1,28 @@
+package main.java.bot;
+
+import main.java.tile.character.Player;
+
+/**
+ * Decides the moves of a game played by an AutoPlayer
+ *
+ * @version 1.1
+ * @author tp275
+ */
+public interface Policy {
+
+    /**
+     * Called before each new game
+     *
+     * @param seed The seed of the game about to be played
+     */
+    default void reset(long seed) {
+    }
+
+    /**
+     * Chooses the player's next move
+     *
+     * @param player The player, as they are now
+     * @return The move - one of Player's MOVE_ constants
+     */
+    int chooseMove(Player player);
+}
@@ -0,0 +1,37 @@
+package main.java.bot;
+
+import java.util.SplittableRandom;
+
+import main.java.tile.character.Player;
+
+/**
+ * Wanders about at random
+ *
+ * @version 1.1
+ * @author tp275
+ */
+public class RandomWalkPolicy implements Policy {
+
+    // where the moves come from
+    private final SplittableRandom random;
+
+    /**
+     * Creates a random walk
+     *
+     * @param seed The seed for the walk's random moves
+     */
+    public RandomWalkPolicy(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Chooses a move at random
+     *
+     * @param player The player, as they are now
+     * @return A random move
+     */
+    @Override
+    public int chooseMove(Player player) {
+        return this.random.nextInt(Player.MOVES);
+    }
+}
@@ -0,0 +1,137 @@
+package main.java.bot;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import main.java.locations.Floor;
+import main.java.tile.Stairs;
+import main.java.tile.Tile;
+import main.java.tile.character.Player;
+
+/**
+ * A policy that walks a shortest path to the nearest tile it is looking for, found by a breadth-first search
+ * of the player's floor, and otherwise heads for the stairs. Remembers which tiles of the current floor the
+ * player has stood on, for policies that look for somewhere new. The search's arrays are reused from
+ * one move to the next, and only grow when a bigger floor is reached.
+ *
+ * @version 1.2
+ * @author tp275
+ */
+public abstract class SearchPolicy implements Policy {
+
+    // for when nothing can be reached
+    private final SplittableRandom random;
+    // the floor the player was on last move, to notice when they reach a new one
+    private Floor floor;
+    // the tiles of the current floor the player has stood on, by cell (row * columns + column)
+    private boolean[] visited = new boolean[0];
+    // the search's queue of cells, and the first move of the path to each cell seen
+    private int[] queue = new int[0];
+    private int[] firstMove = new int[0];
+    // the search each cell was last seen in, so the arrays needn't be cleared between searches
+    private int[] seenIn = new int[0];
+    private int search = 0;
+
+    /**
+     * Creates a search policy
+     *
+     * @param seed The seed for moves made when nothing can be reached
+     */
+    protected SearchPolicy(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Returns whether the given tile is what this policy is looking for
+     *
+     * @param tile The tile
+     * @param visited Whether the player has stood on it
+     * @return True to walk to it
+     */
+    protected abstract boolean isTarget(Tile tile, boolean visited);
+
+    /**
+     * Forgets the last game's floor
+     *
+     * @param seed The seed of the game about to be played
+     */
+    @Override
+    public void reset(long seed) {
+        this.floor = null;
+    }
+
+    /**
+     * Chooses the first move of a shortest path to the nearest target, or to the stairs if no target
+     * can be reached, or a random move if the stairs can't be reached either
+     *
+     * @param player The player, as they are now
+     * @return The move
+     */
+    @Override
+    public int chooseMove(Player player) {
+        Floor current = player.getCurrentDungeon().getFloorByID(player.getCurrentFloorID());
+        int columns = current.getColumns();
+        int cells = current.getRows() * columns;
+        if (current != this.floor) {
+            this.floor = current;
+            if (this.visited.length < cells) {
+                this.visited = new boolean[cells];
+                this.queue = new int[cells];
+                this.firstMove = new int[cells];
+                this.seenIn = new int[cells];
+            } else {
+                Arrays.fill(this.visited, false);
+            }
+        }
+        int start = player.getFloorX() * columns + player.getFloorY();
+        this.visited[start] = true;
+
+        int move = search(current, start, false);
+        if (move < 0) {
+            move = search(current, start, true);
+        }
+        return (move < 0) ? this.random.nextInt(Player.MOVES) : move;
+    }
+
+    /**
+     * Searches outwards from the player for the nearest target, or the nearest stairs
+     *
+     * @param current The player's floor
+     * @param start The player's cell (row * columns + column)
+     * @param stairs True to look for stairs rather than targets
+     * @return The first move towards it, or -1 if there is none reachable
+     */
+    private int search(Floor current, int start, boolean stairs) {
+        int columns = current.getColumns();
+        this.search++;
+        int head = 0;
+        int tail = 0;
+        this.queue[tail++] = start;
+        this.seenIn[start] = this.search;
+        this.firstMove[start] = -1;
+        while (head < tail) {
+            int cell = this.queue[head++];
+            int x = cell / columns;
+            int y = cell % columns;
+            if (cell != start) {
+                Tile tile = current.getTile(x, y);
+                if (stairs ? tile instanceof Stairs : isTarget(tile, this.visited[cell])) {
+                    return this.firstMove[cell];
+                }
+            }
+            int neighbours = current.getPassableNeighbours(x, y);
+            for (int move = 0; move < Player.MOVES; move++) {
+                if ((neighbours & (1 << move)) == 0) {
+                    continue;
+                }
+                int next = (x + Player.getMoveDX(move)) * columns + y + Player.getMoveDY(move);
+                if (this.seenIn[next] != this.search) {
+                    this.seenIn[next] = this.search;
+                    this.firstMove[next] = (cell == start) ? move : this.firstMove[cell];
+                    this.queue[tail++] = next;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,33 @@
+package main.java.bot;
+
+import main.java.tile.Tile;
+
+/**
+ * Heads straight for the stairs by the shortest path, fighting whatever is in the way
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public class StairsPolicy extends SearchPolicy {
+
+    /**
+     * Creates a greedy-to-stairs policy
+     *
+     * @param seed The seed for moves made when the stairs can't be reached
+     */
+    public StairsPolicy(long seed) {
+        super(seed);
+    }
+
+    /**
+     * Looks for nothing but the stairs
+     *
+     * @param tile The tile
+     * @param visited Whether the player has stood on it
+     * @return False
+     */
+    @Override
+    protected boolean isTarget(Tile tile, boolean visited) {
+        return false;
+    }
+}
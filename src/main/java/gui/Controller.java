@@ -1,10 +1,11 @@
 package main.java.gui;
 
-import java.awt.Point;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.ResourceBundle;
 import java.util.logging.FileHandler;
 import java.util.logging.Logger;
@@ -16,10 +17,14 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.control.TextArea;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 
+import main.java.metrics.Metrics;
+import main.java.metrics.StartupPhases;
+import main.java.metrics.TurnPhaseEvent;
 import main.java.tile.Tile;
 import main.java.tile.character.Player;
 
@@ -28,15 +33,17 @@ import main.java.tile.character.Player;
  * Receives events from, manipulates and updates the GUI/'view'.
  * Contains a Player instance (the 'model') and calls its methods to progress the game.
  * Logs all button presses and text responses from the game to a log file.
+ * The world is generated off the GUI thread, so the window is drawn while it is; the buttons that play
+ * the game are disabled until it is ready.
  * 
- * @version 1.0
+ * @version 1.6
  * @author tp275
  */
 public class Controller implements Initializable {
 
-    // the 'log' TextArea for all text to be viewed
+    // the 'log' ListView for all text to be viewed, one line per item - only the lines on screen have cells
     @FXML
-    private TextArea log;
+    private ListView<String> log;
 
     // contains the relevant image to be displayed to the user
     @FXML
@@ -46,6 +53,10 @@ public class Controller implements Initializable {
     @FXML
     private Label map;
 
+    // shows the runtime metrics over the picture, when they are enabled
+    @FXML
+    private Label debugOverlay;
+
     // displays the number of the current dungeon (1-5)
     @FXML
     private Label dungeonStat;
@@ -80,30 +91,100 @@ public class Controller implements Initializable {
     // displays help message on click
     @FXML
     private Button help;
+    // undoes the last turn on click
+    @FXML
+    private Button rewind;
     // exits application on click
     @FXML
     private Button quit;
 
     // the player - essentially the top-level 'model' class
     private Player player;
+    // the stats shown on the HUD, which the stat labels are bound to
+    private final HudModel hud = new HudModel();
 
     // java's logger, for easy logging to a text file using logger.info()
     private Logger logger;
+    // every line shown in the log - the latest are kept in memory, the rest are read back from a transcript on disk
+    private LogLines logLines;
+
+    // each dungeon picture, by its location on the classpath, once it has been loaded - dungeons may share one
+    private final HashMap<String, Image> pictures = new HashMap<>();
+    // the location of the picture currently displayed, null for none
+    private String displayedPicture = null;
 
     /**
      * Called after window has finished loading.
      * 
-     * Initial setup: starts logger, displays intro text,
-     * creates a new Player and updates the map and image.
+     * Initial setup: starts logger, displays intro text and binds the stats.
+     * The game itself is started by startGame.
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         this.initializeLogger();
+        this.initializeLogView();
         this.log("Welcome to the most fantastic *Djeneric Dungeon Crawler!*\n");
         this.log("You stride into the fiendishly not very difficult Caverns of Adoddle\n");
-        this.player = new Player(1); // create the player
+        this.bindStats();
+        this.debugOverlay.setVisible(Metrics.ENABLED);
+        this.updateDebugOverlay();
+    }
+
+    /**
+     * Creates a new Player, and with it the world, on a background thread, then shows the new game.
+     * The buttons that play the game are disabled until it is shown.
+     */
+    public void startGame() {
+        this.setPlayable(false);
+        // replay a particular game if a seed was given with -Dddc.seed=...
+        Long seed = Long.getLong("ddc.seed");
+        boolean starting = (this.player == null); // the first game, which is part of starting up
+        Thread generator = new Thread(() -> {
+            try {
+                Player player = (seed == null) ? new Player(1) : new Player(1, seed);
+                if (starting) {
+                    StartupPhases.mark("world generated");
+                }
+                Platform.runLater(() -> this.showGame(player));
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                Platform.runLater(() -> this.log("The dungeons could not be built! " + e.getMessage() + "\n"));
+            }
+        }, "world generator");
+        generator.setDaemon(true);
+        generator.start();
+    }
+
+    /**
+     * Shows a newly created game - its stats, map and picture - and lets it be played
+     * 
+     * @param player The new game's player
+     */
+    private void showGame(Player player) {
+        this.player = player;
+        this.logFileOnly("Game seed: " + this.player.getSeed()); // so the game can be replayed
+        this.hud.refresh(this.player); // display initial stats
         this.map.setText(this.player.getPrintableMap()); // display initial map
         this.updatePicture(); // display initial picture
+        this.setPlayable(true);
+        String startup = StartupPhases.interactive(); // null unless this is the first game
+        if (startup != null) {
+            this.logFileOnly(startup);
+            if (StartupPhases.EXIT_WHEN_INTERACTIVE) {
+                this.exit();
+            }
+        }
+    }
+
+    /**
+     * Enables or disables the buttons that play the game
+     * 
+     * @param playable Whether the game can be played
+     */
+    private void setPlayable(boolean playable) {
+        for (Button button : new Button[] { this.up, this.down, this.left, this.right, this.rewind }) {
+            button.setDisable(!playable);
+        }
     }
 
     /**
@@ -132,6 +213,41 @@ public class Controller implements Initializable {
         }
     }
 
+    /**
+     * Sets up the log view over a new LogHistory, with a transcript named like the log file.
+     * Only the first time, as initialize is called again when the game restarts and the log carries on.
+     */
+    private void initializeLogView() {
+        if (this.logLines != null) {
+            return;
+        }
+        SimpleDateFormat format = new SimpleDateFormat("M-d_HHmmss");
+        LogHistory history;
+        try {
+            history = new LogHistory(Paths.get("gamelog_" + format.format(Calendar.getInstance().getTime()) + ".txt"));
+        } catch (IOException e) {
+            // game should not crash if the transcript can't be written - only the latest lines will be shown
+            System.out.println("IOException while creating log transcript");
+            history = new LogHistory(LogHistory.DEFAULT_CAPACITY);
+        }
+        this.logLines = new LogLines(history);
+        this.log.setItems(this.logLines);
+        // wrap long lines to the width of the log, as the text area it replaced did
+        this.log.setCellFactory(view -> new ListCell<String>() {
+            {
+                setWrapText(true);
+                prefWidthProperty().bind(view.widthProperty().subtract(20));
+                setMaxWidth(USE_PREF_SIZE);
+            }
+
+            @Override
+            protected void updateItem(String line, boolean empty) {
+                super.updateItem(line, empty);
+                setText(empty ? null : line);
+            }
+        });
+    }
+
     /**
      * Moves player up on the floor and executes one turn of game
      * 
@@ -140,7 +256,7 @@ public class Controller implements Initializable {
     @FXML
     private void up(ActionEvent event) {
         logFileOnly("pressed up");
-        play(new Point(-1,0));
+        play(Player.MOVE_UP);
     }
 
     /**
@@ -151,7 +267,7 @@ public class Controller implements Initializable {
     @FXML
     private void down(ActionEvent event) {
         logFileOnly("pressed down");
-        play(new Point(1,0));
+        play(Player.MOVE_DOWN);
     }
 
     /**
@@ -162,7 +278,7 @@ public class Controller implements Initializable {
     @FXML
     private void left(ActionEvent event) {
         logFileOnly("pressed left");
-        play(new Point(0,-1));
+        play(Player.MOVE_LEFT);
     }
 
     /**
@@ -173,7 +289,7 @@ public class Controller implements Initializable {
     @FXML
     private void right(ActionEvent event) {
         logFileOnly("pressed right");
-        play(new Point(0,1));
+        play(Player.MOVE_RIGHT);
     }
 
     /**
@@ -188,6 +304,24 @@ public class Controller implements Initializable {
                 + "There are 5 dungeons to fight through.\n");
     }
 
+    /**
+     * Undoes the last turn, putting the player and anything they fought back how they were
+     * 
+     * @param event Mouse click/Button fire
+     */
+    @FXML
+    private void rewind(ActionEvent event) {
+        logFileOnly("pressed rewind");
+        if (this.player.rewind(1) > 0) {
+            this.log("Time flows backwards... you are back where you were a moment ago.\n");
+            updateMap();
+            updateStats();
+            updatePicture();
+        } else {
+            this.log("You can't rewind any further!\n");
+        }
+    }
+
     /**
      * Exits the application
      * 
@@ -196,6 +330,18 @@ public class Controller implements Initializable {
     @FXML
     private void quit(ActionEvent event) {
         logFileOnly("pressed quit");
+        this.exit();
+    }
+
+    /**
+     * Closes the log transcript and exits the application
+     */
+    private void exit() {
+        try {
+            this.logLines.close();
+        } catch (IOException e) {
+            System.out.println("IOException while closing log transcript");
+        }
         Platform.exit();
     }
 
@@ -204,25 +350,76 @@ public class Controller implements Initializable {
      * interacts with the Tile at the Player's position,
      * updates the map and stats visuals and checks for finishing conditions.
      * 
-     * @param movement A Point representing the direction and velocity to update the player's position by
+     * @param move The move to make - one of Player's MOVE constants
      */
-    private void play(Point movement) {
+    private void play(int move) {
+        long startTime = 0;
+        long startBytes = 0;
+        if (Metrics.ENABLED) {
+            startTime = System.nanoTime();
+            startBytes = Metrics.currentThreadAllocatedBytes();
+        }
+        // each phase is timed by a flight recorder event, which costs next to nothing unless a recording wants it
+        TurnPhaseEvent phase = TurnPhaseEvent.start(TurnPhaseEvent.UPDATE_LOCATION);
+        boolean moved = this.player.move(move);
+        endPhase(phase);
         // if movement is to a valid location
-        if (this.player.updateLocation(movement)) {
+        if (moved) {
             // play tile and append resulting text to log
+            phase = TurnPhaseEvent.start(TurnPhaseEvent.PLAY_TILE);
             this.log(playTile());
+            endPhase(phase);
             // update map
+            phase = TurnPhaseEvent.start(TurnPhaseEvent.UPDATE_MAP);
             updateMap();
+            endPhase(phase);
             // update displayed stat info
+            phase = TurnPhaseEvent.start(TurnPhaseEvent.UPDATE_STATS);
             updateStats();
+            endPhase(phase);
             // update displayed picture
+            phase = TurnPhaseEvent.start(TurnPhaseEvent.UPDATE_PICTURE);
             updatePicture();
+            endPhase(phase);
             // check for victory or defeat & display messages
+            phase = TurnPhaseEvent.start(TurnPhaseEvent.CHECK_FINISHED);
             checkFinished();
+            endPhase(phase);
 
         } else {
             this.log("You can't move here! Try again.\n");
         }
+        if (Metrics.ENABLED) {
+            Metrics.TURN_LATENCY.record(System.nanoTime() - startTime);
+            Metrics.TURN_ALLOCATION.record(Metrics.currentThreadAllocatedBytes() - startBytes);
+            updateDebugOverlay();
+        }
+    }
+
+    /**
+     * Stops timing a turn phase and, if a flight recording wants it, records where the player was
+     * 
+     * @param phase The event timing the phase, or null if no recording wants it
+     */
+    private void endPhase(TurnPhaseEvent phase) {
+        if (phase == null) {
+            return;
+        }
+        phase.end();
+        if (phase.shouldCommit()) {
+            phase.setLocation(this.player.getCurrentDungeonID(), this.player.getCurrentFloorID(),
+                    this.player.getFloorTile().getClass().getSimpleName());
+            phase.commit();
+        }
+    }
+
+    /**
+     * Shows the latest metrics in the debug overlay, if metrics are enabled
+     */
+    private void updateDebugOverlay() {
+        if (Metrics.ENABLED) {
+            this.debugOverlay.setText(Metrics.summary());
+        }
     }
 
     /**
@@ -245,31 +442,54 @@ public class Controller implements Initializable {
     }
 
     /**
-     * Sets all displayed stats on the GUI to their current values within Player/PlayerStats
+     * Binds the stat labels to the HUD model, so each one's text only changes when its stat does.
+     * Only binds them the first time, as initialize is called again when the game restarts.
      */
-    private void updateStats() {        
-        this.dungeonStat.setText(Integer.toString(this.player.getCurrentDungeonID()+1));
-        this.floorStat.setText(Integer.toString(this.player.getCurrentFloorID()+1));
-        this.levelStat.setText(Integer.toString(this.player.getLevel()));
-        this.hpStat.setText(Integer.toString(this.player.getHp()));
-        this.xpStat.setText(Integer.toString(this.player.getXp()));
-        this.goldStat.setText(Integer.toString(this.player.getGold()));
+    private void bindStats() {
+        if (this.dungeonStat.textProperty().isBound()) {
+            return;
+        }
+        this.dungeonStat.textProperty().bind(this.hud.dungeonProperty().asString());
+        this.floorStat.textProperty().bind(this.hud.floorProperty().asString());
+        this.levelStat.textProperty().bind(this.hud.levelProperty().asString());
+        this.hpStat.textProperty().bind(this.hud.hpProperty().asString());
+        this.xpStat.textProperty().bind(this.hud.xpProperty().asString());
+        this.goldStat.textProperty().bind(this.hud.goldProperty().asString());
+    }
+
+    /**
+     * Updates the displayed stats that have changed within Player/PlayerStats since they were last displayed
+     */
+    private void updateStats() {
+        this.hud.update(this.player);
     }
 
     /**
      * Sets the displayed picture depending on the current dungeon
      */
     private void updatePicture() {
-        // get path of this class
-        String path = this.getClass().getResource("").getPath();
-        // modify path to point to resource folder
-        path = path.replaceFirst("java/", "res/");
-        path = path.replaceFirst("/gui", "");
-        // make URI, point to relevant dungeon picture using id
-        path = "file:" + path + "dungeon" + Integer.toString(this.player.getCurrentDungeonID())+ ".jpg";
-        // get image from path and set ImageView to that image
-        Image imageFile = new Image(path);
+        String picture = this.player.getCurrentDungeon().getImage();
+        // nothing to do if this dungeon's picture is already showing
+        if (picture.equals(this.displayedPicture)) {
+            return;
+        }
+        Image imageFile = this.pictures.get(picture);
+        if (imageFile == null) {
+            // find the dungeon's picture on the classpath, as named in the campaign, so it is found from a folder or a jar
+            String path = getClass().getResource(picture).toExternalForm();
+            // decode the image in the background, as it is only decoration - it is shown once it is ready -
+            // and keep it for next time
+            imageFile = new Image(path, true);
+            this.pictures.put(picture, imageFile);
+            if (Metrics.ENABLED) {
+                Metrics.IMAGE_CACHE_MISSES.increment();
+            }
+        } else if (Metrics.ENABLED) {
+            Metrics.IMAGE_CACHE_HITS.increment();
+        }
+        // set ImageView to that image
         this.image.setImage(imageFile);
+        this.displayedPicture = picture;
     }
 
     /**
@@ -287,6 +507,7 @@ public class Controller implements Initializable {
                 this.log("You died! Tough luck. Restarting....\n\n");
                 // this reruns the post-window-loading startup procedure, seemingly with no side effects
                 this.initialize(null, null); 
+                this.startGame();
             }
         }
     }
@@ -297,7 +518,8 @@ public class Controller implements Initializable {
      * @param text The text to be logged to the GUI and log file
      */
     protected void log(String text) {
-        this.log.appendText(text);
+        this.logLines.append(text);
+        this.log.scrollTo(this.logLines.size() - 1); // keep the latest line in view
         this.logFileOnly(text);
     }
 
@@ -307,6 +529,10 @@ public class Controller implements Initializable {
      * @param text The text to be logged to the log file
      */
     private void logFileOnly(String text) {
+        long startTime = Metrics.ENABLED ? System.nanoTime() : 0;
         this.logger.info(text + "\n ");
+        if (Metrics.ENABLED) {
+            Metrics.LOG_WRITE_LATENCY.record(System.nanoTime() - startTime);
+        }
     }
 }
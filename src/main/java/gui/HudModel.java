@@ -0,0 +1,142 @@
+package main.java.gui;
+
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+
+import main.java.metrics.Metrics;
+import main.java.tile.character.Player;
+
+/**
+ * The stats shown on the HUD, as JavaFX properties the stat labels are bound to.
+ * Each turn only the stats the Player reports as changed are copied in, and a property only tells its label
+ * when its value is really different, so a label's text - and the relayout that comes with it - is only
+ * replaced when the number on it changes. All the changes of a turn are made together on the FX thread,
+ * so they are laid out in the same pulse.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public final class HudModel {
+
+    // the stats as displayed - dungeons and floors are counted from 1
+    private final ReadOnlyIntegerWrapper dungeon = new ReadOnlyIntegerWrapper(this, "dungeon");
+    private final ReadOnlyIntegerWrapper floor = new ReadOnlyIntegerWrapper(this, "floor");
+    private final ReadOnlyIntegerWrapper level = new ReadOnlyIntegerWrapper(this, "level");
+    private final ReadOnlyIntegerWrapper hp = new ReadOnlyIntegerWrapper(this, "hp");
+    private final ReadOnlyIntegerWrapper xp = new ReadOnlyIntegerWrapper(this, "xp");
+    private final ReadOnlyIntegerWrapper gold = new ReadOnlyIntegerWrapper(this, "gold");
+
+    /**
+     * Copies in the stats the player has changed since the last update
+     *
+     * @param player The player whose stats are shown
+     */
+    public void update(Player player) {
+        int changed = player.takeChangedStats();
+        if (changed == 0) {
+            return;
+        }
+        if ((changed & Player.STAT_DUNGEON) != 0) {
+            set(this.dungeon, player.getCurrentDungeonID() + 1);
+        }
+        if ((changed & Player.STAT_FLOOR) != 0) {
+            set(this.floor, player.getCurrentFloorID() + 1);
+        }
+        if ((changed & Player.STAT_LEVEL) != 0) {
+            set(this.level, player.getLevel());
+        }
+        if ((changed & Player.STAT_HP) != 0) {
+            set(this.hp, player.getHp());
+        }
+        if ((changed & Player.STAT_XP) != 0) {
+            set(this.xp, player.getXp());
+        }
+        if ((changed & Player.STAT_GOLD) != 0) {
+            set(this.gold, player.getGold());
+        }
+    }
+
+    /**
+     * Copies in every stat of a player, eg. a new one whose changes this model hasn't seen
+     *
+     * @param player The player whose stats are shown
+     */
+    public void refresh(Player player) {
+        player.takeChangedStats();
+        set(this.dungeon, player.getCurrentDungeonID() + 1);
+        set(this.floor, player.getCurrentFloorID() + 1);
+        set(this.level, player.getLevel());
+        set(this.hp, player.getHp());
+        set(this.xp, player.getXp());
+        set(this.gold, player.getGold());
+    }
+
+    /**
+     * Sets a stat, if it has changed
+     *
+     * @param stat The stat's property
+     * @param value The stat's new value
+     */
+    private void set(ReadOnlyIntegerWrapper stat, int value) {
+        if (stat.get() != value) {
+            stat.set(value);
+            if (Metrics.ENABLED) {
+                Metrics.HUD_LABEL_UPDATES.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of the dungeon the player is in, counting from 1
+     *
+     * @return The dungeon property
+     */
+    public ReadOnlyIntegerProperty dungeonProperty() {
+        return this.dungeon.getReadOnlyProperty();
+    }
+
+    /**
+     * Returns the number of the floor the player is on, counting from 1
+     *
+     * @return The floor property
+     */
+    public ReadOnlyIntegerProperty floorProperty() {
+        return this.floor.getReadOnlyProperty();
+    }
+
+    /**
+     * Returns the player's level
+     *
+     * @return The level property
+     */
+    public ReadOnlyIntegerProperty levelProperty() {
+        return this.level.getReadOnlyProperty();
+    }
+
+    /**
+     * Returns the player's hitpoints
+     *
+     * @return The hp property
+     */
+    public ReadOnlyIntegerProperty hpProperty() {
+        return this.hp.getReadOnlyProperty();
+    }
+
+    /**
+     * Returns the player's xp
+     *
+     * @return The xp property
+     */
+    public ReadOnlyIntegerProperty xpProperty() {
+        return this.xp.getReadOnlyProperty();
+    }
+
+    /**
+     * Returns the amount of gold the player has
+     *
+     * @return The gold property
+     */
+    public ReadOnlyIntegerProperty goldProperty() {
+        return this.gold.getReadOnlyProperty();
+    }
+}
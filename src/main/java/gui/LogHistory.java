@@ -0,0 +1,279 @@
+package main.java.gui;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Every line of text the game has shown in its log, numbered from 0, for a log view that only asks for the lines
+ * it is showing. The latest lines are held in a ring buffer of fixed size; every line is also written to a
+ * plain-text transcript on disk, and older lines are read back from it when they are scrolled to. So however
+ * long the game goes on, adding a line costs the same and the heap holds the same number of lines.
+ *
+ * The transcript is found by line number through an index of where every 64th line starts, and the block of
+ * 64 lines last read from it is kept, as a log view scrolling back asks for neighbouring lines.
+ * Without a transcript, lines that have left the ring buffer are shown as MISSING_LINE. If the transcript stops
+ * being writable or readable partway through a game it is given up on, and the history carries on without one.
+ *
+ * @version 1.1
+ * @author tp275
+ */
+public final class LogHistory implements Closeable {
+
+    // how many of the latest lines are held in memory, unless asked for another number
+    public static final int DEFAULT_CAPACITY = 1000;
+    // shown in place of a line that is no longer held and can't be read back
+    public static final String MISSING_LINE = "...";
+    // every 1 << BLOCK_SHIFT lines, where the next line starts in the transcript is indexed
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    // the latest lines - line n is at n % capacity
+    private final String[] recent;
+    // the number of lines added so far
+    private int count = 0;
+
+    // the transcript, or null if there isn't one or it has failed
+    private FileChannel transcript;
+    // lines waiting to be written to the transcript, written when it fills or a line is read back
+    private final ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    // how many bytes of the transcript have been written, and will have been once pending is
+    private long written = 0;
+    private long end = 0;
+    // where each block of lines starts in the transcript
+    private long[] blockStarts = new long[16];
+    // the block of lines last read back from the transcript, and its number
+    private final String[] cachedBlock = new String[BLOCK_SIZE];
+    private int cachedBlockNumber = -1;
+
+    /**
+     * Creates an empty history, holding the default number of lines in memory
+     *
+     * @param transcript The file to write every line to, replacing it if there is one
+     * @throws IOException If the transcript can't be created
+     */
+    public LogHistory(Path transcript) throws IOException {
+        this(transcript, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty history
+     *
+     * @param transcript The file to write every line to, replacing it if there is one
+     * @param capacity How many of the latest lines to hold in memory
+     * @throws IOException If the transcript can't be created
+     */
+    public LogHistory(Path transcript, int capacity) throws IOException {
+        this(FileChannel.open(transcript, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING), capacity);
+    }
+
+    /**
+     * Creates an empty history without a transcript, eg. if one can't be written
+     *
+     * @param capacity How many of the latest lines to hold in memory
+     */
+    public LogHistory(int capacity) {
+        this((FileChannel) null, capacity);
+    }
+
+    /**
+     * Creates an empty history
+     *
+     * @param transcript The open transcript, or null for none
+     * @param capacity How many of the latest lines to hold in memory
+     */
+    private LogHistory(FileChannel transcript, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("History capacity must be positive");
+        }
+        this.recent = new String[capacity];
+        this.transcript = transcript;
+    }
+
+    /**
+     * Adds text to the end of the history, one line for each line of the text. The text's last line is ended
+     * whether or not the text ends in a newline, so "a\nb\n" and "a\nb" both add the lines a and b.
+     *
+     * @param text The text to add
+     * @return The number of lines added
+     */
+    public int append(String text) {
+        int added = 0;
+        int start = 0;
+        int length = text.length();
+        while (start < length) {
+            int newline = text.indexOf('\n', start);
+            int stop = (newline < 0) ? length : newline;
+            addLine(text.substring(start, stop));
+            added++;
+            start = stop + 1;
+        }
+        return added;
+    }
+
+    /**
+     * Adds one line, keeping it in memory and writing it to the transcript
+     *
+     * @param line The line, without its newline
+     */
+    private void addLine(String line) {
+        int number = this.count;
+        this.recent[number % this.recent.length] = line;
+        this.count++;
+        if (this.transcript == null) {
+            return;
+        }
+        if ((number & (BLOCK_SIZE - 1)) == 0) {
+            int block = number >>> BLOCK_SHIFT;
+            if (block == this.blockStarts.length) {
+                this.blockStarts = Arrays.copyOf(this.blockStarts, block * 2);
+            }
+            this.blockStarts[block] = this.end;
+        }
+        byte[] bytes = (line + '\n').getBytes(StandardCharsets.UTF_8);
+        try {
+            if (bytes.length > this.pending.remaining()) {
+                flush();
+            }
+            if (bytes.length > this.pending.capacity()) {
+                // too long to buffer - write it straight out
+                writeFully(ByteBuffer.wrap(bytes));
+            } else {
+                this.pending.put(bytes);
+            }
+            this.end += bytes.length;
+        } catch (IOException e) {
+            // the game should not stop if the transcript can't be written; the line is still shown while it is held
+            System.out.println("IOException while writing log transcript");
+            dropTranscript();
+        }
+    }
+
+    /**
+     * Gives up on a transcript that has failed, so lines that are no longer held are shown as MISSING_LINE
+     * rather than read back from a transcript that is missing some of them
+     */
+    private void dropTranscript() {
+        try {
+            this.transcript.close();
+        } catch (IOException e) {
+            // it has already failed
+        }
+        this.transcript = null;
+        this.pending.clear();
+        this.cachedBlockNumber = -1;
+    }
+
+    /**
+     * Returns the number of lines added so far
+     *
+     * @return The number of lines
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Returns a line, from memory if it is one of the latest, or else read back from the transcript
+     *
+     * @param index The line's number, from 0
+     * @return The line, without its newline, or MISSING_LINE if it can't be read back
+     * @throws IndexOutOfBoundsException If there is no such line
+     */
+    public String get(int index) {
+        if (index < 0 || index >= this.count) {
+            throw new IndexOutOfBoundsException("no line " + index + " in a log of " + this.count);
+        }
+        if (index >= this.count - this.recent.length) {
+            return this.recent[index % this.recent.length];
+        }
+        if (this.transcript == null) {
+            return MISSING_LINE;
+        }
+        int block = index >>> BLOCK_SHIFT;
+        if (block != this.cachedBlockNumber) {
+            try {
+                readBlock(block);
+            } catch (IOException e) {
+                System.out.println("IOException while reading log transcript");
+                dropTranscript();
+                return MISSING_LINE;
+            }
+        }
+        return this.cachedBlock[index & (BLOCK_SIZE - 1)];
+    }
+
+    /**
+     * Reads a block of lines back from the transcript into cachedBlock
+     *
+     * @param block The block's number
+     * @throws IOException If the transcript can't be read
+     */
+    private void readBlock(int block) throws IOException {
+        long from = this.blockStarts[block];
+        // a block that isn't the last one ends where the next begins
+        long to = ((block + 1) << BLOCK_SHIFT) < this.count ? this.blockStarts[block + 1] : this.end;
+        if (to > this.written) {
+            flush();
+        }
+        ByteBuffer bytes = ByteBuffer.allocate((int) (to - from));
+        while (bytes.hasRemaining()) {
+            if (this.transcript.read(bytes, from + bytes.position()) < 0) {
+                throw new IOException("log transcript is shorter than expected");
+            }
+        }
+        String text = new String(bytes.array(), StandardCharsets.UTF_8);
+        int start = 0;
+        for (int i = 0; i < BLOCK_SIZE && start < text.length(); i++) {
+            int newline = text.indexOf('\n', start);
+            this.cachedBlock[i] = text.substring(start, newline);
+            start = newline + 1;
+        }
+        this.cachedBlockNumber = block;
+    }
+
+    /**
+     * Writes any pending lines to the transcript
+     *
+     * @throws IOException If the transcript can't be written
+     */
+    public void flush() throws IOException {
+        if (this.transcript == null || this.pending.position() == 0) {
+            return;
+        }
+        this.pending.flip();
+        writeFully(this.pending);
+        this.pending.clear();
+    }
+
+    /**
+     * Writes bytes to the end of the transcript
+     *
+     * @param bytes The bytes to write
+     * @throws IOException If the transcript can't be written
+     */
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            this.written += this.transcript.write(bytes, this.written);
+        }
+    }
+
+    /**
+     * Writes any pending lines and closes the transcript
+     *
+     * @throws IOException If the transcript can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.transcript != null) {
+            flush();
+            this.transcript.close();
+        }
+    }
+}
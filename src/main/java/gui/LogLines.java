@@ -0,0 +1,72 @@
+package main.java.gui;
+
+import java.io.IOException;
+
+import javafx.collections.ObservableListBase;
+
+/**
+ * The lines of a LogHistory as the items of a ListView. The ListView only creates cells for the lines on screen
+ * and reuses them as it scrolls, asking for each line by number as it comes into view - so the view costs the same
+ * however long the log is, and lines scrolled back to are read from the history's transcript as they are needed.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+final class LogLines extends ObservableListBase<String> {
+
+    // every line shown in the log
+    private final LogHistory history;
+
+    /**
+     * Shows the lines of the given history
+     *
+     * @param history The history to show
+     */
+    LogLines(LogHistory history) {
+        this.history = history;
+    }
+
+    /**
+     * Adds text to the end of the history, and tells the ListView about the new lines
+     *
+     * @param text The text to add
+     */
+    void append(String text) {
+        int from = this.history.size();
+        if (this.history.append(text) > 0) {
+            beginChange();
+            nextAdd(from, this.history.size());
+            endChange();
+        }
+    }
+
+    /**
+     * Returns a line of the history
+     *
+     * @param index The line's number
+     * @return The line
+     */
+    @Override
+    public String get(int index) {
+        return this.history.get(index);
+    }
+
+    /**
+     * Returns the number of lines in the history
+     *
+     * @return The number of lines
+     */
+    @Override
+    public int size() {
+        return this.history.size();
+    }
+
+    /**
+     * Writes any pending lines and closes the history's transcript
+     *
+     * @throws IOException If the transcript can't be written
+     */
+    void close() throws IOException {
+        this.history.close();
+    }
+}
@@ -1,50 +1,91 @@
 package main.java.gui;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 
+import main.java.metrics.Metrics;
+import main.java.metrics.StartupPhases;
+
 /**
  * Creates and displays the GUI for Djeneric Dungeon Crawler!
- * 
- * @version 2.0
+ * The window is shown as soon as its layout is loaded; the icons are loaded and the world generated afterwards,
+ * off the GUI thread, so the window doesn't wait for them.
+ *
+ * @version 2.1
  * @author tp275
  */
 public class Main extends Application {
-    
+
+    // the window icons - JavaFX is bad at auto choosing icons, so, many are given
+    private static final String[] ICONS = {
+            "/main/res/sword16.png", "/main/res/sword32.png", "/main/res/sword48.png", "/main/res/sword64.png" };
+
     /**
-     * Sets up the application by loading the FXML and setting the title and icons, then shows it
+     * Sets up the application by loading the FXML and setting the title, shows it, then starts the game
+     * and loads the icons
      */
     @Override
     public void start(Stage primaryStage) {
+        Metrics.registerMBean(); // only does anything if started with -Dddc.metrics=true
         try {
-            Parent root = FXMLLoader.load(getClass().getResource("/main/java/gui/GUI.fxml"));
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/main/java/gui/GUI.fxml"));
+            Parent root = loader.load();
+            StartupPhases.mark("fxml loaded");
             Scene scene = new Scene(root);
             scene.getStylesheets().add(getClass().getResource("/main/java/gui/design.css").toExternalForm());
             primaryStage.setTitle("Djeneric Dungeon Crawler");
-            primaryStage.getIcons().addAll(
-                    // JavaFX is bad at auto choosing icons, so, many are given:
-                    new Image(getClass().getResourceAsStream("/main/res/sword16.png")), 
-                    new Image(getClass().getResourceAsStream("/main/res/sword32.png")),
-                    new Image(getClass().getResourceAsStream("/main/res/sword48.png")),
-                    new Image(getClass().getResourceAsStream("/main/res/sword64.png")));
             primaryStage.setScene(scene);
             primaryStage.show();
-            
+            StartupPhases.mark("window shown");
+            Controller controller = loader.getController();
+            controller.startGame();
+            loadIcons(primaryStage);
+
         } catch(IOException | NullPointerException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Decodes the icons on a background thread, then gives them to the window
+     *
+     * @param stage The window to give the icons to
+     */
+    private void loadIcons(Stage stage) {
+        Thread loader = new Thread(() -> {
+            List<Image> icons = new ArrayList<>(ICONS.length);
+            for (String icon : ICONS) {
+                try (InputStream in = getClass().getResourceAsStream(icon)) {
+                    icons.add(new Image(in));
+                } catch (IOException | NullPointerException e) {
+                    // the game is playable without its icons
+                    System.out.println("Could not load icon " + icon);
+                }
+            }
+            Platform.runLater(() -> {
+                stage.getIcons().addAll(icons);
+                StartupPhases.mark("icons loaded");
+            });
+        }, "icon loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
     /**
      * Launches the application using the built-in JavaFx launch method
      */
     public static void main(String[] args) {
+        StartupPhases.mark("main");
         launch(args);
     }
 }
@@ -0,0 +1,370 @@
+package main.java.locations;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The campaign: which dungeons the game is played through, in order, loaded once from campaign.txt.
+ * Each block of the file describes one dungeon, or several in a row with 'repeat', so a campaign of any length
+ * is only as big as its blocks: everything is stored in flat arrays indexed by block, and a dungeon's block
+ * is found from its ID by a binary search of where each block starts. Nothing is stored per dungeon.
+ *
+ * @version 1.1
+ * @author tp275
+ */
+public final class Campaign {
+
+    // where the campaign is loaded from, on the classpath
+    private static final String RESOURCE = "/main/res/campaign.txt";
+    // where floor plans and pictures are, on the classpath
+    private static final String RESOURCES = "/main/res/";
+
+    // the name, difficulty, number of floors, intro and picture of each block's dungeons
+    private final String[] names;
+    private final int[] difficulties;
+    private final int[] floorCounts;
+    private final String[] intros;
+    private final String[] images;
+    // the ID of the first dungeon of each block, then the number of dungeons in the campaign
+    private final int[] firstDungeon;
+
+    /**
+     * Holds the one shared Campaign, so it is loaded the first time it is needed and never again
+     */
+    private static final class Holder {
+        private static final Campaign INSTANCE = loadResource();
+    }
+
+    /**
+     * Returns the shared Campaign, loading it on first use
+     *
+     * @return The shared Campaign
+     */
+    public static Campaign get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Loads the campaign from the classpath
+     *
+     * @return The loaded Campaign
+     * @throws IllegalStateException if the file is missing or malformed
+     */
+    private static Campaign loadResource() {
+        try (InputStream in = Campaign.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Error: could not find campaign file " + RESOURCE);
+            }
+            return load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error: could not read campaign file", e);
+        }
+    }
+
+    /**
+     * Parses a campaign, in the format described at the top of campaign.txt, and compiles it into flat arrays
+     *
+     * @param in The stream to read the campaign from
+     * @return The compiled Campaign
+     * @throws IOException if the stream cannot be read
+     * @throws IllegalStateException if the campaign is malformed, with the line number of the problem
+     */
+    public static Campaign load(InputStream in) throws IOException {
+        Builder builder = new Builder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                builder.parseLine(line);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Error in campaign at line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Stores the compiled arrays
+     */
+    private Campaign(String[] names, int[] difficulties, int[] floorCounts, String[] intros, String[] images, int[] firstDungeon) {
+        this.names = names;
+        this.difficulties = difficulties;
+        this.floorCounts = floorCounts;
+        this.intros = intros;
+        this.images = images;
+        this.firstDungeon = firstDungeon;
+    }
+
+    /**
+     * Returns a campaign with the same blocks as this one, each repeated so that there are the given number of
+     * dungeons in all, eg. for a long game without writing a campaign file. The blocks take up as equal a share
+     * of the dungeons as they can, in their order.
+     *
+     * @param dungeonCount How many dungeons the campaign should have, up to Map.MAX_DUNGEONS
+     * @return The stretched campaign
+     */
+    public Campaign stretch(int dungeonCount) {
+        if (dungeonCount < 1) {
+            throw new IllegalArgumentException("a campaign needs at least one dungeon, not " + dungeonCount);
+        }
+        if (dungeonCount > Map.MAX_DUNGEONS) {
+            throw new IllegalArgumentException("a campaign can have at most " + Map.MAX_DUNGEONS + " dungeons, not " + dungeonCount);
+        }
+        int blocks = this.names.length;
+        int[] first = new int[blocks + 1];
+        for (int b = 0; b <= blocks; b++) {
+            // the first dungeon i for which i * blocks / dungeonCount reaches b
+            first[b] = (int) (((long) b * dungeonCount + blocks - 1) / blocks);
+        }
+        return new Campaign(this.names, this.difficulties, this.floorCounts, this.intros, this.images, first);
+    }
+
+    /**
+     * Returns the number of dungeons in the campaign
+     *
+     * @return The number of dungeons
+     */
+    public int getDungeonCount() {
+        return this.firstDungeon[this.names.length];
+    }
+
+    /**
+     * Returns the name of a dungeon
+     *
+     * @param dungeonID The dungeon's ID
+     * @return The dungeon's name
+     */
+    public String getName(int dungeonID) {
+        return this.names[block(dungeonID)];
+    }
+
+    /**
+     * Returns the difficulty of a dungeon, which picks its floor plans and enemies
+     *
+     * @param dungeonID The dungeon's ID
+     * @return The dungeon's difficulty
+     */
+    public int getDifficulty(int dungeonID) {
+        return this.difficulties[block(dungeonID)];
+    }
+
+    /**
+     * Returns the number of floors in a dungeon
+     *
+     * @param dungeonID The dungeon's ID
+     * @return The dungeon's number of floors
+     */
+    public int getFloorCount(int dungeonID) {
+        return this.floorCounts[block(dungeonID)];
+    }
+
+    /**
+     * Returns the text printed when the player enters a dungeon
+     *
+     * @param dungeonID The dungeon's ID
+     * @return The dungeon's intro
+     */
+    public String getIntro(int dungeonID) {
+        return this.intros[block(dungeonID)];
+    }
+
+    /**
+     * Returns the classpath location of the picture shown while the player is in a dungeon
+     *
+     * @param dungeonID The dungeon's ID
+     * @return The picture's location, eg. /main/res/dungeon0.jpg
+     */
+    public String getImage(int dungeonID) {
+        return this.images[block(dungeonID)];
+    }
+
+    /**
+     * Finds the block a dungeon was made from
+     *
+     * @param dungeonID The dungeon's ID
+     * @return The index of the dungeon's block
+     * @throws IndexOutOfBoundsException If there is no such dungeon
+     */
+    private int block(int dungeonID) {
+        if (dungeonID < 0 || dungeonID >= getDungeonCount()) {
+            throw new IndexOutOfBoundsException("no dungeon " + dungeonID + " in a campaign of " + getDungeonCount());
+        }
+        // the last block starting at or before the dungeon - blocks stretched to nothing share their start with the next
+        int low = 0;
+        int high = this.names.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (this.firstDungeon[middle] <= dungeonID) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Collects dungeon blocks line by line while the file is parsed, and validates them
+     */
+    private static final class Builder {
+
+        private final List<String> names = new ArrayList<>();
+        private final List<Integer> difficulties = new ArrayList<>();
+        private final List<Integer> floorCounts = new ArrayList<>();
+        private final List<String> intros = new ArrayList<>();
+        private final List<String> images = new ArrayList<>();
+        private final List<Integer> repeats = new ArrayList<>();
+
+        // whether a block is currently open, ie. between 'dungeon' and 'end'
+        private boolean open = false;
+
+        /**
+         * Handles a single non-comment line of the file
+         */
+        void parseLine(String line) {
+            int space = line.indexOf(' ');
+            String keyword = (space < 0) ? line.trim() : line.substring(0, space);
+            String rest = (space < 0) ? "" : line.substring(space + 1);
+
+            if (keyword.equals("dungeon")) {
+                if (this.open) {
+                    throw new IllegalArgumentException("'dungeon' before 'end' of the previous one");
+                }
+                startDungeon(rest.trim());
+                return;
+            }
+            if (!this.open) {
+                throw new IllegalArgumentException("'" + keyword + "' outside of a dungeon");
+            }
+            int b = this.names.size() - 1;
+            switch (keyword) {
+            case "difficulty":
+                int difficulty = parseInt(rest);
+                if (difficulty >= Map.DIFFICULTY_LEVELS) {
+                    throw new IllegalArgumentException("difficulty must be 0-" + (Map.DIFFICULTY_LEVELS - 1));
+                }
+                this.difficulties.set(b, difficulty);
+                break;
+            case "floors":
+                this.floorCounts.set(b, parsePositive(rest));
+                break;
+            case "image":
+                String image = RESOURCES + rest.trim();
+                if (Campaign.class.getResource(image) == null) {
+                    throw new IllegalArgumentException("no picture " + image);
+                }
+                this.images.set(b, image);
+                break;
+            case "intro":
+                this.intros.set(b, rest);
+                break;
+            case "repeat":
+                this.repeats.set(b, parsePositive(rest));
+                break;
+            case "end":
+                endDungeon(b);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown keyword '" + keyword + "'");
+            }
+        }
+
+        /**
+         * Opens a new block with no settings yet
+         */
+        private void startDungeon(String name) {
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("dungeon has no name");
+            }
+            this.open = true;
+            this.names.add(name);
+            this.difficulties.add(-1);
+            this.floorCounts.add(0);
+            this.intros.add(null);
+            this.images.add(null);
+            this.repeats.add(1);
+        }
+
+        /**
+         * Closes the current block, checking it is complete
+         */
+        private void endDungeon(int b) {
+            String name = this.names.get(b);
+            if (this.difficulties.get(b) < 0) {
+                throw new IllegalArgumentException(name + " needs a difficulty");
+            }
+            if (this.intros.get(b) == null || this.images.get(b) == null) {
+                throw new IllegalArgumentException(name + " needs an intro and an image");
+            }
+            if (this.floorCounts.get(b) == 0) {
+                this.floorCounts.set(b, this.difficulties.get(b) + 1);
+            }
+            this.open = false;
+        }
+
+        /**
+         * Parses one non-negative int
+         */
+        private static int parseInt(String text) {
+            try {
+                int value = Integer.parseInt(text.trim());
+                if (value < 0) {
+                    throw new IllegalArgumentException("'" + text.trim() + "' is negative");
+                }
+                return value;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("'" + text.trim() + "' is not a number");
+            }
+        }
+
+        /**
+         * Parses one int of at least 1
+         */
+        private static int parsePositive(String text) {
+            int value = parseInt(text);
+            if (value == 0) {
+                throw new IllegalArgumentException("must be at least 1");
+            }
+            return value;
+        }
+
+        /**
+         * Checks the campaign as a whole, then compiles it
+         */
+        Campaign build() {
+            if (this.open) {
+                throw new IllegalStateException("Error in campaign: last dungeon has no 'end'");
+            }
+            if (this.names.isEmpty()) {
+                throw new IllegalStateException("Error in campaign: no dungeons");
+            }
+            int blocks = this.names.size();
+            int[] first = new int[blocks + 1];
+            for (int b = 0; b < blocks; b++) {
+                long next = (long) first[b] + this.repeats.get(b);
+                if (next > Map.MAX_DUNGEONS) {
+                    throw new IllegalStateException("Error in campaign: more than " + Map.MAX_DUNGEONS + " dungeons");
+                }
+                first[b + 1] = (int) next;
+            }
+            int[] difficulties = new int[blocks];
+            int[] floorCounts = new int[blocks];
+            for (int b = 0; b < blocks; b++) {
+                difficulties[b] = this.difficulties.get(b);
+                floorCounts[b] = this.floorCounts.get(b);
+            }
+            return new Campaign(this.names.toArray(new String[0]), difficulties, floorCounts,
+                    this.intros.toArray(new String[0]), this.images.toArray(new String[0]), first);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package main.java.locations;
+
+import java.util.SplittableRandom;
+
+/**
+ * One 64x64 square of an endless floor: its tiles as floor plan characters, row by row.
+ * A chunk is generated from the seed alone, so it can be thrown away and made again whenever it is needed -
+ * unless the player has changed it, in which case it is marked dirty and kept in the ChunkStore instead.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+final class Chunk {
+
+    // the width and height of a chunk, in tiles - a power of two, so coordinates split with shifts and masks
+    static final int SIZE = 64;
+    static final int SHIFT = 6;
+    static final int MASK = SIZE - 1;
+    // the rows and columns of every chunk that are always open, so that neighbouring chunks always join up
+    private static final int CORRIDOR = SIZE / 2;
+
+    // where the chunk is, in chunks
+    final int chunkX;
+    final int chunkY;
+    // the tile characters, row by row
+    final byte[] tiles;
+    // whether the player has changed the chunk since it was generated or loaded
+    boolean dirty;
+
+    /**
+     * Creates a chunk from its tiles
+     *
+     * @param chunkX The chunk's row, in chunks
+     * @param chunkY The chunk's column, in chunks
+     * @param tiles The tile characters, row by row
+     */
+    Chunk(int chunkX, int chunkY, byte[] tiles) {
+        this.chunkX = chunkX;
+        this.chunkY = chunkY;
+        this.tiles = tiles;
+    }
+
+    /**
+     * Generates the chunk at the given place from its own random stream, so chunks come out
+     * the same whatever order they are generated in. Two rows and two columns through the middle
+     * are always open; the rest is a scattering of walls, enemies, gold and now and then some stairs.
+     * The start of the floor is in the middle of chunk 0,0.
+     *
+     * @param random The chunk's random stream, from RandomSource.forChunk
+     * @param chunkX The chunk's row, in chunks
+     * @param chunkY The chunk's column, in chunks
+     * @return The chunk
+     */
+    static Chunk generate(SplittableRandom random, int chunkX, int chunkY) {
+        byte[] tiles = new byte[SIZE * SIZE];
+        for (int x = 0; x < SIZE; x++) {
+            boolean corridorRow = (x == CORRIDOR - 1 || x == CORRIDOR);
+            for (int y = 0; y < SIZE; y++) {
+                byte tile;
+                if (corridorRow || y == CORRIDOR - 1 || y == CORRIDOR) {
+                    tile = 'o';
+                } else {
+                    int roll = random.nextInt(100);
+                    tile = (roll < 30) ? (byte) '-' : (roll < 33) ? (byte) 'e' : (roll < 36) ? (byte) 'g' : (byte) 'o';
+                }
+                tiles[x * SIZE + y] = tile;
+            }
+        }
+        // one chunk in eight has a way down, just off its corridors
+        if (random.nextInt(8) == 0) {
+            tiles[(CORRIDOR + 1) * SIZE + CORRIDOR + 1] = 'x';
+        }
+        if (chunkX == 0 && chunkY == 0) {
+            tiles[CORRIDOR * SIZE + CORRIDOR] = 's';
+        }
+        return new Chunk(chunkX, chunkY, tiles);
+    }
+
+    /**
+     * Returns the tile at the given place within the chunk
+     *
+     * @param x The row of the tile, on the whole floor - only the low bits are used
+     * @param y The column of the tile, on the whole floor - only the low bits are used
+     * @return The tile's character
+     */
+    byte getTile(int x, int y) {
+        return this.tiles[((x & MASK) << SHIFT) | (y & MASK)];
+    }
+
+    /**
+     * Changes the tile at the given place within the chunk, marking the chunk as dirty
+     *
+     * @param x The row of the tile, on the whole floor - only the low bits are used
+     * @param y The column of the tile, on the whole floor - only the low bits are used
+     * @param tile The tile's new character
+     */
+    void setTile(int x, int y, byte tile) {
+        this.tiles[((x & MASK) << SHIFT) | (y & MASK)] = tile;
+        this.dirty = true;
+    }
+}
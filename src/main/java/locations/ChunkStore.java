@@ -0,0 +1,83 @@
+package main.java.locations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Keeps the chunks of endless floors that the player has changed, one file per chunk in a folder,
+ * so they can be dropped from memory and read back as they were when the player returns.
+ * Chunks that were never changed aren't stored: they are generated again from the seed.
+ * A chunk's file is its tiles exactly as they are held in memory, 64x64 bytes.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public final class ChunkStore {
+
+    // the folder the chunk files are in
+    private final Path folder;
+
+    /**
+     * Creates a store in the given folder, creating the folder if needed
+     *
+     * @param folder The folder to keep chunk files in
+     * @throws IOException If the folder can't be created
+     */
+    public ChunkStore(Path folder) throws IOException {
+        this.folder = Files.createDirectories(folder);
+    }
+
+    /**
+     * Writes a chunk's tiles. A new file is written and then moved over the old one,
+     * so a chunk is never left half written.
+     *
+     * @param depth The depth of the chunk's floor
+     * @param chunkX The chunk's row, in chunks
+     * @param chunkY The chunk's column, in chunks
+     * @param tiles The chunk's tiles
+     * @throws IOException If the file can't be written
+     */
+    void save(int depth, int chunkX, int chunkY, byte[] tiles) throws IOException {
+        Path file = file(depth, chunkX, chunkY);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, tiles);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a chunk's tiles, if they were ever saved
+     *
+     * @param depth The depth of the chunk's floor
+     * @param chunkX The chunk's row, in chunks
+     * @param chunkY The chunk's column, in chunks
+     * @return The chunk's tiles, or null if the chunk has never been saved
+     * @throws IOException If the file can't be read, or isn't a chunk
+     */
+    byte[] load(int depth, int chunkX, int chunkY) throws IOException {
+        byte[] tiles;
+        try {
+            tiles = Files.readAllBytes(file(depth, chunkX, chunkY));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (tiles.length != Chunk.SIZE * Chunk.SIZE) {
+            throw new IOException("chunk " + chunkX + "," + chunkY + " at depth " + depth + " is " + tiles.length + " bytes");
+        }
+        return tiles;
+    }
+
+    /**
+     * Returns the file a chunk is kept in
+     *
+     * @param depth The depth of the chunk's floor
+     * @param chunkX The chunk's row, in chunks
+     * @param chunkY The chunk's column, in chunks
+     * @return The chunk's file
+     */
+    private Path file(int depth, int chunkX, int chunkY) {
+        return this.folder.resolve(depth + "_" + chunkX + "_" + chunkY + ".chunk");
+    }
+}
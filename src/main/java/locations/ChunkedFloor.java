@@ -0,0 +1,417 @@
+package main.java.locations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An endless floor, for the endless descent: a floor with no edges, made of 64x64 chunks that are
+ * generated from the seed as the player comes near them and dropped again once they are left behind.
+ * Only the chunks within a few chunks of the player are kept, plus the most recently used of the others,
+ * so the memory a floor takes never grows however far the player walks.
+ *
+ * Chunks are generated, and read back from the ChunkStore, on background threads: setCentre asks for
+ * every chunk around the player and returns at once, and a tile whose chunk hasn't arrived yet reads as
+ * UNLOADED (which isn't passable) rather than making the player wait. Chunks the player has changed are
+ * written to the ChunkStore, also in the background, when they are dropped.
+ *
+ * Coordinates are as on a Floor - x is the row and y the column - and may be negative. Apart from the
+ * background work, a ChunkedFloor belongs to the one thread playing it, like a Player.
+ *
+ * @version 1.1
+ * @author tp275
+ */
+public final class ChunkedFloor {
+
+    // what getTile returns for a tile whose chunk isn't loaded
+    public static final byte UNLOADED = 0;
+    // where the player starts - the middle of chunk 0,0
+    public static final int START_X = Chunk.SIZE / 2;
+    public static final int START_Y = Chunk.SIZE / 2;
+
+    // put on the ready queue when a chunk can't be made, so a thread waiting in awaitLoaded wakes to report it
+    private static final Chunk FAILED = new Chunk(0, 0, new byte[0]);
+    // the threads chunks are generated, loaded and saved on, shared by every endless floor
+    private static final ExecutorService GENERATORS = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), daemonThreads());
+
+    // where every chunk's random stream comes from
+    private final RandomSource randomSource;
+    // how far down the endless descent this floor is
+    private final int depth;
+    // how many chunks either side of the player's chunk are kept loaded
+    private final int radius;
+    // how many chunks are kept at most - the ones around the player, plus the most recently used others
+    private final int capacity;
+    // where changed chunks are kept while they aren't loaded
+    private final ChunkStore store;
+    // where chunks are generated, loaded and saved
+    private final Executor executor;
+
+    // the loaded chunks by key, least recently used first
+    private final LinkedHashMap<Long, Chunk> chunks = new LinkedHashMap<>(16, 0.75f, true);
+    // the keys of chunks asked for but not yet arrived
+    private final HashSet<Long> pending = new HashSet<>();
+    // chunks that have been generated or loaded, waiting to be picked up by the playing thread
+    private final LinkedBlockingQueue<Chunk> ready = new LinkedBlockingQueue<>();
+    // copies of changed chunks that have been dropped but may not be in the store yet, by key
+    private final ConcurrentHashMap<Long, Chunk> saving = new ConcurrentHashMap<>();
+    // held while writing to the store, so two saves of one chunk can't finish in the wrong order
+    private final Object saveLock = new Object();
+    // the first thing that went wrong in the background, thrown on the playing thread
+    private volatile Exception failure;
+
+    // the chunk the last tile was read from, as the next tile is most likely in it too
+    private Chunk last;
+    // the chunk the player is in
+    private int centreX;
+    private int centreY;
+
+    /**
+     * Creates an endless floor, generating and loading its chunks on the shared background threads.
+     * Nothing is loaded until setCentre is called.
+     *
+     * @param seed The game seed
+     * @param depth How far down the endless descent the floor is
+     * @param radius How many chunks either side of the player's chunk to keep loaded
+     * @param store Where to keep chunks the player has changed
+     */
+    public ChunkedFloor(long seed, int depth, int radius, ChunkStore store) {
+        this(seed, depth, radius, store, GENERATORS);
+    }
+
+    /**
+     * Creates an endless floor, generating and loading its chunks with the given executor, eg. the caller's own
+     * thread (Runnable::run) to have every chunk arrive as soon as it is asked for
+     *
+     * @param seed The game seed
+     * @param depth How far down the endless descent the floor is
+     * @param radius How many chunks either side of the player's chunk to keep loaded
+     * @param store Where to keep chunks the player has changed
+     * @param executor Where to generate, load and save chunks
+     */
+    public ChunkedFloor(long seed, int depth, int radius, ChunkStore store, Executor executor) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("radius must not be negative: " + radius);
+        }
+        this.randomSource = new RandomSource(seed);
+        this.depth = depth;
+        this.radius = radius;
+        int window = (2 * radius + 1) * (2 * radius + 1);
+        // room for everything around the player twice over, so turning back doesn't reload what was just left
+        this.capacity = 2 * window;
+        this.store = store;
+        this.executor = executor;
+        this.centreX = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Packs a chunk's coordinates into one key
+     *
+     * @param chunkX The chunk's row, in chunks
+     * @param chunkY The chunk's column, in chunks
+     * @return The chunk's key
+     */
+    static long chunkKey(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Tells the floor where the player is. If they have moved into another chunk, every chunk around them
+     * that isn't loaded is asked for, and the least recently used chunks beyond the capacity are dropped.
+     * Never waits for a chunk to arrive.
+     *
+     * @param x The player's row
+     * @param y The player's column
+     */
+    public void setCentre(int x, int y) {
+        drainReady();
+        int chunkX = x >> Chunk.SHIFT;
+        int chunkY = y >> Chunk.SHIFT;
+        if (chunkX == this.centreX && chunkY == this.centreY) {
+            return;
+        }
+        this.centreX = chunkX;
+        this.centreY = chunkY;
+        for (int dx = -this.radius; dx <= this.radius; dx++) {
+            for (int dy = -this.radius; dy <= this.radius; dy++) {
+                int cx = chunkX + dx;
+                int cy = chunkY + dy;
+                long key = chunkKey(cx, cy);
+                // looking a chunk up marks it as recently used, so the chunks around the player are never the ones dropped
+                if (this.chunks.get(key) == null && this.pending.add(key)) {
+                    this.executor.execute(() -> load(key, cx, cy));
+                }
+            }
+        }
+        evict();
+    }
+
+    /**
+     * Waits until every chunk that has been asked for has arrived, eg. before the player's first move
+     *
+     * @param timeout How long to wait at most, in milliseconds
+     * @return True if every chunk arrived in time
+     * @throws InterruptedException If interrupted while waiting
+     * @throws UncheckedIOException If a chunk couldn't be loaded or saved - as soon as it fails, rather than at the timeout
+     * @throws IllegalStateException If a chunk couldn't be generated
+     */
+    public boolean awaitLoaded(long timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        drainReady();
+        while (!this.pending.isEmpty()) {
+            Chunk chunk = this.ready.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (chunk == null) {
+                return false;
+            }
+            adopt(chunk);
+            drainReady();
+        }
+        evict();
+        return true;
+    }
+
+    /**
+     * Returns the tile at the given place
+     *
+     * @param x The tile's row
+     * @param y The tile's column
+     * @return The tile's floor plan character, or UNLOADED if its chunk isn't loaded yet
+     */
+    public byte getTile(int x, int y) {
+        Chunk chunk = findChunk(x, y);
+        return (chunk == null) ? UNLOADED : chunk.getTile(x, y);
+    }
+
+    /**
+     * Checks that the player may stand at the given place: that it is loaded and isn't a wall
+     *
+     * @param x The row to check
+     * @param y The column to check
+     * @return True if the player may stand there
+     */
+    public boolean isPassable(int x, int y) {
+        byte tile = getTile(x, y);
+        return tile != UNLOADED && tile != '-';
+    }
+
+    /**
+     * Changes the tile at the given place, eg. to empty once its enemy is defeated.
+     * The change is kept when the chunk is dropped, and is there again when the player comes back.
+     *
+     * @param x The tile's row
+     * @param y The tile's column
+     * @param tile The tile's new floor plan character
+     * @throws IllegalStateException If the tile's chunk isn't loaded
+     */
+    public void setTile(int x, int y, byte tile) {
+        Chunk chunk = findChunk(x, y);
+        if (chunk == null) {
+            throw new IllegalStateException("the chunk holding " + x + "," + y + " isn't loaded");
+        }
+        chunk.setTile(x, y, tile);
+    }
+
+    /**
+     * Writes every changed chunk to the store now, eg. before the game is closed, and waits for saves
+     * already under way to finish
+     *
+     * @throws IOException If a chunk can't be written
+     */
+    public void flush() throws IOException {
+        drainReady();
+        synchronized (this.saveLock) {
+            for (Chunk chunk : this.saving.values()) {
+                this.store.save(this.depth, chunk.chunkX, chunk.chunkY, chunk.tiles);
+            }
+            this.saving.clear();
+            for (Chunk chunk : this.chunks.values()) {
+                if (chunk.dirty) {
+                    this.store.save(this.depth, chunk.chunkX, chunk.chunkY, chunk.tiles);
+                    chunk.dirty = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of chunks loaded
+     *
+     * @return The number of chunks loaded
+     */
+    public int getLoadedChunkCount() {
+        return this.chunks.size();
+    }
+
+    /**
+     * Returns the most chunks that are kept loaded at once
+     *
+     * @return The most chunks kept loaded
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the depth of the floor
+     *
+     * @return How far down the endless descent the floor is
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Returns the loaded chunk holding the given place
+     *
+     * @param x The row
+     * @param y The column
+     * @return The chunk, or null if it isn't loaded
+     */
+    private Chunk findChunk(int x, int y) {
+        int chunkX = x >> Chunk.SHIFT;
+        int chunkY = y >> Chunk.SHIFT;
+        Chunk chunk = this.last;
+        if (chunk == null || chunk.chunkX != chunkX || chunk.chunkY != chunkY) {
+            drainReady();
+            chunk = this.chunks.get(chunkKey(chunkX, chunkY));
+            if (chunk != null) {
+                this.last = chunk;
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Generates a chunk, or reads it back if the player has changed it. Runs in the background.
+     *
+     * @param key The chunk's key
+     * @param chunkX The chunk's row, in chunks
+     * @param chunkY The chunk's column, in chunks
+     */
+    private void load(long key, int chunkX, int chunkY) {
+        try {
+            Chunk chunk;
+            Chunk unsaved = this.saving.get(key);
+            if (unsaved != null) {
+                // dropped so recently it may not be in the store yet - it is still changed from what the seed gives
+                chunk = new Chunk(chunkX, chunkY, unsaved.tiles.clone());
+                chunk.dirty = true;
+            } else {
+                byte[] tiles = this.store.load(this.depth, chunkX, chunkY);
+                chunk = (tiles != null) ? new Chunk(chunkX, chunkY, tiles)
+                        : Chunk.generate(this.randomSource.forChunk(this.depth, key), chunkX, chunkY);
+            }
+            this.ready.add(chunk);
+        } catch (IOException | RuntimeException e) {
+            // the chunk will never arrive, so whoever is waiting for it is told why instead
+            this.failure = e;
+            this.ready.add(FAILED);
+        }
+    }
+
+    /**
+     * Writes a dropped chunk to the store, unless a later copy of it has been written already. Runs in the background.
+     *
+     * @param key The chunk's key
+     */
+    private void save(long key) {
+        synchronized (this.saveLock) {
+            Chunk chunk = this.saving.get(key);
+            if (chunk == null) {
+                return;
+            }
+            try {
+                this.store.save(this.depth, chunk.chunkX, chunk.chunkY, chunk.tiles);
+                this.saving.remove(key, chunk);
+            } catch (IOException e) {
+                this.failure = e;
+            }
+        }
+    }
+
+    /**
+     * Picks up every chunk that has arrived from the background, dropping old ones to make room,
+     * and reports anything that went wrong there
+     *
+     * @throws UncheckedIOException If a chunk couldn't be loaded or saved
+     * @throws IllegalStateException If a chunk couldn't be generated
+     */
+    private void drainReady() {
+        Chunk chunk = this.ready.poll();
+        if (chunk != null) {
+            do {
+                adopt(chunk);
+            } while ((chunk = this.ready.poll()) != null);
+            evict();
+        }
+        Exception failed = this.failure;
+        if (failed instanceof IOException) {
+            throw new UncheckedIOException((IOException) failed);
+        } else if (failed != null) {
+            throw new IllegalStateException("A chunk could not be generated", failed);
+        }
+    }
+
+    /**
+     * Adds a chunk that has arrived to the loaded chunks
+     *
+     * @param chunk The chunk
+     */
+    private void adopt(Chunk chunk) {
+        if (chunk == FAILED) {
+            return; // drainReady reports the failure
+        }
+        long key = chunkKey(chunk.chunkX, chunk.chunkY);
+        this.pending.remove(key);
+        this.chunks.putIfAbsent(key, chunk);
+    }
+
+    /**
+     * Drops the least recently used chunks until no more than the capacity are loaded,
+     * sending changed ones to the store
+     */
+    private void evict() {
+        Iterator<Chunk> oldest = this.chunks.values().iterator();
+        while (this.chunks.size() > this.capacity && oldest.hasNext()) {
+            Chunk chunk = oldest.next();
+            if (Math.abs(chunk.chunkX - this.centreX) <= this.radius && Math.abs(chunk.chunkY - this.centreY) <= this.radius) {
+                break; // only chunks that arrived after the player had already moved on can be older than the ones around them
+            }
+            oldest.remove();
+            if (chunk == this.last) {
+                this.last = null;
+            }
+            if (chunk.dirty) {
+                long key = chunkKey(chunk.chunkX, chunk.chunkY);
+                // save a copy, so nothing can change it while it is written
+                this.saving.put(key, new Chunk(chunk.chunkX, chunk.chunkY, chunk.tiles.clone()));
+                this.executor.execute(() -> save(key));
+            }
+        }
+    }
+
+    /**
+     * Names the background threads, and lets the JVM exit without waiting for them
+     *
+     * @return A factory of daemon threads
+     */
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "chunk-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
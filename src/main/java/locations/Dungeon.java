@@ -1,37 +1,77 @@
 package main.java.locations;
 
 import java.util.ArrayList;
+import java.util.SplittableRandom;
 
 /**
- * Creates and stores Floors. Difficulty level sets floor difficulty and number of floors.
+ * Creates and stores Floors. The campaign sets the dungeon's difficulty, number of floors, intro and picture.
+ * A dungeon opened from a WorldStore reads each of its floors from the store the first time it is asked for.
  * 
- * @version 1.0
+ * @version 1.3
  * @author tp275
  */
 public class Dungeon {
 
-    // increase in difficulty from 0-4, 4 is boss dungeon
+    // increase in difficulty from 0-3, which picks the floor plans and enemies
     private final int difficulty;
     // a unique ID number for this dungeon
     private final int id;
-    // a list containing every Floor object in this dungeon - size varies with difficulty
+    // a list containing every Floor object in this dungeon - size varies with difficulty, and a floor's ID is its index
     private final ArrayList<Floor> floorList = new ArrayList<>();
     // stores whether or not this dungeon is the final one in the game
     private boolean isLastDungeon = false;
     // the intro text to be played on entering the dungeon
-    private String intro;
+    private final String intro;
+    // where the picture shown while the player is in the dungeon is, on the classpath
+    private final String image;
+    // this dungeon's random stream, split once for each floor
+    private final SplittableRandom random;
+    // the store this dungeon's floors are read from, or null if they were generated
+    private final WorldStore store;
+    // the random stream for each floor not yet read from the store
+    private SplittableRandom[] floorRandoms;
 
     /**
-     * Stores parameters, populates floors and sets the dungeon intro
+     * Stores parameters, and populates floors as the campaign describes them
      * 
-     * @param difficulty - The dungeon's difficulty level
+     * @param campaign - The campaign the dungeon is in
      * @param id - The dungeon's unique ID
+     * @param random - The dungeon's random stream
      */
-    public Dungeon(int difficulty, int id) {
-        this.difficulty = difficulty;
+    public Dungeon(Campaign campaign, int id, SplittableRandom random) {
+        this.difficulty = campaign.getDifficulty(id);
         this.id = id;
-        populateFloors(difficulty+1); // Difficulty serves as amount of floors also
-        setIntro();
+        this.random = random;
+        this.store = null;
+        this.intro = campaign.getIntro(id);
+        this.image = campaign.getImage(id);
+        populateFloors(campaign.getFloorCount(id));
+    }
+
+    /**
+     * Opens a dungeon saved in a WorldStore, without reading any of its floors yet
+     * 
+     * @param store - The store the dungeon was saved in
+     * @param campaign - The campaign the dungeon's intro and picture come from
+     * @param id - The dungeon's unique ID
+     * @param random - The dungeon's random stream, the same one it was first generated with
+     */
+    Dungeon(WorldStore store, Campaign campaign, int id, SplittableRandom random) {
+        this.difficulty = store.getDifficulty(id);
+        this.id = id;
+        this.random = random;
+        this.store = store;
+        this.intro = campaign.getIntro(id);
+        this.image = campaign.getImage(id);
+        // split the streams now, in the order the floors were generated in, so each floor gets the same one as before
+        this.floorRandoms = new SplittableRandom[store.getFloorCount(id)];
+        for (int i = 0; i < this.floorRandoms.length; i++) {
+            this.floorRandoms[i] = this.random.split();
+            this.floorList.add(null);
+        }
+        if (store.isLastDungeon(id)) {
+            setLastDungeon();
+        }
     }
 
     /**
@@ -39,7 +79,7 @@ public class Dungeon {
      */
     private void populateFloors(int amount) {
         for (int i = 0; i < amount; i++) {
-            floorList.add(new Floor(this.difficulty, i));
+            floorList.add(new Floor(this.difficulty, i, this.random.split()));
         }
     }
 
@@ -53,18 +93,59 @@ public class Dungeon {
     }
 
     /**
-     * Returns a Floor from the floorList that matches the given ID number; null if no match
+     * Returns the number of floors in this dungeon
+     * 
+     * @return The number of floors in this dungeon
+     */
+    public int getFloorCount() {
+        return this.floorList.size();
+    }
+
+    /**
+     * Returns a Floor from the floorList that matches the given ID number; null if no match.
+     * Floors are numbered by their place in the list, so this is one index.
      * 
      * @return A Floor from the floorList that matches the given ID number; null if no match
      */
     public Floor getFloorByID(int id) {
-        for (Floor f : this.floorList) {
-            if (f.getID() == id) {
-                return f;
-            }
+        if (this.store != null) {
+            return openFloor(id);
+        }
+        if (id < 0 || id >= this.floorList.size()) {
+            System.out.println("No floor with this id was found!");
+            return null;
         }
-        System.out.println("No floor with this id was found!");
-        return null;
+        return this.floorList.get(id);
+    }
+
+    /**
+     * Returns the Floor with the given ID, reading it from the store if it hasn't been already.
+     * Dungeons may be shared between games on different threads, so only one of them reads each floor.
+     * 
+     * @param id - The unique ID of the floor that is wanted
+     * @return The Floor with the given ID, else null
+     */
+    private synchronized Floor openFloor(int id) {
+        if (id < 0 || id >= this.floorList.size()) {
+            System.out.println("No floor with this id was found!");
+            return null;
+        }
+        Floor floor = this.floorList.get(id);
+        if (floor == null) {
+            floor = this.store.openFloor(this.id, id, this.floorRandoms[id]);
+            this.floorList.set(id, floor);
+            this.floorRandoms[id] = null;
+        }
+        return floor;
+    }
+
+    /**
+     * Returns the dungeon's difficulty level
+     * 
+     * @return The dungeon's difficulty level
+     */
+    public int getDifficulty() {
+        return this.difficulty;
     }
 
     /**
@@ -93,25 +174,11 @@ public class Dungeon {
     }
 
     /**
-     * Sets the intro text. The text chosen, hardcoded in this method, is dependent on the dungeon's difficulty
+     * Returns where the picture shown while the player is in the dungeon is, on the classpath
+     * 
+     * @return The dungeon's picture, eg. /main/res/dungeon0.jpg
      */
-    private void setIntro() {
-        switch (this.difficulty) {
-        case 0:
-            this.intro = "You stride into the fiendishly not very difficult Caverns of Adoddle";
-            break;
-        case 1:
-            this.intro = "You hold your breath as you creep through the back entrance of The Putrescent Castle of Rafflesia";
-            break;
-        case 2:
-            this.intro = "You take some aspirin as you prepare to navigate the Torturous Labyrinth of Moderate-To-Really-Quite-Painful Toothache";
-            break;
-        case 3:
-            this.intro = "The Damnable Mines of Drastic Dereliction dare your doughty derriere through its dreadful doors";
-            break;
-        case 4:
-            this.intro = "Uh-oh, you've really done it now. Good luck in the Final Caverns Of Try-Not-To-Die";
-            break;
-        }
+    public String getImage() {
+        return this.image;
     }
 }
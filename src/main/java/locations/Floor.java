@@ -1,24 +1,33 @@
 package main.java.locations;
 
 import java.awt.Point;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.HashMap;
-import java.util.Random;
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
 
+import main.java.metrics.FloorLoadEvent;
+import main.java.metrics.Metrics;
 import main.java.tile.Empty;
 import main.java.tile.Gold;
 import main.java.tile.Stairs;
 import main.java.tile.Start;
 import main.java.tile.Tile;
 import main.java.tile.Wall;
+import main.java.tile.character.Bestiary;
 import main.java.tile.character.Enemy;
+import main.java.tile.character.Player;
 
 /**
- * Creates from a file and stores a HashMap of the floor, as Points and Tiles.
+ * Creates from a file and stores the Tiles of the floor, in an array indexed by location like the grid they were made from,
+ * so any tile is found from its row and column without a lookup key.
+ * The file is decoded by a FloorPlanReader into a grid of one byte per tile, which is kept for printing the map.
+ * A floor may also be opened from a grid saved in a WorldStore, in which case the grid is a view of the store's file.
  * 
- * @version 2.0
+ * @version 2.6
  * @author tp275
  */
 public class Floor {
@@ -27,100 +36,218 @@ public class Floor {
     private Point startPos;
     // sets difficulty of the floor: affects the layout loaded and enemies
     private final int difficulty;
-    // contains all x,y Points of the floor with their corresponding tiles
-    private final HashMap<Point, Tile> floorPlan = new HashMap<>();
-    // a String representation of the current floorPlan
-    private String[] floorPlanStringList;
+    // the Tile at every location, row by row - the Tile at x,y is at x * columns + y
+    private Tile[] tiles = new Tile[0];
+    // the floor's tile characters, row by row, as read from its file or a view of a WorldStore - used to print the map
+    private ByteBuffer grid;
+    // the floor's size, as given at the top of its file
+    private int rows;
+    private int columns;
+    // one bit per location, row by row, set where the player may stand, ie. any tile but a wall - a move is checked
+    // with one word read rather than by looking at the Tile it leads to
+    private long[] passable = new long[0];
     // ID of the floor, helpful as higher floors have lower IDs
     private final int id;
-    // a handy Random for use within the class
-    private final Random random = new Random();
+    // this floor's random stream, used for choosing the layout and its enemies
+    private final SplittableRandom random;
 
     /**
-     * Stores parameters and creates the floor plan from file
+     * Stores parameters and creates the floor plan from file, using an unseeded random stream
      * 
      * @param difficulty - The floor's difficulty level
      * @param id - The floor's unique ID
      */
     public Floor(int difficulty, int id) {
+        this(difficulty, id, new SplittableRandom());
+    }
+
+    /**
+     * Stores parameters and creates the floor plan from file
+     * 
+     * @param difficulty - The floor's difficulty level
+     * @param id - The floor's unique ID
+     * @param random - The floor's random stream. Every random choice on the floor is drawn from it.
+     */
+    public Floor(int difficulty, int id, SplittableRandom random) {
         this.difficulty = difficulty;
         this.id = id;
+        this.random = random;
         this.createFloorPlan();
     }
 
     /**
-     * Populates floorPlan with all x,y Points of the floor with their corresponding Tiles
+     * Stores parameters and creates the floor plan from the given stream instead of one of the bundled files,
+     * eg. for custom or generated levels. The stream is read to the end and closed.
+     * 
+     * @param difficulty - The floor's difficulty level
+     * @param id - The floor's unique ID
+     * @param random - The floor's random stream. Every random choice on the floor is drawn from it.
+     * @param source - A stream of a floor plan, in the same format as the bundled floorplan .txt files
+     */
+    public Floor(int difficulty, int id, SplittableRandom random, InputStream source) {
+        this.difficulty = difficulty;
+        this.id = id;
+        this.random = random;
+        this.createFloorPlan(source);
+    }
+
+    /**
+     * Stores parameters and creates the floor plan from a file, which is memory-mapped rather than read,
+     * eg. for huge custom levels
+     * 
+     * @param difficulty - The floor's difficulty level
+     * @param id - The floor's unique ID
+     * @param random - The floor's random stream. Every random choice on the floor is drawn from it.
+     * @param file - A floor plan file, in the same format as the bundled floorplan .txt files
+     * @throws IOException If the file can't be read
+     * @throws FloorFormatException If the file isn't a floor plan
+     */
+    public Floor(int difficulty, int id, SplittableRandom random, Path file) throws IOException {
+        this.difficulty = difficulty;
+        this.id = id;
+        this.random = random;
+        this.createFloorPlan(new FloorPlanReader(file));
+    }
+
+    /**
+     * Stores parameters and creates the floor plan from a grid of tile characters that was saved earlier,
+     * keeping the grid as it is - eg. a view of a memory-mapped WorldStore
+     * 
+     * @param difficulty - The floor's difficulty level
+     * @param id - The floor's unique ID
+     * @param random - The floor's random stream, the same one it was first generated with
+     * @param grid - The floor's tile characters, row by row, from position 0
+     * @param rows - The number of rows on the floor
+     * @param columns - The number of columns on the floor
+     */
+    Floor(int difficulty, int id, SplittableRandom random, ByteBuffer grid, int rows, int columns) {
+        this.difficulty = difficulty;
+        this.id = id;
+        this.random = random;
+        this.grid = grid;
+        this.rows = rows;
+        this.columns = columns;
+        // the layout was picked with the stream's first draw - draw it again so the enemies come out as they did
+        this.random.nextInt(3);
+        createTiles();
+    }
+
+    /**
+     * Populates the tiles from one of the bundled floor plan files
      */
     private void createFloorPlan() {
-        try { // Instantiate a scanner object and read the given row and column number from the file
-            Scanner reader = new Scanner(findFloorplanFile());
-            int rows = reader.nextInt();
-            int cols = reader.nextInt();
-
-            // make the reader interpret the rest of the file as one token
-            reader.useDelimiter("\\Z");
-            // split the floor map by newlines and store as a String[]
-            this.floorPlanStringList = reader.next().trim().split("\\n");
-
-            // loop through every tile of the floor
-            for (int y = 0; y < cols; y++) {
-                for (int x = 0; x < rows; x++) {
-                    char tileChar = this.floorPlanStringList[x].charAt(y); // find char at 'x,y'
-                    if (tileChar == 's') { // note startPos if start tile
-                        this.startPos = new Point(x,y);
-                    }
-                    Point point = new Point(x,y);
-                    // put the Point for this location and the corresponding Tile into the floorPlan hashmap
-                    floorPlan.put(point, convertCharToTile(tileChar, point));
+        InputStream source = findFloorplanFile();
+        if (source == null) {
+            System.out.println("Error: could not find floor plan file");
+            return;
+        }
+        createFloorPlan(source);
+    }
+
+    /**
+     * Populates the tiles of every x,y location on the floor
+     * 
+     * @param source - The stream to read the floor plan from. It is closed afterwards.
+     */
+    private void createFloorPlan(InputStream source) {
+        try (InputStream in = source) {
+            createFloorPlan(new FloorPlanReader(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Populates the tiles of every x,y location on the floor
+     * 
+     * @param reader - A reader of the floor plan, not yet read
+     * @throws IOException If the floor plan can't be read
+     */
+    private void createFloorPlan(FloorPlanReader reader) throws IOException {
+        // decode the file straight into the grid of tile characters
+        reader.read();
+        this.rows = reader.getRows();
+        this.columns = reader.getColumns();
+        this.grid = ByteBuffer.wrap(reader.getGrid());
+        createTiles();
+    }
+
+    /**
+     * Populates the tiles with the Tile for every character in the grid
+     */
+    private void createTiles() {
+        // only timed while a flight recording wants it
+        FloorLoadEvent event = FloorLoadEvent.isRecording() ? new FloorLoadEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        this.passable = new long[(this.rows * this.columns + 63) >>> 6];
+        this.tiles = new Tile[this.rows * this.columns];
+
+        // loop through every tile of the floor - column by column, the order enemies have always drawn their randomness in
+        for (int y = 0; y < this.columns; y++) {
+            for (int x = 0; x < this.rows; x++) {
+                int index = x * this.columns + y;
+                char tileChar = (char) this.grid.get(index); // find char at 'x,y'
+                // put the corresponding Tile in its place in the tiles array
+                Tile tile = convertCharToTile(tileChar, x, y); // notes startPos if start tile
+                this.tiles[index] = tile;
+                if (tile != null && !(tile instanceof Wall)) {
+                    this.passable[index >>> 6] |= 1L << index;
                 }
             }
-            reader.close();
-
-        // Handles exception if the file cannot be found
-        } catch (FileNotFoundException e) {
-            System.out.println("Error: could not find floor plan file");
-            e.printStackTrace();
+        }
+        if (Metrics.ENABLED) {
+            Metrics.FLOORS_GENERATED.increment();
+        }
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.difficulty = this.difficulty;
+                event.floor = this.id;
+                event.rows = this.rows;
+                event.columns = this.columns;
+                event.commit();
+            }
         }
     }
 
     /**
-     * Returns a .txt File containing a representation of the floor, 
-     * chosen randomly from a certain amount of files at the specified difficulty level
+     * Returns a stream of a .txt file containing a representation of the floor, 
+     * chosen randomly from a certain amount of files at the specified difficulty level.
+     * The files are read from the classpath, so they are found whether the game runs from a folder or a jar.
      * 
-     * @return - A .txt File containing a representation of the floor
+     * @return - A stream of a .txt file containing a representation of the floor, or null if it is missing
      */
-    private File findFloorplanFile() {
-        // Get absolute path of current folder
-        String path = this.getClass().getResource("").getPath();
-        // Modify that path to point to resource folder
-        path = path.replaceFirst("java/", "res/");
-        path = path.replaceFirst("/locations", "");
+    private InputStream findFloorplanFile() {
         // Get random choice of floorplan from fixed difficulty level
         // eg. floorplan2-3.txt = difficulty 2, version 3
-        String filename = path + "floorplan" + this.difficulty + "-" + (random.nextInt(3)+1) + ".txt";
-        return new File(filename);
+        String filename = "/main/res/floorplan" + this.difficulty + "-" + (random.nextInt(3)+1) + ".txt";
+        return Floor.class.getResourceAsStream(filename);
     }
 
     /**
      * Returns a fully initialised tile that corresponds with the tileString parameter
      * 
      * @param tileString - A char from the text representation of the floor
-     * @param point - The Point on the floor that the tileString char is at
+     * @param x - The row on the floor that the tileString char is at
+     * @param y - The column on the floor that the tileString char is at
      * @return A fully initialised tile that corresponds with the tileString parameter
      */
-    private Tile convertCharToTile(char tileString, Point point) {
+    private Tile convertCharToTile(char tileString, int x, int y) {
         switch (tileString) {
         case '-':
             return new Wall();
         case 's':
-            this.startPos = point;
+            this.startPos = new Point(x, y);
             return new Start();
         case 'x':
             return new Stairs();
         case 'o':
             return new Empty();
         case 'e':
-            return new Enemy(this.difficulty+1);
+            // the archetype depends on the dungeon's spawn weights
+            return new Enemy(this.difficulty+1, Bestiary.get().pickArchetype(this.difficulty, this.random), this.random);
         case 'g':
             return new Gold(this.difficulty+1);
         }
@@ -145,6 +272,24 @@ public class Floor {
         return this.difficulty;
     }
 
+    /**
+     * Returns the number of rows on the floor - valid x coordinates are 0 to rows-1
+     * 
+     * @return The number of rows on the floor
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Returns the number of columns on the floor - valid y coordinates are 0 to columns-1
+     * 
+     * @return The number of columns on the floor
+     */
+    public int getColumns() {
+        return this.columns;
+    }
+
     /**
      * Checks that the tile at the given point is not a wall or outside the bounds of the floor
      * 
@@ -152,7 +297,50 @@ public class Floor {
      * @return True if floor location contains a usable tile for the player, false otherwise
      */
     public boolean checkValidPlayerLocation(Point point) {
-        return this.floorPlan.containsKey(point) && !(this.floorPlan.get(point).getName().equals("Wall"));
+        return isPassable(point.x, point.y);
+    }
+
+    /**
+     * Checks that the tile at the given location is not a wall or outside the bounds of the floor,
+     * with one lookup in the passability bitmap
+     * 
+     * @param x - The row to check
+     * @param y - The column to check
+     * @return True if floor location contains a usable tile for the player, false otherwise
+     */
+    public boolean isPassable(int x, int y) {
+        if (!isInside(x, y)) {
+            return false;
+        }
+        int bit = x * this.columns + y;
+        return (this.passable[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Returns whether the given location is within the bounds of the floor
+     * 
+     * @param x - The row
+     * @param y - The column
+     * @return True if the location is on the floor
+     */
+    private boolean isInside(int x, int y) {
+        // one unsigned comparison per axis catches both negative and too-large coordinates
+        return Integer.compareUnsigned(x, this.rows) < 0 && Integer.compareUnsigned(y, this.columns) < 0;
+    }
+
+    /**
+     * Checks all four neighbours of a location at once, eg. for pathfinding.
+     * Each move's bit of the result, 1 << Player.MOVE_UP and so on, is set if the tile that move leads to is passable.
+     * 
+     * @param x - The row of the location
+     * @param y - The column of the location
+     * @return A 4-bit mask of the passable neighbours
+     */
+    public int getPassableNeighbours(int x, int y) {
+        return (isPassable(x - 1, y) ? 1 << Player.MOVE_UP : 0)
+                | (isPassable(x + 1, y) ? 1 << Player.MOVE_DOWN : 0)
+                | (isPassable(x, y - 1) ? 1 << Player.MOVE_LEFT : 0)
+                | (isPassable(x, y + 1) ? 1 << Player.MOVE_RIGHT : 0);
     }
 
     /**
@@ -162,37 +350,84 @@ public class Floor {
      * @return A string of the character representation of the floor plan, with the player's location shown on it
      */
     public String getFloorMap(Point playerLocation) {
-        StringBuilder fpString = new StringBuilder();
-        for (int i = 0; i < this.floorPlanStringList.length; i++) {
-            StringBuilder floorRow = new StringBuilder(this.floorPlanStringList[i]);
-            if (i == playerLocation.x) {
-                floorRow.setCharAt(playerLocation.y, 'P');
-            }
-            fpString.append(floorRow);
+        return getFloorMap(playerLocation.x, playerLocation.y);
+    }
+
+    /**
+     * Returns a string of the character representation of the floor plan, with the player's location shown on it
+     * 
+     * @param x - The row the player is on. A P will be printed on the map at this location.
+     * @param y - The column the player is on
+     * @return A string of the character representation of the floor plan, with the player's location shown on it
+     */
+    public String getFloorMap(int x, int y) {
+        byte[] map = new byte[this.rows * this.columns];
+        this.grid.get(0, map);
+        if (isInside(x, y)) {
+            map[x * this.columns + y] = 'P';
         }
-        return fpString.toString();
+        return new String(map, StandardCharsets.ISO_8859_1);
     }
 
     /**
-     * Returns the Tile in floorPlan corresponding to the given point.
-     * If no match, returns null
+     * Returns the floor's tile characters, row by row, eg. for saving in a WorldStore
+     * 
+     * @return A read-only view of the floor's grid
+     */
+    ByteBuffer getGrid() {
+        return this.grid.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the Tile at the given point.
+     * If it is outside the floor, returns null
      * 
      * @param point - The Point to match
      * @return The corresponding Tile, or null if no match
      */
     public Tile getTileByPoint(Point point) {
-        if (this.floorPlan.get(point) == null) {
+        return getTile(point.x, point.y);
+    }
+
+    /**
+     * Returns the Tile at the given location, with one array read.
+     * If it is outside the floor, returns null
+     * 
+     * @param x - The row
+     * @param y - The column
+     * @return The Tile there, or null if it is outside the floor
+     */
+    public Tile getTile(int x, int y) {
+        if (!isInside(x, y)) {
             return null;
         }
-        return this.floorPlan.get(point);
+        return this.tiles[x * this.columns + y];
     }
 
     /**
-     * Returns the Point corresponding to the location of the start tile on this floor
+     * Returns the location of the start tile on this floor. The Point is a copy, so changing it doesn't move the start.
      * 
-     * @return The Point corresponding to the location of the start tile on this floor
+     * @return The Point corresponding to the location of the start tile on this floor, or null if there isn't one
      */
     public Point getStartPos() {
-        return this.startPos;
+        return (this.startPos == null) ? null : new Point(this.startPos);
+    }
+
+    /**
+     * Returns the row of the start tile on this floor
+     * 
+     * @return The start tile's row
+     */
+    public int getStartX() {
+        return this.startPos.x;
+    }
+
+    /**
+     * Returns the column of the start tile on this floor
+     * 
+     * @return The start tile's column
+     */
+    public int getStartY() {
+        return this.startPos.y;
     }
 }
@@ -0,0 +1,47 @@
+package main.java.locations;
+
+/**
+ * Thrown when a floor plan isn't in the floor plan format, saying where in the file the problem is
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public class FloorFormatException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    // where the problem is: 1-based row (line) and column (character) of the file
+    private final int row;
+    private final int column;
+
+    /**
+     * Creates an exception for a problem at the given place in the file
+     *
+     * @param row The 1-based row (line) of the file
+     * @param column The 1-based column (character) of the row
+     * @param message What is wrong
+     */
+    public FloorFormatException(int row, int column, String message) {
+        super("Floor plan row " + row + ", column " + column + ": " + message);
+        this.row = row;
+        this.column = column;
+    }
+
+    /**
+     * Returns the 1-based row (line) of the file the problem is on
+     *
+     * @return The row the problem is on
+     */
+    public int getRow() {
+        return this.row;
+    }
+
+    /**
+     * Returns the 1-based column (character) of the row the problem is at
+     *
+     * @return The column the problem is at
+     */
+    public int getColumn() {
+        return this.column;
+    }
+}
@@ -0,0 +1,278 @@
+package main.java.locations;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a floor plan file straight into a grid of tile characters, one byte per tile, row by row.
+ * The file is read a buffer at a time from a stream, or memory-mapped, and decoded byte by byte without
+ * making any Strings, so even huge custom levels only ever cost their grid. Anything that isn't in the
+ * floor plan format is reported as a FloorFormatException giving the row and column it was found at.
+ *
+ * The format: the number of rows, then the number of columns, then that many rows of that many tile
+ * characters (see TILES), each ending in a newline. Whitespace separates the numbers and the rows,
+ * and may trail a row. Exactly one of the tiles must be the start, 's'.
+ *
+ * @version 1.1
+ * @author tp275
+ */
+public final class FloorPlanReader {
+
+    // every character a tile may be
+    public static final String TILES = "-sxoeg";
+    // the tile the player starts on
+    private static final byte START = 's';
+    // IS_TILE[b] is true if byte b is one of TILES
+    private static final boolean[] IS_TILE = new boolean[256];
+    static {
+        for (int i = 0; i < TILES.length(); i++) {
+            IS_TILE[TILES.charAt(i)] = true;
+        }
+    }
+    // how much of a stream is read at once
+    private static final int BUFFER_SIZE = 1 << 16;
+    // returned by next() at the end of the file
+    private static final int END = -1;
+
+    // where the file comes from - null once it is all in the buffer, eg. when it is mapped
+    private final InputStream source;
+    // the bytes read but not yet decoded
+    private final ByteBuffer buffer;
+    // where the next byte is in the file
+    private int row = 1;
+    private int column = 1;
+    // where the byte last returned by next() is in the file, for reporting problems
+    private int lastRow = 1;
+    private int lastColumn = 0;
+
+    // where the start tile is in the file - 0 until it is found
+    private int startRow;
+    private int startColumn;
+
+    // the floor's size, and its tiles row by row
+    private int rows;
+    private int columns;
+    private byte[] grid;
+
+    /**
+     * Creates a reader of a stream. The stream is not closed.
+     *
+     * @param source The stream of a floor plan file
+     */
+    public FloorPlanReader(InputStream source) {
+        this.source = source;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.flip(); // empty until the first refill
+    }
+
+    /**
+     * Creates a reader of a file, which is memory-mapped rather than read
+     *
+     * @param file The floor plan file
+     * @throws IOException If the file can't be opened or mapped
+     */
+    public FloorPlanReader(Path file) throws IOException {
+        this.source = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too big to be a floor plan");
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Reads the whole floor plan
+     *
+     * @return This reader, for getting the result from
+     * @throws IOException If the stream fails
+     * @throws FloorFormatException If the file isn't a floor plan
+     */
+    public FloorPlanReader read() throws IOException {
+        this.rows = readNumber("the number of rows");
+        this.columns = readNumber("the number of columns");
+        if ((long) this.rows * this.columns > Integer.MAX_VALUE - 8) {
+            throw new FloorFormatException(this.row, this.column, this.rows + " x " + this.columns + " is too many tiles");
+        }
+        this.grid = new byte[this.rows * this.columns];
+
+        int c = skipWhitespace();
+        for (int x = 0; x < this.rows; x++) {
+            int start = x * this.columns;
+            int y = 0;
+            // when the rest of the row is already buffered, copy it in one go and check it after
+            if (this.columns > 0 && c != END && IS_TILE[c] && this.buffer.remaining() >= this.columns - 1) {
+                int fileRow = this.lastRow;
+                int fileColumn = this.lastColumn;
+                this.grid[start] = (byte) c;
+                this.buffer.get(this.grid, start + 1, this.columns - 1);
+                for (y = 0; y < this.columns && IS_TILE[this.grid[start + y] & 0xFF]; y++) {
+                    if (this.grid[start + y] == START) {
+                        foundStart(fileRow, fileColumn + y);
+                    }
+                }
+                if (y < this.columns) {
+                    // put back the bytes from the first bad one on, and let the byte-by-byte loop below report it
+                    this.buffer.position(this.buffer.position() - (this.columns - y));
+                }
+                this.column += y - 1;
+                c = next();
+            }
+            for (; y < this.columns; y++) {
+                if (c == END) {
+                    throw new FloorFormatException(this.row, this.column,
+                            "the file ends at row " + (x + 1) + " of " + this.rows + " rows");
+                }
+                if (c == '\n' || c == '\r') {
+                    throw new FloorFormatException(this.lastRow, this.lastColumn,
+                            "row has " + y + " tiles, but the floor has " + this.columns + " columns");
+                }
+                if (!IS_TILE[c]) {
+                    throw new FloorFormatException(this.lastRow, this.lastColumn, "'" + (char) c + "' is not a tile");
+                }
+                if (c == START) {
+                    foundStart(this.lastRow, this.lastColumn);
+                }
+                this.grid[start + y] = (byte) c;
+                c = next();
+            }
+            // only whitespace may follow a row's tiles
+            while (c != '\n' && c != END) {
+                if (c > ' ') {
+                    throw new FloorFormatException(this.lastRow, this.lastColumn,
+                            "row is longer than the floor's " + this.columns + " columns");
+                }
+                c = next();
+            }
+            c = next();
+        }
+        if (this.startRow == 0) {
+            throw new FloorFormatException(this.row, this.column, "the floor has no start tile");
+        }
+        return this;
+    }
+
+    /**
+     * Notes where the start tile is, unless the floor already has one
+     *
+     * @param row The row of the file the start tile is on
+     * @param column The column of the file the start tile is at
+     * @throws FloorFormatException If a start tile has already been found
+     */
+    private void foundStart(int row, int column) {
+        if (this.startRow != 0) {
+            throw new FloorFormatException(row, column, "a second start tile - the first is at row "
+                    + this.startRow + ", column " + this.startColumn);
+        }
+        this.startRow = row;
+        this.startColumn = column;
+    }
+
+    /**
+     * Reads a non-negative whole number, skipping any whitespace before it
+     *
+     * @param what What the number is, for reporting if it is missing
+     * @return The number
+     * @throws IOException If the stream fails
+     */
+    private int readNumber(String what) throws IOException {
+        int c = skipWhitespace();
+        if (c < '0' || c > '9') {
+            throw new FloorFormatException(this.lastRow, this.lastColumn, "expected " + what);
+        }
+        long number = 0;
+        while (c >= '0' && c <= '9') {
+            number = number * 10 + (c - '0');
+            if (number > Integer.MAX_VALUE) {
+                throw new FloorFormatException(this.lastRow, this.lastColumn, what + " is too big");
+            }
+            c = next();
+        }
+        return (int) number;
+    }
+
+    /**
+     * Skips whitespace
+     *
+     * @return The first byte that isn't whitespace, or END
+     * @throws IOException If the stream fails
+     */
+    private int skipWhitespace() throws IOException {
+        int c = next();
+        while (c != END && c <= ' ') {
+            c = next();
+        }
+        return c;
+    }
+
+    /**
+     * Returns the next byte of the file, keeping track of its row and column
+     *
+     * @return The next byte, or END at the end of the file
+     * @throws IOException If the stream fails
+     */
+    private int next() throws IOException {
+        if (!this.buffer.hasRemaining() && !refill()) {
+            return END;
+        }
+        int c = this.buffer.get() & 0xFF;
+        this.lastRow = this.row;
+        this.lastColumn = this.column;
+        if (c == '\n') {
+            this.row++;
+            this.column = 1;
+        } else {
+            this.column++;
+        }
+        return c;
+    }
+
+    /**
+     * Reads the next buffer's worth of the stream
+     *
+     * @return False at the end of the stream
+     * @throws IOException If the stream fails
+     */
+    private boolean refill() throws IOException {
+        if (this.source == null) {
+            return false;
+        }
+        int read = this.source.read(this.buffer.array(), 0, this.buffer.capacity());
+        if (read <= 0) {
+            return false;
+        }
+        this.buffer.position(0).limit(read);
+        return true;
+    }
+
+    /**
+     * Returns the number of rows on the floor
+     *
+     * @return The number of rows
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Returns the number of columns on the floor
+     *
+     * @return The number of columns
+     */
+    public int getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * Returns the floor's tile characters, row by row - the tile at x,y is at x * columns + y
+     *
+     * @return The floor's tiles
+     */
+    public byte[] getGrid() {
+        return this.grid;
+    }
+}
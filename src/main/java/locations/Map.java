@@ -1,51 +1,160 @@
 package main.java.locations;
 
-import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
- * Populates and holds in an ArrayList all the Dungeon objects in the game world
+ * Holds all the Dungeon objects in the game world, in the order the campaign visits them.
+ * The world is either generated from a seed, or opened from a WorldStore it was saved in earlier.
+ * Which dungeons there are comes from the Campaign; each dungeon is only generated the first time it is asked for,
+ * so a long campaign costs nothing to start.
  * 
- * @version 1.0
+ * @version 1.4
  * @author tp275
  */
 public class Map {
 
-    // a list holding each dungeon object on the map, in visiting order, with ascending difficulty
-    private final ArrayList<Dungeon> dungeonList = new ArrayList<>();
+    // each dungeon on the map, in visiting order - a dungeon's ID is its index, and it is null until first asked for
+    private final AtomicReferenceArray<Dungeon> dungeonList;
+    // how many dungeons a game has, unless asked for more
+    public static final int DEFAULT_DUNGEONS = 4;
+    // the most dungeons a map may have - WorldOverlay keeps a dungeon's ID in 15 bits of each tile's key
+    public static final int MAX_DUNGEONS = 1 << 15;
+    // how many difficulty levels there are floor plans for - the dungeons are spread evenly across them
+    public static final int DIFFICULTY_LEVELS = 4;
     // the limit on the amount of dungeons in the map
-    private final int howManyDungeons = 4;
+    private final int howManyDungeons;
+    // hands out the random streams every dungeon is built from
+    private final RandomSource randomSource;
+    // the dungeons' difficulties, floor counts, intros and pictures
+    private final Campaign campaign;
+    // the store the dungeons are read from, or null if they are generated
+    private final WorldStore store;
 
     /**
-     * Populates the list of dungeons
+     * Sets up the campaign from a randomly chosen seed
      */
     public Map() {
-        populateDungeonList();
+        this(new RandomSource(RandomSource.randomSeed()));
     }
 
     /**
-     * Adds howManyDungeons number of new dungeons to dungeonList
+     * Sets up the campaign in campaign.txt, using the given RandomSource for every random choice
+     * 
+     * @param randomSource The source of the game's randomness
+     */
+    public Map(RandomSource randomSource) {
+        this(randomSource, Campaign.get());
+    }
+
+    /**
+     * Sets up the given number of dungeons, eg. for a long campaign, using the given RandomSource
+     * for every random choice. The dungeons in campaign.txt are stretched to fill them, in order.
+     * 
+     * @param randomSource The source of the game's randomness
+     * @param dungeonCount How many dungeons there are
+     */
+    public Map(RandomSource randomSource, int dungeonCount) {
+        this(randomSource, Campaign.get().stretch(checkDungeonCount(dungeonCount)));
+    }
+
+    /**
+     * Sets up the given campaign, using the given RandomSource for every random choice
+     * 
+     * @param randomSource The source of the game's randomness
+     * @param campaign The dungeons to play through
+     */
+    public Map(RandomSource randomSource, Campaign campaign) {
+        this.randomSource = randomSource;
+        this.campaign = campaign;
+        this.store = null;
+        this.howManyDungeons = campaign.getDungeonCount();
+        this.dungeonList = new AtomicReferenceArray<>(this.howManyDungeons);
+    }
+
+    /**
+     * Opens the world saved in a WorldStore, with the intros and pictures of campaign.txt stretched to fit.
+     * Floors aren't read until they are first asked for.
+     * 
+     * @param store The store the world was saved in
+     */
+    public Map(WorldStore store) {
+        this(store, Campaign.get().stretch(store.getDungeonCount()));
+    }
+
+    /**
+     * Opens the world saved in a WorldStore, with the intros and pictures of the given campaign.
+     * Floors aren't read until they are first asked for.
+     * 
+     * @param store The store the world was saved in
+     * @param campaign The campaign the world was generated from
      */
-    private void populateDungeonList() {
-        for (int i = 0; i < this.howManyDungeons; i++) {
-            this.dungeonList.add(new Dungeon(i, i));
+    public Map(WorldStore store, Campaign campaign) {
+        if (store.getDungeonCount() != campaign.getDungeonCount()) {
+            throw new IllegalArgumentException("the saved world has " + store.getDungeonCount()
+                    + " dungeons but the campaign has " + campaign.getDungeonCount());
         }
-        // Set final dungeon in list to be the last dungeon
-        this.dungeonList.get(howManyDungeons-1).setLastDungeon();
+        this.randomSource = new RandomSource(store.getSeed());
+        this.campaign = campaign;
+        this.store = store;
+        this.howManyDungeons = store.getDungeonCount();
+        this.dungeonList = new AtomicReferenceArray<>(this.howManyDungeons);
     }
 
     /**
-     * Returns the Dungeon from the dungeonList that matches the given ID
+     * Checks a map is asked for with at least one dungeon, and no more than MAX_DUNGEONS
+     * 
+     * @param dungeonCount How many dungeons the map should have
+     * @return The dungeon count
+     */
+    private static int checkDungeonCount(int dungeonCount) {
+        if (dungeonCount < 1) {
+            throw new IllegalArgumentException("a map needs at least one dungeon, not " + dungeonCount);
+        }
+        if (dungeonCount > MAX_DUNGEONS) {
+            throw new IllegalArgumentException("a map can have at most " + MAX_DUNGEONS + " dungeons, not " + dungeonCount);
+        }
+        return dungeonCount;
+    }
+
+    /**
+     * Returns the Dungeon that matches the given ID, generating or opening it if this is the first time it is asked for.
+     * Dungeons are numbered by their place in the list, so this is one index, however many dungeons there are.
+     * Maps may be shared between games on different threads; if two ask for a new dungeon at once, both get the same one.
      * 
      * @param id - The unique ID number of the dungeon that is wanted
-     * @return Dungeon from dungeonList with given ID, else null
+     * @return Dungeon with given ID, else null
      */
     public Dungeon getDungeonByID(int id) {
-        for (Dungeon d : dungeonList) {
-            if (d.getID() == id) {
-                return d;
+        if (id < 0 || id >= this.howManyDungeons) {
+            return null;
+        }
+        Dungeon dungeon = this.dungeonList.get(id);
+        if (dungeon == null) {
+            Dungeon made = createDungeon(id);
+            dungeon = this.dungeonList.compareAndExchange(id, null, made);
+            if (dungeon == null) {
+                dungeon = made;
             }
         }
-        return null;
+        return dungeon;
+    }
+
+    /**
+     * Generates, or opens from the store, the dungeon with the given ID
+     * 
+     * @param id - The dungeon's ID
+     * @return The new Dungeon
+     */
+    private Dungeon createDungeon(int id) {
+        if (this.store != null) {
+            return new Dungeon(this.store, this.campaign, id, this.randomSource.forDungeon(id));
+        }
+        Dungeon dungeon = new Dungeon(this.campaign, id, this.randomSource.forDungeon(id));
+        // the final dungeon in the campaign is the last dungeon
+        if (id == this.howManyDungeons - 1) {
+            dungeon.setLastDungeon();
+        }
+        return dungeon;
     }
 
     /**
@@ -56,4 +165,13 @@ public class Map {
     public int getHowManyDungeons() {
         return this.howManyDungeons;
     }
+
+    /**
+     * Returns the seed the world was generated from
+     * 
+     * @return The game seed
+     */
+    public long getSeed() {
+        return this.randomSource.getSeed();
+    }
 }
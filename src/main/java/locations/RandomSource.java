@@ -0,0 +1,103 @@
+package main.java.locations;
+
+import java.util.SplittableRandom;
+
+/**
+ * The single source of randomness for a game. Every random choice the game makes is drawn from
+ * a SplittableRandom stream handed out here, each derived only from the game seed and the ID of
+ * whatever asked for it, so a whole game can be reproduced from its seed alone.
+ *
+ * @version 1.1
+ * @author tp275
+ */
+public class RandomSource {
+
+    // keeps dungeon and entity streams apart, even when their IDs are the same
+    private static final long DUNGEON_DOMAIN = 0x44554e47454f4eL;
+    private static final long ENTITY_DOMAIN = 0x454e54495459L;
+    private static final long CHUNK_DOMAIN = 0x4348554e4bL;
+
+    // the seed every stream is derived from
+    private final long seed;
+
+    /**
+     * Creates a RandomSource that will hand out streams derived from the given seed
+     *
+     * @param seed The game seed
+     */
+    public RandomSource(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns a seed picked at random, for when the player hasn't asked for a particular one
+     *
+     * @return A random seed
+     */
+    public static long randomSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    /**
+     * Returns the seed every stream is derived from
+     *
+     * @return The game seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns a new stream for the dungeon with the given ID. The dungeon should split() it for each of its floors.
+     *
+     * @param dungeonID The unique ID of the dungeon
+     * @return A stream that is the same every time for this seed and dungeon ID
+     */
+    public SplittableRandom forDungeon(int dungeonID) {
+        return stream(DUNGEON_DOMAIN, dungeonID);
+    }
+
+    /**
+     * Returns a new stream for an entity that lives outside of any floor, eg. the player
+     *
+     * @param entityID An ID unique to the entity within this game
+     * @return A stream that is the same every time for this seed and entity ID
+     */
+    public SplittableRandom forEntity(long entityID) {
+        return stream(ENTITY_DOMAIN, entityID);
+    }
+
+    /**
+     * Returns a new stream for one chunk of an endless floor
+     *
+     * @param depth How far down the endless descent the floor is
+     * @param chunkKey The chunk's coordinates, as packed by ChunkedFloor.chunkKey
+     * @return A stream that is the same every time for this seed, depth and chunk
+     */
+    public SplittableRandom forChunk(int depth, long chunkKey) {
+        return new SplittableRandom(mix(mix(mix(this.seed ^ CHUNK_DOMAIN) + depth) + chunkKey));
+    }
+
+    /**
+     * Derives a stream from the seed, a domain and an ID, so that streams don't depend on the order they are asked for in
+     *
+     * @param domain The kind of thing asking for the stream
+     * @param id The ID of the thing asking for the stream
+     * @return A new stream
+     */
+    private SplittableRandom stream(long domain, long id) {
+        return new SplittableRandom(mix(mix(this.seed ^ domain) + id));
+    }
+
+    /**
+     * Scrambles the bits of a long (the Stafford variant 13 finaliser, also used by SplittableRandom)
+     *
+     * @param z The value to scramble
+     * @return The scrambled value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
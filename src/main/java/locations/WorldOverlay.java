@@ -0,0 +1,155 @@
+package main.java.locations;
+
+import java.util.Arrays;
+
+/**
+ * One player's changes to a shared, immutable world: the tiles they have cleared, such as enemies
+ * they have defeated. Each tile is packed into a long key of its dungeon, floor and location,
+ * and the keys are kept in a small open-addressing hash set, so the overlay costs memory in proportion
+ * to what the player has changed rather than to the size of the world - nothing at all until the first change.
+ *
+ * @version 1.1
+ * @author tp275
+ */
+public class WorldOverlay {
+
+    // marks an empty slot - no real key is negative
+    private static final long EMPTY = -1;
+    // the size of the table when the first key is added
+    private static final int INITIAL_CAPACITY = 8;
+
+    // the keys, with EMPTY in unused slots; null until the first key is added
+    private long[] keys;
+    // how many keys are held
+    private int size = 0;
+
+    /**
+     * Packs a tile's location in the world into a key. Every dungeon ID below Map.MAX_DUNGEONS, and every floor ID,
+     * row and column below 65536, gives a different key.
+     *
+     * @param dungeonID The ID of the tile's dungeon
+     * @param floorID The ID of the tile's floor
+     * @param x The tile's row on the floor
+     * @param y The tile's column on the floor
+     * @return The tile's key
+     */
+    public static long key(int dungeonID, int floorID, int x, int y) {
+        return ((long) (dungeonID & 0x7FFF) << 48) | ((long) (floorID & 0xFFFF) << 32)
+                | ((long) (x & 0xFFFF) << 16) | (y & 0xFFFF);
+    }
+
+    /**
+     * Returns whether the tile with the given key has been cleared
+     *
+     * @param key The tile's key
+     * @return True if the tile has been cleared
+     */
+    public boolean isCleared(long key) {
+        if (this.keys == null) {
+            return false;
+        }
+        return this.keys[find(key)] == key;
+    }
+
+    /**
+     * Records that the tile with the given key has been cleared
+     *
+     * @param key The tile's key
+     * @return True if it wasn't already cleared
+     */
+    public boolean clear(long key) {
+        if (this.keys == null) {
+            this.keys = newTable(INITIAL_CAPACITY);
+        }
+        int slot = find(key);
+        if (this.keys[slot] == key) {
+            return false;
+        }
+        this.keys[slot] = key;
+        this.size++;
+        if (this.size * 4 > this.keys.length * 3) { // keep the table at most 3/4 full
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Forgets that the tile with the given key was cleared, eg. when the turn that cleared it is rewound
+     *
+     * @param key The tile's key
+     * @return True if it had been cleared
+     */
+    public boolean restore(long key) {
+        if (this.keys == null) {
+            return false;
+        }
+        int slot = find(key);
+        if (this.keys[slot] != key) {
+            return false;
+        }
+        // shift later keys in the same run back, so none become unreachable from their home slot
+        int mask = this.keys.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; this.keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = home(this.keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                this.keys[gap] = this.keys[next];
+                gap = next;
+            }
+        }
+        this.keys[gap] = EMPTY;
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Returns the number of tiles cleared
+     *
+     * @return The number of tiles cleared
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the slot holding the given key, or the empty slot it would go in
+     */
+    private int find(long key) {
+        int mask = this.keys.length - 1;
+        int slot = home(key);
+        while (this.keys[slot] != EMPTY && this.keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the slot the given key would ideally go in
+     */
+    private int home(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (this.keys.length - 1);
+    }
+
+    /**
+     * Doubles the size of the table, re-adding every key
+     */
+    private void grow() {
+        long[] old = this.keys;
+        this.keys = newTable(old.length * 2);
+        for (long key : old) {
+            if (key != EMPTY) {
+                this.keys[find(key)] = key;
+            }
+        }
+    }
+
+    /**
+     * Returns an empty table of the given size
+     */
+    private static long[] newTable(int capacity) {
+        long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+}
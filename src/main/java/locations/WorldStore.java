@@ -0,0 +1,282 @@
+package main.java.locations;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * A generated world saved to disk, so a whole campaign can be kept between sessions and opened again
+ * without generating it or reading it all into the heap. The file is memory-mapped, and every floor's grid
+ * is a view of the mapping: the operating system pages floors in as they are played and out again under pressure.
+ * Open a saved world with new Map(WorldStore.open(file)); its floors are read the first time they are asked for.
+ *
+ * The file is laid out in fixed-size records, so any floor is found from its dungeon and floor IDs
+ * with two reads and no searching:
+ *
+ *   header          magic, version, seed, number of dungeons, number of floors        32 bytes
+ *   dungeon records difficulty, first floor record, number of floors, flags           16 bytes each, by dungeon ID
+ *   floor records   difficulty, rows, columns, unused, offset of grid                 24 bytes each, by dungeon then floor ID
+ *   grids           tile characters, row by row                                       rows x columns bytes each
+ *
+ * Only what was generated is saved - what the player has done, eg. which enemies are defeated, belongs to them.
+ *
+ * @version 1.2
+ * @author tp275
+ */
+public final class WorldStore {
+
+    // "DDCW" - marks the file as a saved world
+    private static final int MAGIC = 0x44444357;
+    // the version of the layout - bumped whenever it changes
+    private static final int VERSION = 1;
+    // the size of each part of the layout, in bytes
+    private static final int HEADER_SIZE = 32;
+    private static final int DUNGEON_RECORD_SIZE = 16;
+    private static final int FLOOR_RECORD_SIZE = 24;
+    // set in a dungeon record's flags if it is the last dungeon
+    private static final int LAST_DUNGEON = 1;
+
+    // the whole file
+    private final MappedByteBuffer file;
+    // the seed the world was generated from
+    private final long seed;
+    // how many dungeons and floors there are
+    private final int dungeonCount;
+    private final int floorCount;
+    // where the floor records start
+    private final int floorRecords;
+
+    /**
+     * Opens a mapped file, checking its header
+     *
+     * @param file The mapped file
+     * @throws IOException If the file isn't a saved world
+     */
+    private WorldStore(MappedByteBuffer file) throws IOException {
+        this.file = file;
+        if (file.capacity() < HEADER_SIZE || file.getInt(0) != MAGIC) {
+            throw new IOException("not a saved world");
+        }
+        if (file.getInt(4) != VERSION) {
+            throw new IOException("saved world is version " + file.getInt(4) + ", expected " + VERSION);
+        }
+        this.seed = file.getLong(8);
+        this.dungeonCount = file.getInt(16);
+        this.floorCount = file.getInt(20);
+        if (this.dungeonCount > Map.MAX_DUNGEONS) {
+            throw new IOException("saved world has " + this.dungeonCount + " dungeons, more than a map can have");
+        }
+        long floorRecords = HEADER_SIZE + (long) this.dungeonCount * DUNGEON_RECORD_SIZE;
+        if (this.dungeonCount < 1 || this.floorCount < 0
+                || floorRecords + (long) this.floorCount * FLOOR_RECORD_SIZE > file.capacity()) {
+            throw new IOException("saved world is truncated");
+        }
+        this.floorRecords = (int) floorRecords;
+        checkRecords();
+    }
+
+    /**
+     * Checks that every dungeon's floors are among the floor records, and that every floor's grid is within
+     * the file, so a damaged file is refused when it is opened rather than when one of its floors is played
+     *
+     * @throws IOException If a record points outside the file
+     */
+    private void checkRecords() throws IOException {
+        for (int d = 0; d < this.dungeonCount; d++) {
+            int at = HEADER_SIZE + d * DUNGEON_RECORD_SIZE;
+            int first = this.file.getInt(at + 4);
+            int floors = this.file.getInt(at + 8);
+            if (first < 0 || floors < 0 || (long) first + floors > this.floorCount) {
+                throw new IOException("saved world's dungeon " + d + " has floors " + first + " to " + ((long) first + floors)
+                        + ", but there are only " + this.floorCount);
+            }
+        }
+        for (int f = 0; f < this.floorCount; f++) {
+            int at = this.floorRecords + f * FLOOR_RECORD_SIZE;
+            int rows = this.file.getInt(at + 4);
+            int columns = this.file.getInt(at + 8);
+            long grid = this.file.getLong(at + 16);
+            long tiles = (long) rows * columns;
+            if (rows < 1 || columns < 1 || grid < 0 || grid + tiles > this.file.capacity()) {
+                throw new IOException("saved world's floor record " + f + " has a " + rows + " x " + columns
+                        + " grid at " + grid + ", outside the file");
+            }
+        }
+    }
+
+    /**
+     * Opens a saved world by memory-mapping its file. Only the header and records are read, not the grids.
+     *
+     * @param path The file the world was saved in
+     * @return The saved world
+     * @throws IOException If the file can't be mapped, or isn't a saved world
+     */
+    public static WorldStore open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too big to be a saved world");
+            }
+            return new WorldStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Saves a generated world, replacing the file if there is one. Every floor is generated if it hasn't been already.
+     *
+     * @param path The file to save the world in
+     * @param world The world
+     * @throws IOException If the file can't be written
+     */
+    public static void write(Path path, Map world) throws IOException {
+        int dungeonCount = world.getHowManyDungeons();
+        int floorCount = 0;
+        long gridBytes = 0;
+        for (int d = 0; d < dungeonCount; d++) {
+            Dungeon dungeon = world.getDungeonByID(d);
+            floorCount += dungeon.getFloorCount();
+            for (int f = 0; f < dungeon.getFloorCount(); f++) {
+                Floor floor = dungeon.getFloorByID(f);
+                gridBytes += (long) floor.getRows() * floor.getColumns();
+            }
+        }
+        long size = HEADER_SIZE + (long) dungeonCount * DUNGEON_RECORD_SIZE + (long) floorCount * FLOOR_RECORD_SIZE + gridBytes;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("the world is too big to save: " + size + " bytes");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, world.getSeed()).putInt(16, dungeonCount).putInt(20, floorCount);
+
+            int floorRecords = HEADER_SIZE + dungeonCount * DUNGEON_RECORD_SIZE;
+            int record = 0;
+            int grid = floorRecords + floorCount * FLOOR_RECORD_SIZE;
+            for (int d = 0; d < dungeonCount; d++) {
+                Dungeon dungeon = world.getDungeonByID(d);
+                int at = HEADER_SIZE + d * DUNGEON_RECORD_SIZE;
+                out.putInt(at, dungeon.getDifficulty()).putInt(at + 4, record).putInt(at + 8, dungeon.getFloorCount())
+                        .putInt(at + 12, dungeon.isLastDungeon() ? LAST_DUNGEON : 0);
+                for (int f = 0; f < dungeon.getFloorCount(); f++, record++) {
+                    Floor floor = dungeon.getFloorByID(f);
+                    int tiles = floor.getRows() * floor.getColumns();
+                    at = floorRecords + record * FLOOR_RECORD_SIZE;
+                    out.putInt(at, floor.getDifficulty()).putInt(at + 4, floor.getRows()).putInt(at + 8, floor.getColumns())
+                            .putInt(at + 12, 0).putLong(at + 16, grid);
+                    out.put(grid, floor.getGrid(), 0, tiles);
+                    grid += tiles;
+                }
+            }
+            out.force();
+        }
+    }
+
+    /**
+     * Returns the seed the world was generated from
+     *
+     * @return The game seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns the number of dungeons in the world
+     *
+     * @return The number of dungeons
+     */
+    public int getDungeonCount() {
+        return this.dungeonCount;
+    }
+
+    /**
+     * Returns the difficulty of a dungeon
+     *
+     * @param dungeonID The dungeon's ID
+     * @return The dungeon's difficulty
+     */
+    int getDifficulty(int dungeonID) {
+        return this.file.getInt(dungeonRecord(dungeonID));
+    }
+
+    /**
+     * Returns the number of floors in a dungeon
+     *
+     * @param dungeonID The dungeon's ID
+     * @return The dungeon's number of floors
+     */
+    int getFloorCount(int dungeonID) {
+        return this.file.getInt(dungeonRecord(dungeonID) + 8);
+    }
+
+    /**
+     * Returns whether a dungeon is the last one in the game
+     *
+     * @param dungeonID The dungeon's ID
+     * @return True if it is the last dungeon
+     */
+    boolean isLastDungeon(int dungeonID) {
+        return (this.file.getInt(dungeonRecord(dungeonID) + 12) & LAST_DUNGEON) != 0;
+    }
+
+    /**
+     * Returns a floor's grid, as a view of the mapped file
+     *
+     * @param dungeonID The ID of the floor's dungeon
+     * @param floorID The floor's ID within its dungeon
+     * @return The floor's tile characters, row by row, from position 0
+     */
+    ByteBuffer getGrid(int dungeonID, int floorID) {
+        int record = floorRecord(dungeonID, floorID);
+        int tiles = this.file.getInt(record + 4) * this.file.getInt(record + 8);
+        return this.file.slice((int) this.file.getLong(record + 16), tiles).asReadOnlyBuffer();
+    }
+
+    /**
+     * Opens a floor over its grid in the mapped file
+     *
+     * @param dungeonID The ID of the floor's dungeon
+     * @param floorID The floor's ID within its dungeon
+     * @param random The floor's random stream, the same one it was generated with
+     * @return The floor
+     */
+    Floor openFloor(int dungeonID, int floorID, SplittableRandom random) {
+        int record = floorRecord(dungeonID, floorID);
+        return new Floor(this.file.getInt(record), floorID, random, getGrid(dungeonID, floorID),
+                this.file.getInt(record + 4), this.file.getInt(record + 8));
+    }
+
+    /**
+     * Returns where a dungeon's record is in the file
+     *
+     * @param dungeonID The dungeon's ID
+     * @return The position of the dungeon's record
+     * @throws IndexOutOfBoundsException If there is no such dungeon
+     */
+    private int dungeonRecord(int dungeonID) {
+        if (dungeonID < 0 || dungeonID >= this.dungeonCount) {
+            throw new IndexOutOfBoundsException("no dungeon " + dungeonID + " in a world of " + this.dungeonCount);
+        }
+        return HEADER_SIZE + dungeonID * DUNGEON_RECORD_SIZE;
+    }
+
+    /**
+     * Returns where a floor's record is in the file
+     *
+     * @param dungeonID The ID of the floor's dungeon
+     * @param floorID The floor's ID within its dungeon
+     * @return The position of the floor's record
+     * @throws IndexOutOfBoundsException If there is no such floor
+     */
+    private int floorRecord(int dungeonID, int floorID) {
+        int dungeon = dungeonRecord(dungeonID);
+        if (floorID < 0 || floorID >= this.file.getInt(dungeon + 8)) {
+            throw new IndexOutOfBoundsException("no floor " + floorID + " in dungeon " + dungeonID);
+        }
+        return this.floorRecords + (this.file.getInt(dungeon + 4) + floorID) * FLOOR_RECORD_SIZE;
+    }
+}
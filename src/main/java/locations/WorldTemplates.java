@@ -0,0 +1,78 @@
+package main.java.locations;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares one generated world between every game played on the same seed, eg. the thousands of players
+ * of a tournament or daily challenge. A world is immutable once generated - each player keeps what they
+ * have changed in their own WorldOverlay - so any number of games and threads can read it at once.
+ * Worlds are only weakly held here: one is forgotten once no game is playing it.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public final class WorldTemplates {
+
+    // the world generated from each seed, while something still plays it
+    private static final ConcurrentHashMap<Long, WorldReference> WORLDS = new ConcurrentHashMap<>();
+    // told when a world has been collected, so its entry can be removed
+    private static final ReferenceQueue<Map> COLLECTED = new ReferenceQueue<>();
+
+    /**
+     * A weak reference to a world that remembers the seed it is filed under
+     */
+    private static final class WorldReference extends WeakReference<Map> {
+        final long seed;
+
+        WorldReference(long seed, Map world) {
+            super(world, COLLECTED);
+            this.seed = seed;
+        }
+    }
+
+    private WorldTemplates() {
+    }
+
+    /**
+     * Returns the world generated from the given seed, generating it if no game is already playing it.
+     * Two threads asking for the same new seed at once get the same world, generated once.
+     *
+     * @param seed The seed to generate the world from
+     * @return The world generated from the seed
+     */
+    public static Map get(long seed) {
+        removeCollected();
+        Map[] world = new Map[1];
+        WORLDS.compute(seed, (key, reference) -> {
+            world[0] = (reference == null) ? null : reference.get();
+            if (world[0] == null) {
+                world[0] = new Map(new RandomSource(seed));
+                return new WorldReference(seed, world[0]);
+            }
+            return reference;
+        });
+        return world[0];
+    }
+
+    /**
+     * Returns the number of worlds currently held
+     *
+     * @return The number of worlds currently held
+     */
+    public static int size() {
+        removeCollected();
+        return WORLDS.size();
+    }
+
+    /**
+     * Removes the entries of worlds that no game is playing any more
+     */
+    private static void removeCollected() {
+        WorldReference collected;
+        while ((collected = (WorldReference) COLLECTED.poll()) != null) {
+            WORLDS.remove(collected.seed, collected);
+        }
+    }
+}
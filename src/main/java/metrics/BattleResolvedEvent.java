@@ -0,0 +1,50 @@
+package main.java.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event timing one battle, from encounter to victory or death
+ *
+ * @version 1.1
+ * @author tp275
+ */
+@Name("djeneric.Battle")
+@Label("Battle")
+@Category({ "Djeneric", "Turn" })
+@Description("A battle fought to the end in Battle.fight")
+@StackTrace(false)
+public class BattleResolvedEvent extends Event {
+
+    // never begun or committed - only asked whether these events are enabled. Asking an EventType instead would
+    // start up the flight recorder on first use, which takes hundreds of milliseconds even when nothing is recording
+    private static final BattleResolvedEvent PROBE = new BattleResolvedEvent();
+
+    @Label("Dungeon")
+    public int dungeon;
+
+    @Label("Floor")
+    public int floor;
+
+    @Label("Enemy Archetype")
+    public String archetype;
+
+    @Label("Enemy Level")
+    public int enemyLevel;
+
+    @Label("Player Won")
+    public boolean playerWon;
+
+    /**
+     * Returns whether a running flight recording wants these events, so one need only be created if it does
+     *
+     * @return True if these events are enabled in a running recording
+     */
+    public static boolean isRecording() {
+        return PROBE.isEnabled();
+    }
+}
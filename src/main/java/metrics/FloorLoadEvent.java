@@ -0,0 +1,46 @@
+package main.java.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event timing the reading and parsing of one floor plan in Floor.createFloorPlan
+ *
+ * @version 1.1
+ * @author tp275
+ */
+@Name("djeneric.FloorLoad")
+@Label("Floor Load")
+@Category({ "Djeneric", "World" })
+@Description("Reading a floor plan and building its tiles")
+@StackTrace(false)
+public class FloorLoadEvent extends Event {
+
+    // never begun or committed - only asked whether these events are enabled, as BattleResolvedEvent explains
+    private static final FloorLoadEvent PROBE = new FloorLoadEvent();
+
+    @Label("Dungeon Difficulty")
+    public int difficulty;
+
+    @Label("Floor")
+    public int floor;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Columns")
+    public int columns;
+
+    /**
+     * Returns whether a running flight recording wants these events, so one need only be created if it does
+     *
+     * @return True if these events are enabled in a running recording
+     */
+    public static boolean isRecording() {
+        return PROBE.isEnabled();
+    }
+}
@@ -0,0 +1,134 @@
+package main.java.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values, eg. latencies in nanoseconds, in the style of HdrHistogram.
+ * Values below 32 get a bucket each; above that, every power of two is split into 16 buckets, so any
+ * recorded value is reported to within about 6%. Recording never allocates or blocks, and many
+ * threads may record at once.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public final class LatencyHistogram {
+
+    // values below this are counted exactly
+    private static final int EXACT = 32;
+    // the number of buckets each power of two above EXACT is split into
+    private static final int SUB_BUCKETS = 16;
+    // enough buckets for every positive long
+    private static final int BUCKETS = EXACT + (63 - 5) * SUB_BUCKETS;
+
+    // how many values fell into each bucket
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    // how many values were recorded, and their sum
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    // the biggest value recorded
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value. Negative values are counted as 0.
+     *
+     * @param value The value to record
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        this.counts.incrementAndGet(bucketOf(v));
+        this.count.increment();
+        this.sum.add(v);
+        long previous = this.max.get();
+        while (v > previous && !this.max.compareAndSet(previous, v)) {
+            previous = this.max.get();
+        }
+    }
+
+    /**
+     * Returns how many values have been recorded
+     *
+     * @return The number of values recorded
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * Returns the largest value recorded, exactly
+     *
+     * @return The largest value recorded, or 0 if none
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Returns the mean of the recorded values
+     *
+     * @return The mean, or 0 if none were recorded
+     */
+    public double getMean() {
+        long n = this.count.sum();
+        return (n == 0) ? 0 : (double) this.sum.sum() / n;
+    }
+
+    /**
+     * Returns the value that the given percentage of recorded values are at or below, to within a bucket
+     *
+     * @param percentile The percentile to find, from 0 to 100
+     * @return The value at that percentile, or 0 if none were recorded
+     */
+    public long getPercentile(double percentile) {
+        long n = this.count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long wanted = Math.max(1, (long) Math.ceil(n * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts.get(i);
+            if (seen >= wanted) {
+                return Math.min(highestValueIn(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Forgets every recorded value. Values recorded while resetting may or may not be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.count.reset();
+        this.sum.reset();
+        this.max.set(0);
+    }
+
+    /**
+     * Returns the bucket a value falls into
+     */
+    private static int bucketOf(long v) {
+        if (v < EXACT) {
+            return (int) v;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(v); // at least 5
+        int sub = (int) (v >>> (magnitude - 4)) - SUB_BUCKETS; // the 4 bits after the leading one
+        return EXACT + (magnitude - 5) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the highest value that falls into the given bucket
+     */
+    private static long highestValueIn(int bucket) {
+        if (bucket < EXACT) {
+            return bucket;
+        }
+        int magnitude = (bucket - EXACT) / SUB_BUCKETS + 5;
+        long sub = (bucket - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << (magnitude - 4)) - 1;
+    }
+}
@@ -0,0 +1,186 @@
+package main.java.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The registry of the game's runtime metrics: lock-free counters and latency histograms, readable
+ * over JMX and from the GUI's debug overlay. Metrics are off unless the game is started with -Dddc.metrics=true.
+ * Every place that records a metric checks ENABLED first; as it is a static final, the JIT removes
+ * those checks and everything inside them when metrics are off, so they cost nothing.
+ *
+ * @version 1.2
+ * @author tp275
+ */
+public final class Metrics {
+
+    // whether metrics are being recorded - fixed at startup
+    public static final boolean ENABLED = Boolean.getBoolean("ddc.metrics");
+
+    // how long each turn takes, from button press to the GUI being updated, in nanoseconds
+    public static final LatencyHistogram TURN_LATENCY = new LatencyHistogram();
+    // how many bytes each turn allocates on the GUI thread
+    public static final LatencyHistogram TURN_ALLOCATION = new LatencyHistogram();
+    // how long each write to the log file takes, in nanoseconds - the log is written synchronously
+    public static final LatencyHistogram LOG_WRITE_LATENCY = new LatencyHistogram();
+    // how many battles have been fought to the end
+    public static final LongAdder BATTLES_RESOLVED = new LongAdder();
+    // how many floors have been built
+    public static final LongAdder FLOORS_GENERATED = new LongAdder();
+    // how many times a dungeon picture was / wasn't already loaded when needed
+    public static final LongAdder IMAGE_CACHE_HITS = new LongAdder();
+    public static final LongAdder IMAGE_CACHE_MISSES = new LongAdder();
+    // how many times a HUD stat label was given new text - each one makes JavaFX lay the HUD out again
+    public static final LongAdder HUD_LABEL_UPDATES = new LongAdder();
+
+    // the name the metrics are published under over JMX
+    private static final String MBEAN_NAME = "djeneric:type=Metrics";
+    // per-thread allocation counting, if this JVM supports it and metrics are on - looking it up starts
+    // the JVM's management classes, which a game started without metrics shouldn't wait for
+    private static final com.sun.management.ThreadMXBean THREADS = ENABLED ? allocationCounter() : null;
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the number of bytes the current thread has allocated so far, or 0 if the JVM can't say or metrics are off
+     *
+     * @return The number of bytes the current thread has allocated
+     */
+    public static long currentThreadAllocatedBytes() {
+        return (THREADS == null) ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Publishes the metrics over JMX, if they are enabled and haven't been already
+     */
+    public static synchronized void registerMBean() {
+        if (!ENABLED) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new Bean(), name);
+            }
+        } catch (JMException e) {
+            // the game should still run if JMX isn't working
+            System.out.println("Could not publish metrics over JMX");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns a short, multi-line summary of the metrics, for the debug overlay
+     *
+     * @return A summary of the metrics
+     */
+    public static String summary() {
+        return "turns " + TURN_LATENCY.getCount()
+                + "  p50 " + micros(TURN_LATENCY.getPercentile(50))
+                + "  p99 " + micros(TURN_LATENCY.getPercentile(99))
+                + "  max " + micros(TURN_LATENCY.getMax()) + "us"
+                + "\nalloc/turn p50 " + TURN_ALLOCATION.getPercentile(50) + "B  p99 " + TURN_ALLOCATION.getPercentile(99) + "B"
+                + "\nbattles " + BATTLES_RESOLVED.sum() + "  floors " + FLOORS_GENERATED.sum()
+                + "\nlog writes " + LOG_WRITE_LATENCY.getCount() + "  p99 " + micros(LOG_WRITE_LATENCY.getPercentile(99)) + "us"
+                + "\nimage cache " + IMAGE_CACHE_HITS.sum() + " hits / " + IMAGE_CACHE_MISSES.sum() + " misses"
+                + "\nHUD label updates " + HUD_LABEL_UPDATES.sum();
+    }
+
+    /**
+     * Converts nanoseconds to whole microseconds
+     */
+    private static long micros(long nanos) {
+        return nanos / 1000;
+    }
+
+    /**
+     * Returns the JVM's per-thread allocation counter, switched on, or null if there isn't one
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+            if (counter.isThreadAllocatedMemorySupported()) {
+                counter.setThreadAllocatedMemoryEnabled(true);
+                return counter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The JMX view of the registry
+     */
+    private static final class Bean implements MetricsMXBean {
+
+        public long getTurns() {
+            return TURN_LATENCY.getCount();
+        }
+
+        public long getTurnLatencyP50Micros() {
+            return micros(TURN_LATENCY.getPercentile(50));
+        }
+
+        public long getTurnLatencyP99Micros() {
+            return micros(TURN_LATENCY.getPercentile(99));
+        }
+
+        public long getTurnLatencyMaxMicros() {
+            return micros(TURN_LATENCY.getMax());
+        }
+
+        public long getTurnAllocationP50Bytes() {
+            return TURN_ALLOCATION.getPercentile(50);
+        }
+
+        public long getTurnAllocationP99Bytes() {
+            return TURN_ALLOCATION.getPercentile(99);
+        }
+
+        public long getBattlesResolved() {
+            return BATTLES_RESOLVED.sum();
+        }
+
+        public long getFloorsGenerated() {
+            return FLOORS_GENERATED.sum();
+        }
+
+        public long getLogWrites() {
+            return LOG_WRITE_LATENCY.getCount();
+        }
+
+        public long getLogWriteP99Micros() {
+            return micros(LOG_WRITE_LATENCY.getPercentile(99));
+        }
+
+        public long getImageCacheHits() {
+            return IMAGE_CACHE_HITS.sum();
+        }
+
+        public long getImageCacheMisses() {
+            return IMAGE_CACHE_MISSES.sum();
+        }
+
+        public long getHudLabelUpdates() {
+            return HUD_LABEL_UPDATES.sum();
+        }
+
+        public void reset() {
+            TURN_LATENCY.reset();
+            TURN_ALLOCATION.reset();
+            LOG_WRITE_LATENCY.reset();
+            BATTLES_RESOLVED.reset();
+            FLOORS_GENERATED.reset();
+            IMAGE_CACHE_HITS.reset();
+            IMAGE_CACHE_MISSES.reset();
+            HUD_LABEL_UPDATES.reset();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package main.java.metrics;
+
+/**
+ * The game's metrics as seen over JMX, under the name djeneric:type=Metrics.
+ * Times are in microseconds, allocation in bytes.
+ *
+ * @version 1.1
+ * @author tp275
+ */
+public interface MetricsMXBean {
+
+    long getTurns();
+
+    long getTurnLatencyP50Micros();
+
+    long getTurnLatencyP99Micros();
+
+    long getTurnLatencyMaxMicros();
+
+    long getTurnAllocationP50Bytes();
+
+    long getTurnAllocationP99Bytes();
+
+    long getBattlesResolved();
+
+    long getFloorsGenerated();
+
+    long getLogWrites();
+
+    long getLogWriteP99Micros();
+
+    long getImageCacheHits();
+
+    long getImageCacheMisses();
+
+    long getHudLabelUpdates();
+
+    /**
+     * Forgets everything recorded so far
+     */
+    void reset();
+}
@@ -0,0 +1,77 @@
+package main.java.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times the phases of starting the game, from the JVM starting to the game being playable, so time-to-interactive
+ * can be tracked. Each phase is marked as it is reached; once the game is interactive the phases are written,
+ * as milliseconds since the JVM started, to the game log, and to standard out if started with -Dddc.startup=true.
+ * Marking a phase is a timestamp and nothing else - the JVM's start time is only looked up for the report.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public final class StartupPhases {
+
+    // whether the phases are printed to standard out - fixed at startup
+    public static final boolean REPORT = Boolean.getBoolean("ddc.startup");
+    // whether the game quits as soon as it is interactive, for a training run that only needs it to start
+    public static final boolean EXIT_WHEN_INTERACTIVE = Boolean.getBoolean("ddc.startup.exit");
+
+    // the name and System.nanoTime of each phase reached, in order
+    private static final List<String> names = new ArrayList<>();
+    private static final List<Long> times = new ArrayList<>();
+    // whether the game has become interactive yet
+    private static boolean interactive = false;
+
+    private StartupPhases() {
+    }
+
+    /**
+     * Records that a phase of startup has been reached
+     *
+     * @param phase The phase's name, eg. "window shown"
+     */
+    public static synchronized void mark(String phase) {
+        names.add(phase);
+        times.add(System.nanoTime());
+    }
+
+    /**
+     * Records that the game has become interactive, the last phase of startup, and prints the phases if asked to.
+     * Only the first time, as a game that restarts becomes interactive again.
+     *
+     * @return The phases, as from summary(), or null if the game was already interactive
+     */
+    public static synchronized String interactive() {
+        if (interactive) {
+            return null;
+        }
+        mark("interactive");
+        interactive = true;
+        String summary = summary();
+        if (REPORT) {
+            System.out.println(summary);
+        }
+        return summary;
+    }
+
+    /**
+     * Returns every phase reached so far, as milliseconds since the JVM started,
+     * eg. "Startup: main 180 ms, fxml loaded 420 ms, window shown 510 ms, interactive 560 ms"
+     *
+     * @return A one-line summary of the phases
+     */
+    public static synchronized String summary() {
+        // when the JVM started, on the System.nanoTime clock - the JVM only knows it to the millisecond
+        long jvmStart = System.nanoTime() - ManagementFactory.getRuntimeMXBean().getUptime() * 1_000_000;
+        StringBuilder summary = new StringBuilder("Startup:");
+        for (int i = 0; i < names.size(); i++) {
+            summary.append((i == 0) ? " " : ", ").append(names.get(i)).append(' ')
+                    .append((times.get(i) - jvmStart) / 1_000_000).append(" ms");
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package main.java.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event timing one phase of a turn in the GUI, eg. playing the tile or updating the map.
+ * Until a recording asks for these events, start returns null rather than creating one, so timing a turn costs nothing.
+ *
+ * @version 1.1
+ * @author tp275
+ */
+@Name("djeneric.TurnPhase")
+@Label("Turn Phase")
+@Category({ "Djeneric", "Turn" })
+@Description("One phase of a turn, as played by the GUI")
+@StackTrace(false)
+public class TurnPhaseEvent extends Event {
+
+    // never begun or committed - only asked whether these events are enabled, as BattleResolvedEvent explains
+    private static final TurnPhaseEvent PROBE = new TurnPhaseEvent();
+
+    // the phases of a turn, in the order Controller.play runs them
+    public static final String UPDATE_LOCATION = "updateLocation";
+    public static final String PLAY_TILE = "playTile";
+    public static final String UPDATE_MAP = "updateMap";
+    public static final String UPDATE_STATS = "updateStats";
+    public static final String UPDATE_PICTURE = "updatePicture";
+    public static final String CHECK_FINISHED = "checkFinished";
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Dungeon")
+    public int dungeon;
+
+    @Label("Floor")
+    public int floor;
+
+    @Label("Tile Type")
+    @Description("The kind of tile the player is standing on")
+    public String tileType;
+
+    /**
+     * Returns whether a running flight recording wants these events, so one need only be created if it does
+     *
+     * @return True if these events are enabled in a running recording
+     */
+    public static boolean isRecording() {
+        return PROBE.isEnabled();
+    }
+
+    /**
+     * Creates and starts timing an event for the given phase, if a recording wants it
+     *
+     * @param phase The phase being timed - one of the constants in this class
+     * @return The started event, or null if no recording wants it
+     */
+    public static TurnPhaseEvent start(String phase) {
+        if (!isRecording()) {
+            return null;
+        }
+        TurnPhaseEvent event = new TurnPhaseEvent();
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Fills in where the player was during this phase
+     *
+     * @param dungeon The ID of the dungeon the player is in
+     * @param floor The ID of the floor the player is on
+     * @param tileType The kind of tile the player is standing on
+     */
+    public void setLocation(int dungeon, int floor, String tileType) {
+        this.dungeon = dungeon;
+        this.floor = floor;
+        this.tileType = tileType;
+    }
+}
@@ -0,0 +1,211 @@
+package main.java.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import main.java.tile.character.Player;
+
+/**
+ * One client's connection to the NetworkServer, and the game it is playing. Owned by a single EventLoop,
+ * which is the only thread that touches it. Its buffers are direct and allocated once, so in the steady
+ * state commands are decoded from, and state written to, the same memory the socket reads and writes.
+ * When the player dies, the next game is built off the loop's thread, and the connection's commands wait for it.
+ *
+ * @version 1.2
+ * @author tp275
+ */
+final class Connection {
+
+    // enough room for a burst of pipelined commands
+    private static final int IN_SIZE = 512;
+    // enough room for a STATE reply to every command in a full input buffer
+    private static final int OUT_SIZE = (IN_SIZE / Protocol.COMMAND_FRAME) * Protocol.MAX_STATE_FRAME;
+
+    // the event loop serving this connection
+    private final EventLoop loop;
+    // the client's socket
+    private final SocketChannel channel;
+    // the socket's registration with the event loop's selector
+    private final SelectionKey key;
+    // bytes read but not yet decoded - kept in write mode between reads
+    private final ByteBuffer in = ByteBuffer.allocateDirect(IN_SIZE);
+    // bytes encoded but not yet written - kept in write mode between writes
+    private final ByteBuffer out = ByteBuffer.allocateDirect(OUT_SIZE);
+    // the player's state now, and as last sent to the client
+    private final int[] state = new int[Protocol.FIELDS];
+    private final int[] sent = new int[Protocol.FIELDS];
+    // the game this connection plays - it is left lost on the player's death, for the connection to restart
+    private final HeadlessGame game;
+    // true while the next game is being built - no more commands are played until it is
+    private boolean restarting = false;
+    // the flags of the reply to the command that lost the last game, sent with the next game's state
+    private int restartFlags;
+
+    /**
+     * Creates a connection, queueing its game's initial state to be sent
+     *
+     * @param loop The event loop serving the connection
+     * @param channel The client's socket
+     * @param key The socket's registration with the event loop's selector
+     * @param game The connection's game, which doesn't restart itself
+     */
+    Connection(EventLoop loop, SocketChannel channel, SelectionKey key, HeadlessGame game) {
+        this.loop = loop;
+        this.channel = channel;
+        this.key = key;
+        this.game = game;
+        writeState(0, true);
+    }
+
+    /**
+     * Reads whatever the client has sent, plays every complete command, and writes the replies
+     *
+     * @throws IOException If the socket fails, or the client sends something that isn't the protocol
+     * @return False if the client has closed the connection
+     */
+    boolean onReadable() throws IOException {
+        if (this.channel.read(this.in) < 0) {
+            return false;
+        }
+        decode();
+        flush();
+        return true;
+    }
+
+    /**
+     * Writes out replies that didn't fit in the socket's send buffer last time,
+     * then plays any commands that were waiting for room to reply to
+     *
+     * @throws IOException If the socket fails, or the client sends something that isn't the protocol
+     */
+    void onWritable() throws IOException {
+        flush();
+        decode();
+        flush();
+    }
+
+    /**
+     * Plays every complete command in the input buffer that there is room to reply to,
+     * stopping at one that loses the game until the next game has been built
+     *
+     * @throws IOException If the client sends something that isn't the protocol
+     */
+    private void decode() throws IOException {
+        this.in.flip();
+        while (!this.restarting && this.in.remaining() >= Protocol.HEADER
+                && this.out.remaining() >= Protocol.MAX_STATE_FRAME) {
+            int length = this.in.getShort(this.in.position()) & 0xFFFF;
+            if (length == 0 || length > IN_SIZE - Protocol.HEADER) {
+                throw new IOException("Bad frame length " + length);
+            }
+            if (this.in.remaining() < Protocol.HEADER + length) {
+                break; // wait for the rest of the frame
+            }
+            int frameEnd = this.in.position() + Protocol.HEADER + length;
+            this.in.position(this.in.position() + Protocol.HEADER);
+            int op = this.in.get();
+            if (op != Protocol.COMMAND || length != 2) {
+                throw new IOException("Bad message " + op + " of length " + length);
+            }
+            int command = this.in.get();
+            boolean accepted = HeadlessGame.isCommand(command) && this.game.play(command);
+            this.in.position(frameEnd);
+            if (this.game.isLost()) {
+                // the reply carries the next game's state, as it would if the game had restarted itself
+                this.restarting = true;
+                this.restartFlags = accepted ? Protocol.ACCEPTED : 0;
+                long seed = this.game.getNextSeed();
+                this.loop.build(() -> HeadlessGame.newPlayer(seed), this::onRestarted, e -> {
+                    System.out.println("Closing a connection after its next game failed to start");
+                    e.printStackTrace();
+                    close();
+                });
+            } else {
+                writeState(accepted ? Protocol.ACCEPTED : 0, false);
+            }
+        }
+        this.in.compact();
+    }
+
+    /**
+     * Starts the next game once it has been built, replies to the command that lost the last one,
+     * and carries on with the commands that were waiting. Runs on the event loop's thread.
+     *
+     * @param next The next game's player
+     */
+    private void onRestarted(Player next) {
+        if (!this.key.isValid()) {
+            return; // closed while the game was being built
+        }
+        this.game.restart(next);
+        this.restarting = false;
+        writeState(this.restartFlags, false);
+        try {
+            onWritable();
+        } catch (IOException e) {
+            close();
+        } catch (RuntimeException e) {
+            System.out.println("Closing a connection after its game failed");
+            e.printStackTrace();
+            close();
+        }
+    }
+
+    /**
+     * Encodes the player's state into the output buffer, as a delta against the last state sent
+     *
+     * @param flags Any STATE flags besides ALIVE and VICTORIOUS
+     * @param full Whether to send every field, changed or not
+     */
+    private void writeState(int flags, boolean full) {
+        Protocol.readState(this.game.getPlayer(), this.state);
+        if (this.game.getPlayer().isAlive()) {
+            flags |= Protocol.ALIVE;
+        }
+        if (this.game.getPlayer().isVictorious()) {
+            flags |= Protocol.VICTORIOUS;
+        }
+        Protocol.writeState(this.out, flags, this.state, this.sent, full);
+    }
+
+    /**
+     * Writes as much of the output buffer as the socket will take, and only asks the selector
+     * to say when the socket is writable while there is something left over.
+     * Reading is paused while there is no room to reply to another command, or nowhere to read into - a client
+     * that sends commands without reading the replies would otherwise keep the socket readable, and wake the loop
+     * straight away, for ever. It carries on once the replies have been written.
+     *
+     * @throws IOException If the socket fails
+     */
+    private void flush() throws IOException {
+        this.out.flip();
+        if (this.out.hasRemaining()) {
+            this.channel.write(this.out);
+        }
+        this.out.compact();
+        int ops = 0;
+        if (this.out.position() > 0) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        if (this.out.remaining() >= Protocol.MAX_STATE_FRAME && this.in.hasRemaining()) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (this.key.interestOps() != ops) {
+            this.key.interestOps(ops);
+        }
+    }
+
+    /**
+     * Closes the client's socket, ignoring any error doing so
+     */
+    void close() {
+        this.key.cancel();
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            // already as closed as it is going to get
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package main.java.server;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A thread that serves many Connections with one Selector. Every connection it is given stays with it
+ * for life, so each game is only ever played by this thread and needs no locking.
+ * Generating a game's world is slow, so games are built on other threads and handed back to the loop
+ * once they are ready - a new connection, or a player's death, never holds up every other connection on the loop.
+ *
+ * @version 1.2
+ * @author tp275
+ */
+final class EventLoop implements Runnable {
+
+    // tells this loop which sockets are ready
+    private final Selector selector;
+    // work handed to this loop's thread by others, eg. registering a socket whose game has been built
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // where games are built
+    private final Executor builders;
+    // handles each ready key - kept so selecting doesn't create a new Consumer each time
+    private final Consumer<SelectionKey> handler = this::handle;
+    // the thread running this loop
+    private final Thread thread;
+    // set to stop the loop
+    private volatile boolean closed = false;
+
+    /**
+     * Creates an event loop and starts its thread
+     *
+     * @param name The thread's name
+     * @param builders Where to build games, off the loop's thread
+     * @throws IOException If a selector can't be opened
+     */
+    EventLoop(String name, Executor builders) throws IOException {
+        this.builders = builders;
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Hands a newly accepted socket to this loop, once its game has been built. Can be called from any thread.
+     *
+     * @param channel The accepted socket
+     * @param seed The seed to generate the connection's game from
+     */
+    void add(SocketChannel channel, long seed) {
+        build(() -> new HeadlessGame(seed, false), game -> register(channel, game), e -> {
+            // only this connection is lost, not the loop and every other one on it
+            System.out.println("Could not start a game for a new connection");
+            e.printStackTrace();
+            closeQuietly(channel);
+        });
+    }
+
+    /**
+     * Does something slow, eg. generating a game, on the builder threads, then hands the result to this loop's thread.
+     * Can be called from any thread.
+     *
+     * @param <T> What is built
+     * @param work Builds it, on a builder thread
+     * @param done Given what was built, on this loop's thread
+     * @param failed Given what went wrong if it couldn't be built, on whichever thread found out
+     */
+    <T> void build(Supplier<T> work, Consumer<T> done, Consumer<RuntimeException> failed) {
+        try {
+            this.builders.execute(() -> {
+                T built;
+                try {
+                    built = work.get();
+                } catch (RuntimeException e) {
+                    failed.accept(e);
+                    return;
+                }
+                this.tasks.add(() -> done.accept(built));
+                this.selector.wakeup();
+            });
+        } catch (RejectedExecutionException e) {
+            failed.accept(e); // the server is closing
+        }
+    }
+
+    /**
+     * Waits for sockets to become ready and serves them, until closed
+     */
+    @Override
+    public void run() {
+        try {
+            while (!this.closed) {
+                runTasks();
+                this.selector.select(this.handler);
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (!this.closed) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Runs the work handed over since the last select
+     */
+    private void runTasks() {
+        Runnable task;
+        while ((task = this.tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // a bug in one connection's task - carry on serving the others
+                System.out.println("A network task failed");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Registers a socket whose game has been built, and sends the game's initial state
+     *
+     * @param channel The socket
+     * @param game Its game
+     */
+    private void register(SocketChannel channel, HeadlessGame game) {
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+            Connection connection = new Connection(this, channel, key, game);
+            key.attach(connection);
+            connection.onWritable(); // send the initial state
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof RuntimeException && !this.closed) {
+                System.out.println("Could not start a game for a new connection");
+                e.printStackTrace();
+            }
+            closeQuietly(channel);
+        }
+    }
+
+    /**
+     * Closes a socket that never became a connection, ignoring any error doing so
+     *
+     * @param channel The socket
+     */
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // nothing more to do with it
+        }
+    }
+
+    /**
+     * Serves one ready socket, closing it if it fails, its game fails, or the client has gone
+     *
+     * @param key The socket's key
+     */
+    private void handle(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isWritable()) {
+                connection.onWritable();
+            }
+            if (key.isValid() && key.isReadable() && !connection.onReadable()) {
+                connection.close();
+            }
+        } catch (IOException e) {
+            connection.close();
+        } catch (RuntimeException e) {
+            // a bug in playing this connection's game - close it, and carry on serving the others
+            System.out.println("Closing a connection after its game failed");
+            e.printStackTrace();
+            connection.close();
+        }
+    }
+
+    /**
+     * Stops the loop and closes every connection it holds
+     */
+    void close() {
+        this.closed = true;
+        this.selector.wakeup();
+        try {
+            this.thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : this.selector.keys()) {
+            if (key.attachment() != null) {
+                ((Connection) key.attachment()).close();
+            }
+        }
+        try {
+            this.selector.close();
+        } catch (IOException e) {
+            // nothing more to do with it
+        }
+        // sockets whose games were built too late to be registered now close, as the selector has
+        runTasks();
+    }
+}
@@ -0,0 +1,187 @@
+package main.java.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import main.java.tile.character.Player;
+
+/**
+ * One independent game, as hosted by a SessionManager. A session is an actor: commands from any
+ * thread go into its mailbox, and it plays them one at a time on whichever pool thread it has been
+ * scheduled onto, so the Player inside is only ever touched by one thread at once without any locking.
+ * If the player dies, the session starts a new game, as the GUI does, and it does the same if playing a
+ * command fails, so one bad game never stops the session or leaves its mailbox to fill up.
+ *
+ * @version 1.2
+ * @author tp275
+ */
+public final class GameSession {
+
+    // the commands a session understands - the moves, as the Player numbers them, and rewinding a turn
+    public static final int MOVE_UP = Player.MOVE_UP;
+    public static final int MOVE_DOWN = Player.MOVE_DOWN;
+    public static final int MOVE_LEFT = Player.MOVE_LEFT;
+    public static final int MOVE_RIGHT = Player.MOVE_RIGHT;
+    public static final int REWIND = HeadlessGame.REWIND;
+    // the most commands played in one go before letting other sessions have the thread
+    private static final int BATCH = 32;
+
+    // this session's ID within its SessionManager
+    private final int id;
+    // the thread pool the session is played on
+    private final Executor executor;
+    // commands waiting to be played
+    private final Queue<Message> mailbox = new ConcurrentLinkedQueue<>();
+    // true while the session is queued on, or running on, the executor
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    // plays everything in the mailbox - kept so scheduling doesn't create a new Runnable each time
+    private final Runnable drainTask = this::drain;
+
+    // the game - only touched while draining
+    private final HeadlessGame game;
+    // how many commands have been played
+    private long commandsPlayed = 0;
+
+    /**
+     * A command waiting in the mailbox
+     */
+    private static final class Message {
+        final int command;
+        final SessionListener listener;
+        final long sentAt;
+
+        Message(int command, SessionListener listener, long sentAt) {
+            this.command = command;
+            this.listener = listener;
+            this.sentAt = sentAt;
+        }
+    }
+
+    /**
+     * Creates a session and its first game
+     *
+     * @param id The session's ID within its SessionManager
+     * @param seed The seed to generate the first game from
+     * @param executor The thread pool to play the session on
+     */
+    GameSession(int id, long seed, Executor executor) {
+        this.id = id;
+        this.executor = executor;
+        this.game = new HeadlessGame(seed);
+    }
+
+    /**
+     * Queues a command to be played. Can be called from any thread.
+     *
+     * @param command The command - one of the constants in this class
+     * @param listener Told once the command has been played, or null
+     */
+    public void send(int command, SessionListener listener) {
+        if (!HeadlessGame.isCommand(command)) {
+            throw new IllegalArgumentException("Unknown session command: " + command);
+        }
+        this.mailbox.add(new Message(command, listener, System.nanoTime()));
+        schedule();
+    }
+
+    /**
+     * Puts the session on the executor, unless it is already there
+     */
+    private void schedule() {
+        if (this.scheduled.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(this.drainTask);
+            } catch (RejectedExecutionException e) {
+                // the manager has shut down - the command will never be played
+                this.scheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Plays up to a batch of commands from the mailbox, then reschedules if more are waiting
+     */
+    private void drain() {
+        try {
+            for (int i = 0; i < BATCH; i++) {
+                Message message = this.mailbox.poll();
+                if (message == null) {
+                    break;
+                }
+                play(message);
+            }
+        } finally {
+            this.scheduled.set(false);
+        }
+        // a command may have arrived after the last poll but before scheduled was cleared
+        if (!this.mailbox.isEmpty()) {
+            schedule();
+        }
+    }
+
+    /**
+     * Plays one command and tells its listener. A command whose game fails starts a new game, as a death does,
+     * and a listener that fails is only reported - either way the session carries on with the next command.
+     *
+     * @param message The command to play
+     */
+    private void play(Message message) {
+        boolean accepted;
+        try {
+            accepted = this.game.play(message.command);
+        } catch (RuntimeException e) {
+            System.out.println("Restarting session " + this.id + " after its game failed");
+            e.printStackTrace();
+            this.game.restart();
+            accepted = false;
+        }
+        this.commandsPlayed++;
+        if (message.listener != null) {
+            try {
+                message.listener.onCommandPlayed(this, message.command, accepted, message.sentAt);
+            } catch (RuntimeException e) {
+                System.out.println("A listener of session " + this.id + " failed");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Returns the session's ID
+     *
+     * @return The session's ID
+     */
+    public int getID() {
+        return this.id;
+    }
+
+    /**
+     * Returns the current game's player. Only safe to use from a SessionListener call.
+     *
+     * @return The current game's player
+     */
+    public Player getPlayer() {
+        return this.game.getPlayer();
+    }
+
+    /**
+     * Returns how many times the player has died and the game restarted. Only safe to use from a SessionListener call.
+     *
+     * @return The number of restarts
+     */
+    public int getRestarts() {
+        return this.game.getRestarts();
+    }
+
+    /**
+     * Returns how many commands have been played. Only safe to use from a SessionListener call.
+     *
+     * @return The number of commands played
+     */
+    public long getCommandsPlayed() {
+        return this.commandsPlayed;
+    }
+}
@@ -0,0 +1,152 @@
+package main.java.server;
+
+import main.java.tile.character.BattleEventSink;
+import main.java.tile.character.Player;
+
+/**
+ * One game played without a GUI, by numbered commands rather than button presses. Plays each command
+ * as Controller.play would, without describing battles in text, and starts a new game when the player dies -
+ * or leaves that to its owner, who may want the new game built on another thread.
+ * Not thread-safe: whoever owns it must only play it from one thread at a time.
+ *
+ * @version 1.3
+ * @author tp275
+ */
+final class HeadlessGame {
+
+    // the commands a game understands - the moves are numbered as the Player numbers them
+    static final int MOVE_UP = Player.MOVE_UP;
+    static final int MOVE_DOWN = Player.MOVE_DOWN;
+    static final int MOVE_LEFT = Player.MOVE_LEFT;
+    static final int MOVE_RIGHT = Player.MOVE_RIGHT;
+    static final int REWIND = 4;
+
+    // the seed of the first game - restarts count up from it
+    private final long seed;
+    // whether a new game is started as soon as the player dies, rather than by the owner calling restart
+    private final boolean restartsOnDeath;
+    // the current game
+    private Player player;
+    // how many times the player has died and the game restarted
+    private int restarts = 0;
+
+    /**
+     * Creates the first game, which starts a new game itself when the player dies
+     *
+     * @param seed The seed to generate the first game from
+     */
+    HeadlessGame(long seed) {
+        this(seed, true);
+    }
+
+    /**
+     * Creates the first game
+     *
+     * @param seed The seed to generate the first game from
+     * @param restartsOnDeath Whether to start a new game as soon as the player dies. If not, the game is left lost
+     *            until the owner calls restart.
+     */
+    HeadlessGame(long seed, boolean restartsOnDeath) {
+        this.seed = seed;
+        this.restartsOnDeath = restartsOnDeath;
+        this.player = newPlayer(seed);
+    }
+
+    /**
+     * Returns whether the given number is a command a game understands
+     *
+     * @param command The number to check
+     * @return True if it is a valid command
+     */
+    static boolean isCommand(int command) {
+        return command >= MOVE_UP && command <= REWIND;
+    }
+
+    /**
+     * Plays one command
+     *
+     * @param command The command to play
+     * @return True if the command did something, eg. the move was to a valid location
+     */
+    boolean play(int command) {
+        if (command == REWIND) {
+            return this.player.rewind(1) > 0;
+        }
+        if (!this.player.isAlive()) {
+            return false; // the game has been won; nothing more to do
+        }
+        if (!this.player.move(command)) {
+            return false;
+        }
+        this.player.playTile(this.player.getFloorTile());
+        if (this.restartsOnDeath && isLost()) {
+            restart();
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the player has died and the game not yet been restarted
+     *
+     * @return True if the game is lost
+     */
+    boolean isLost() {
+        return !this.player.isAlive() && !this.player.isVictorious();
+    }
+
+    /**
+     * Returns the seed the next game will be generated from
+     *
+     * @return The next game's seed
+     */
+    long getNextSeed() {
+        return this.seed + this.restarts + 1;
+    }
+
+    /**
+     * Starts a new game from the next seed, as on the player's death
+     */
+    void restart() {
+        restart(newPlayer(getNextSeed()));
+    }
+
+    /**
+     * Starts a new game with a player already generated from the next seed, eg. on another thread
+     *
+     * @param next The new game's player, from newPlayer(getNextSeed())
+     */
+    void restart(Player next) {
+        this.restarts++;
+        this.player = next;
+    }
+
+    /**
+     * Creates a headless player, whose battles aren't described in text
+     *
+     * @param seed The seed to generate the game from
+     * @return The new player
+     */
+    static Player newPlayer(long seed) {
+        Player player = new Player(1, seed);
+        player.setBattleSink(BattleEventSink.IGNORE);
+        return player;
+    }
+
+    /**
+     * Returns the current game's player
+     *
+     * @return The current game's player
+     */
+    Player getPlayer() {
+        return this.player;
+    }
+
+    /**
+     * Returns how many times the player has died and the game restarted
+     *
+     * @return The number of restarts
+     */
+    int getRestarts() {
+        return this.restarts;
+    }
+}
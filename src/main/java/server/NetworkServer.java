@@ -0,0 +1,124 @@
+package main.java.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A TCP frontend for remote play, speaking the binary Protocol. Every connection plays its own game:
+ * move commands come in, and the changes they made to the player's state go back out.
+ * An acceptor thread hands new connections round-robin to a few non-blocking EventLoops - by default
+ * one per core - which serve thousands of connections each. Games are generated on a pool of builder threads
+ * of the same size, so the loops only ever do network work and play moves.
+ *
+ * Usage: NetworkServer [port] [event loops] [seed]
+ *
+ * @version 1.1
+ * @author tp275
+ */
+public final class NetworkServer {
+
+    // the port clients connect to by default
+    public static final int DEFAULT_PORT = 7777;
+
+    // the listening socket
+    private final ServerSocketChannel serverChannel;
+    // the loops connections are served on
+    private final EventLoop[] loops;
+    // the threads games are generated on, for every loop
+    private final ExecutorService builders;
+    // the seed of the first connection's game - each later connection counts up from it
+    private final long seed;
+    // the thread accepting connections
+    private final Thread acceptor;
+    // how many connections have been accepted
+    private long accepted = 0;
+    // set to stop accepting
+    private volatile boolean closed = false;
+
+    /**
+     * Starts a server listening on the given address
+     *
+     * @param address The address to listen on - port 0 picks a free port
+     * @param loopCount How many event loops to serve connections on
+     * @param seed The seed of the first connection's game
+     * @throws IOException If the address can't be listened on
+     */
+    public NetworkServer(InetSocketAddress address, int loopCount, long seed) throws IOException {
+        this.seed = seed;
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(address, 4096);
+        AtomicInteger builderCount = new AtomicInteger();
+        this.builders = Executors.newFixedThreadPool(loopCount, runnable -> {
+            Thread thread = new Thread(runnable, "network-builder-" + builderCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.loops = new EventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            this.loops[i] = new EventLoop("network-loop-" + i, this.builders);
+        }
+        this.acceptor = new Thread(this::accept, "network-acceptor");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    /**
+     * Accepts connections, handing each to the next event loop in turn, until closed
+     */
+    private void accept() {
+        while (!this.closed) {
+            try {
+                SocketChannel channel = this.serverChannel.accept();
+                this.loops[(int) (this.accepted % this.loops.length)].add(channel, this.seed + this.accepted);
+                this.accepted++;
+            } catch (AsynchronousCloseException e) {
+                return;
+            } catch (IOException e) {
+                if (this.closed) {
+                    return;
+                }
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Returns the port the server is listening on
+     *
+     * @return The port the server is listening on
+     */
+    public int getPort() {
+        return this.serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Stops accepting connections and closes every open one
+     */
+    public void close() {
+        this.closed = true;
+        try {
+            this.serverChannel.close();
+        } catch (IOException e) {
+            // nothing more to do with it
+        }
+        this.builders.shutdown();
+        for (EventLoop loop : this.loops) {
+            loop.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int loops = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : 0;
+        NetworkServer server = new NetworkServer(new InetSocketAddress(port), loops, seed);
+        System.out.println("Listening on port " + server.getPort() + " with " + loops + " event loops");
+        Thread.currentThread().join();
+    }
+}
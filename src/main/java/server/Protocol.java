@@ -0,0 +1,127 @@
+package main.java.server;
+
+import java.nio.ByteBuffer;
+
+import main.java.tile.character.Player;
+
+/**
+ * The binary line protocol spoken by the NetworkServer. Every message is a frame: a 2 byte big-endian
+ * length, then that many bytes of body, the first of which is the message's opcode.
+ *
+ * Client to server:
+ *   COMMAND  [op][command]  - play one command, as numbered in GameSession
+ *
+ * Server to client:
+ *   STATE    [op][flags][changed][int per changed field...]  - the result of a command
+ *
+ * A STATE message only carries the fields that changed since the last one sent on that connection,
+ * in field order, so a typical move costs 2 ints - the new x or y, and nothing else.
+ * The first STATE is sent on connecting and carries every field.
+ *
+ * @version 1.1
+ * @author tp275
+ */
+public final class Protocol {
+
+    // opcodes
+    public static final int COMMAND = 1;
+    public static final int STATE = 2;
+
+    // STATE flags
+    public static final int ACCEPTED = 1;
+    public static final int ALIVE = 2;
+    public static final int VICTORIOUS = 4;
+
+    // STATE fields, in the order they are sent - each is a bit of the changed mask
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int DUNGEON = 2;
+    public static final int FLOOR = 3;
+    public static final int HP = 4;
+    public static final int XP = 5;
+    public static final int LEVEL = 6;
+    public static final int GOLD = 7;
+    public static final int FIELDS = 8;
+
+    // the size of a frame's length prefix
+    public static final int HEADER = 2;
+    // the size of a COMMAND frame, prefix included
+    public static final int COMMAND_FRAME = HEADER + 2;
+    // the size of the largest STATE frame, prefix included
+    public static final int MAX_STATE_FRAME = HEADER + 3 + FIELDS * Integer.BYTES;
+
+    private Protocol() {
+    }
+
+    /**
+     * Writes a COMMAND frame
+     *
+     * @param out The buffer to write to; needs COMMAND_FRAME bytes free
+     * @param command The command to send
+     */
+    public static void writeCommand(ByteBuffer out, int command) {
+        out.putShort((short) 2).put((byte) COMMAND).put((byte) command);
+    }
+
+    /**
+     * Reads a player's state into an array indexed by field
+     *
+     * @param player The player to read
+     * @param state The array to fill, of length FIELDS
+     */
+    static void readState(Player player, int[] state) {
+        state[X] = player.getFloorX();
+        state[Y] = player.getFloorY();
+        state[DUNGEON] = player.getCurrentDungeonID();
+        state[FLOOR] = player.getCurrentFloorID();
+        state[HP] = player.getHp();
+        state[XP] = player.getXp();
+        state[LEVEL] = player.getLevel();
+        state[GOLD] = player.getGold();
+    }
+
+    /**
+     * Writes a STATE frame holding the fields of the state that differ from the last state sent,
+     * then remembers the state as the last one sent
+     *
+     * @param out The buffer to write to; needs MAX_STATE_FRAME bytes free
+     * @param flags The STATE flags
+     * @param state The player's state now, indexed by field
+     * @param sent The last state sent, indexed by field - updated to match state
+     * @param full Whether to send every field, changed or not
+     */
+    static void writeState(ByteBuffer out, int flags, int[] state, int[] sent, boolean full) {
+        int changed = 0;
+        for (int i = 0; i < FIELDS; i++) {
+            if (full || state[i] != sent[i]) {
+                changed |= 1 << i;
+            }
+        }
+        out.putShort((short) (3 + Integer.bitCount(changed) * Integer.BYTES));
+        out.put((byte) STATE).put((byte) flags).put((byte) changed);
+        for (int i = 0; i < FIELDS; i++) {
+            if ((changed & (1 << i)) != 0) {
+                out.putInt(state[i]);
+                sent[i] = state[i];
+            }
+        }
+    }
+
+    /**
+     * Reads the body of a STATE frame, applying the fields it carries to the client's copy of the state
+     *
+     * @param in The buffer to read from, positioned just after the opcode
+     * @param state The client's copy of the state, indexed by field - updated in place
+     * @return The STATE flags
+     */
+    public static int readState(ByteBuffer in, int[] state) {
+        int flags = in.get() & 0xFF;
+        int changed = in.get() & 0xFF;
+        for (int i = 0; i < FIELDS; i++) {
+            if ((changed & (1 << i)) != 0) {
+                state[i] = in.getInt();
+            }
+        }
+        return flags;
+    }
+}
@@ -0,0 +1,21 @@
+package main.java.server;
+
+/**
+ * Told about each command a GameSession has finished playing. Called on the session's own thread,
+ * so the session's state can safely be read during the call, but not after it.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public interface SessionListener {
+
+    /**
+     * Called after a session has played a command
+     *
+     * @param session The session that played the command
+     * @param command The command played, one of the GameSession command constants
+     * @param accepted True if the command did something, eg. the move was to a valid location
+     * @param sentAt The System.nanoTime() at which the command was sent
+     */
+    void onCommandPlayed(GameSession session, int command, boolean accepted, long sentAt);
+}
@@ -0,0 +1,107 @@
+package main.java.server;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many independent GameSessions in one process. Sessions are played on a small fixed pool of
+ * threads - by default one per core - and each is only ever played by one thread at a time,
+ * so thousands of sessions need only a handful of threads.
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public final class SessionManager {
+
+    // every open session, by ID
+    private final ConcurrentHashMap<Integer, GameSession> sessions = new ConcurrentHashMap<>();
+    // the pool sessions are played on
+    private final ExecutorService executor;
+    // the ID the next session will get
+    private final AtomicInteger nextID = new AtomicInteger();
+
+    /**
+     * Creates a manager that plays sessions on one thread per core
+     */
+    public SessionManager() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a manager that plays sessions on the given number of threads
+     *
+     * @param threads The number of threads in the pool
+     */
+    public SessionManager(int threads) {
+        this.executor = Executors.newFixedThreadPool(threads, daemonThreads());
+    }
+
+    /**
+     * Opens a new session, generating its game from the given seed
+     *
+     * @param seed The seed for the session's first game
+     * @return The new session
+     */
+    public GameSession openSession(long seed) {
+        GameSession session = new GameSession(this.nextID.getAndIncrement(), seed, this.executor);
+        this.sessions.put(session.getID(), session);
+        return session;
+    }
+
+    /**
+     * Returns the open session with the given ID
+     *
+     * @param id The session's ID
+     * @return The session, or null if there is no open session with that ID
+     */
+    public GameSession getSession(int id) {
+        return this.sessions.get(id);
+    }
+
+    /**
+     * Closes the session with the given ID. Commands already sent to it may still be played.
+     *
+     * @param id The session's ID
+     */
+    public void closeSession(int id) {
+        this.sessions.remove(id);
+    }
+
+    /**
+     * Returns the number of open sessions
+     *
+     * @return The number of open sessions
+     */
+    public int size() {
+        return this.sessions.size();
+    }
+
+    /**
+     * Stops playing sessions, waiting briefly for commands already being played to finish
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.sessions.clear();
+    }
+
+    /**
+     * Names the pool's threads, and lets the JVM exit without waiting for them
+     */
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "session-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,448 @@
+package main.java.sim;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import main.java.locations.RandomSource;
+import main.java.locations.WorldTemplates;
+import main.java.tile.character.Player;
+
+/**
+ * Plays many headless games in lockstep, for training AIs. Rather than a Player and a world of Tile objects
+ * per game, every game's state is one element of a set of primitive arrays, and the worlds are flattened
+ * into CompiledWorlds, shared between games on the same seed. Only as many compiled worlds are kept for reuse
+ * as there are games, the least recently used dropped first, so resetting on ever new seeds holds a bounded
+ * number of worlds. Each tick takes one move per game and plays
+ * them all, split into chunks across the common fork-join pool.
+ *
+ * The rules are those of Player.updateLocation, Player.playTile and Battle, and a game plays exactly
+ * as a level 1 Player on the same seed would, given the same moves - including critical hits, which
+ * are drawn from the same random stream. Games that are over stay as they are until they are reset.
+ *
+ * @version 1.3
+ * @author tp275
+ */
+public class BatchSimulator {
+
+    // the moves, as the Player numbers them
+    public static final int MOVE_UP = Player.MOVE_UP;
+    public static final int MOVE_DOWN = Player.MOVE_DOWN;
+    public static final int MOVE_LEFT = Player.MOVE_LEFT;
+    public static final int MOVE_RIGHT = Player.MOVE_RIGHT;
+
+    // game statuses
+    public static final byte PLAYING = 0;
+    public static final byte DEAD = 1;
+    public static final byte VICTORIOUS = 2;
+
+    // how many games are stepped together as one task
+    private static final int CHUNK = 1024;
+    // the level every game starts at, as in the GUI
+    private static final int START_LEVEL = 1;
+
+    // the number of games
+    private final int games;
+    // each game's world, shared between games on the same seed
+    private final CompiledWorld[] world;
+    // the most recently used compiled worlds, by seed - at most one per game, the least recently used dropped first
+    private final LinkedHashMap<Long, CompiledWorld> compiled;
+
+    // the state of each game, one array per field
+    private final int[] x;
+    private final int[] y;
+    private final int[] dungeon;
+    private final int[] floor;
+    private final int[] hp;
+    private final int[] xp;
+    private final int[] level;
+    private final int[] gold;
+    private final byte[] status;
+    // all the xp each game has earned, including xp spent on levelling up
+    private final int[] xpEarned;
+    // each game's defeated enemies, one bit per enemy in its world
+    private final long[][] defeated;
+    // each game's stream of chance events, as its Player's would be
+    private final SplittableRandom[] random;
+
+    // the moves being played this tick
+    private int[] moves;
+    // steps one chunk of games - kept so stepping doesn't create a new lambda each tick
+    private final IntConsumer stepChunk = this::stepChunk;
+
+    /**
+     * Creates a simulator for the given number of games. Every game must be reset before it is stepped.
+     *
+     * @param games The number of games
+     */
+    public BatchSimulator(int games) {
+        this.games = games;
+        this.world = new CompiledWorld[games];
+        this.x = new int[games];
+        this.y = new int[games];
+        this.dungeon = new int[games];
+        this.floor = new int[games];
+        this.hp = new int[games];
+        this.xp = new int[games];
+        this.level = new int[games];
+        this.gold = new int[games];
+        this.status = new byte[games];
+        this.xpEarned = new int[games];
+        this.defeated = new long[games][];
+        this.random = new SplittableRandom[games];
+        this.compiled = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CompiledWorld> eldest) {
+                return size() > Math.max(1, games);
+            }
+        };
+    }
+
+    /**
+     * Starts a game afresh in the world generated from the given seed.
+     * Not thread-safe, and must not be called during a step.
+     *
+     * @param game The game's index
+     * @param seed The seed to generate its world from
+     */
+    public void reset(int game, long seed) {
+        CompiledWorld compiledWorld = this.compiled.computeIfAbsent(seed, s -> new CompiledWorld(WorldTemplates.get(s)));
+        this.world[game] = compiledWorld;
+        this.dungeon[game] = 0;
+        this.floor[game] = 0;
+        this.x[game] = compiledWorld.startX[0];
+        this.y[game] = compiledWorld.startY[0];
+        this.hp[game] = START_LEVEL * 70;
+        this.xp[game] = 0;
+        this.level[game] = START_LEVEL;
+        this.gold[game] = 0;
+        this.status[game] = PLAYING;
+        this.xpEarned[game] = 0;
+        int words = (compiledWorld.enemyCount + 63) >>> 6;
+        if (this.defeated[game] == null || this.defeated[game].length != words) {
+            this.defeated[game] = new long[words];
+        } else {
+            Arrays.fill(this.defeated[game], 0);
+        }
+        this.random[game] = new RandomSource(seed).forEntity(Player.PLAYER_ENTITY_ID);
+    }
+
+    /**
+     * Returns the number of compiled worlds kept for games reset on the same seed to share
+     *
+     * @return The number of compiled worlds kept, at most the number of games
+     */
+    public int getCompiledWorldCount() {
+        return this.compiled.size();
+    }
+
+    /**
+     * Plays one tick: one move for every game, in parallel
+     *
+     * @param moves The move for each game, indexed by game. Anything other than the four moves stays put.
+     */
+    public void step(int[] moves) {
+        if (moves.length < this.games) {
+            throw new IllegalArgumentException("Need a move for each of the " + this.games + " games");
+        }
+        this.moves = moves;
+        IntStream.range(0, (this.games + CHUNK - 1) / CHUNK).parallel().forEach(this.stepChunk);
+        this.moves = null;
+    }
+
+    /**
+     * Plays one move of one game on the calling thread, leaving every other game as it is.
+     * Must not be called during a step of the whole batch.
+     *
+     * @param game The game's index
+     * @param move The move. Anything other than the four moves stays put.
+     */
+    public void step(int game, int move) {
+        stepGame(game, move);
+    }
+
+    /**
+     * Plays this tick's moves for one chunk of games
+     *
+     * @param chunk The chunk's index
+     */
+    private void stepChunk(int chunk) {
+        int end = Math.min(this.games, (chunk + 1) * CHUNK);
+        for (int game = chunk * CHUNK; game < end; game++) {
+            stepGame(game, this.moves[game]);
+        }
+    }
+
+    /**
+     * Plays one move of one game, as Player.updateLocation followed by Player.playTile would
+     *
+     * @param game The game's index
+     * @param move The move
+     */
+    private void stepGame(int game, int move) {
+        if (this.status[game] != PLAYING || move < MOVE_UP || move > MOVE_RIGHT) {
+            return;
+        }
+        CompiledWorld w = this.world[game];
+        int f = w.firstFloor[this.dungeon[game]] + this.floor[game];
+        int nx = this.x[game] + Player.getMoveDX(move);
+        int ny = this.y[game] + Player.getMoveDY(move);
+        int cell = w.cell(f, nx, ny);
+        if (cell < 0 || w.cells[cell] == CompiledWorld.WALL) {
+            return;
+        }
+        this.x[game] = nx;
+        this.y[game] = ny;
+
+        switch (w.cells[cell]) {
+        case CompiledWorld.ENEMY:
+            battle(game, w, w.cellData[cell]);
+            break;
+        case CompiledWorld.GOLD:
+            this.gold[game] += w.cellData[cell];
+            break;
+        case CompiledWorld.STAIRS:
+            takeStairs(game, w);
+            break;
+        default:
+            break; // start and empty tiles do nothing
+        }
+    }
+
+    /**
+     * Fights the given enemy, unless this game has already defeated it, as Battle does
+     *
+     * @param game The game's index
+     * @param w The game's world
+     * @param enemy The enemy's number in the world
+     */
+    private void battle(int game, CompiledWorld w, int enemy) {
+        long[] defeatedEnemies = this.defeated[game];
+        if ((defeatedEnemies[enemy >>> 6] & (1L << enemy)) != 0) {
+            return; // just a corpse
+        }
+        int enemyHp = w.enemyHp[enemy];
+        int playerHp = this.hp[game];
+        int poisonTurnsLeft = 0;
+        while (true) {
+            // the player's turn - as with Character.decreaseHp, a killing blow leaves the hp as it was
+            int playerDamage = this.level[game] * 2;
+            if (enemyHp - playerDamage <= 0) {
+                defeatedEnemies[enemy >>> 6] |= 1L << enemy;
+                addXp(game, w.enemyXp[enemy]);
+                break;
+            }
+            enemyHp -= playerDamage;
+
+            // the enemy's turn
+            int enemyDamage = w.enemyDamage[enemy];
+            int critChance = w.enemyCritChance[enemy];
+            if (critChance > 0 && this.random[game].nextInt(100) < critChance) {
+                enemyDamage *= w.enemyCritMultiplier[enemy];
+            }
+            if (playerHp - enemyDamage <= 0) {
+                this.status[game] = DEAD;
+                break;
+            }
+            playerHp -= enemyDamage;
+            if (poisonTurnsLeft > 0) {
+                poisonTurnsLeft--;
+                int poisonDamage = w.enemyPoisonDamage[enemy];
+                if (playerHp - poisonDamage <= 0) {
+                    this.status[game] = DEAD;
+                    break;
+                }
+                playerHp -= poisonDamage;
+            }
+            if (w.enemyPoisonTurns[enemy] > 0) {
+                poisonTurnsLeft = w.enemyPoisonTurns[enemy];
+            }
+        }
+        this.hp[game] = playerHp;
+    }
+
+    /**
+     * Adds xp, levelling up as PlayerStats.addXp does
+     *
+     * @param game The game's index
+     * @param amount The xp gained
+     */
+    private void addXp(int game, int amount) {
+        this.xpEarned[game] += amount;
+        this.xp[game] += amount;
+        int currentLevel = this.level[game];
+        if (amount > ((currentLevel + 5) + (Math.pow(currentLevel, 2)))) {
+            this.level[game] = currentLevel + 1;
+            this.xp[game] = 0;
+        }
+    }
+
+    /**
+     * Goes down a floor, on to the next dungeon, or wins the game, as Player.playTile does for Stairs
+     *
+     * @param game The game's index
+     * @param w The game's world
+     */
+    private void takeStairs(int game, CompiledWorld w) {
+        if (this.floor[game] + 1 < w.floorCount[this.dungeon[game]]) {
+            this.floor[game]++;
+        } else if (this.dungeon[game] == w.dungeonCount - 1) {
+            this.status[game] = VICTORIOUS;
+            return;
+        } else {
+            this.dungeon[game]++;
+            this.floor[game] = 0;
+            this.hp[game] = START_LEVEL * 70;
+        }
+        int next = w.firstFloor[this.dungeon[game]] + this.floor[game];
+        this.x[game] = w.startX[next];
+        this.y[game] = w.startY[next];
+    }
+
+    /**
+     * Returns the tile at the given location on the given game's current floor, as that game sees it:
+     * enemies it has defeated are empty, and anywhere off the floor is wall
+     *
+     * @param game The game's index
+     * @param x The row
+     * @param y The column
+     * @return The tile's code, as in CompiledWorld
+     */
+    byte getTile(int game, int x, int y) {
+        CompiledWorld w = this.world[game];
+        int cell = w.cell(w.firstFloor[this.dungeon[game]] + this.floor[game], x, y);
+        if (cell < 0) {
+            return CompiledWorld.WALL;
+        }
+        byte tile = w.cells[cell];
+        if (tile == CompiledWorld.ENEMY) {
+            int enemy = w.cellData[cell];
+            if ((this.defeated[game][enemy >>> 6] & (1L << enemy)) != 0) {
+                return CompiledWorld.EMPTY;
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * Returns how far through the world the given game is, counting every floor of every dungeon in order
+     *
+     * @param game The game's index
+     * @return The number of floors the game has gone down
+     */
+    public int getProgress(int game) {
+        return this.world[game].firstFloor[this.dungeon[game]] + this.floor[game];
+    }
+
+    /**
+     * Returns all the xp the player has earned in the given game, including xp spent on levelling up
+     *
+     * @param game The game's index
+     * @return The player's total xp earned
+     */
+    public int getXpEarned(int game) {
+        return this.xpEarned[game];
+    }
+
+    /**
+     * Returns the number of games
+     *
+     * @return The number of games
+     */
+    public int getGames() {
+        return this.games;
+    }
+
+    /**
+     * Returns whether the given game is still being played, or was lost or won
+     *
+     * @param game The game's index
+     * @return PLAYING, DEAD or VICTORIOUS
+     */
+    public byte getStatus(int game) {
+        return this.status[game];
+    }
+
+    /**
+     * Returns the given game's row on its current floor
+     *
+     * @param game The game's index
+     * @return The player's row
+     */
+    public int getX(int game) {
+        return this.x[game];
+    }
+
+    /**
+     * Returns the given game's column on its current floor
+     *
+     * @param game The game's index
+     * @return The player's column
+     */
+    public int getY(int game) {
+        return this.y[game];
+    }
+
+    /**
+     * Returns the ID of the dungeon the given game is in
+     *
+     * @param game The game's index
+     * @return The dungeon ID
+     */
+    public int getDungeon(int game) {
+        return this.dungeon[game];
+    }
+
+    /**
+     * Returns the ID of the floor the given game is on, within its dungeon
+     *
+     * @param game The game's index
+     * @return The floor ID
+     */
+    public int getFloor(int game) {
+        return this.floor[game];
+    }
+
+    /**
+     * Returns the player's hitpoints in the given game
+     *
+     * @param game The game's index
+     * @return The player's hitpoints
+     */
+    public int getHp(int game) {
+        return this.hp[game];
+    }
+
+    /**
+     * Returns the player's xp in the given game
+     *
+     * @param game The game's index
+     * @return The player's xp
+     */
+    public int getXp(int game) {
+        return this.xp[game];
+    }
+
+    /**
+     * Returns the player's level in the given game
+     *
+     * @param game The game's index
+     * @return The player's level
+     */
+    public int getLevel(int game) {
+        return this.level[game];
+    }
+
+    /**
+     * Returns the player's gold in the given game
+     *
+     * @param game The game's index
+     * @return The player's gold
+     */
+    public int getGold(int game) {
+        return this.gold[game];
+    }
+}
@@ -0,0 +1,188 @@
+package main.java.sim;
+
+import main.java.locations.Dungeon;
+import main.java.locations.Floor;
+import main.java.locations.Map;
+import main.java.tile.Empty;
+import main.java.tile.Gold;
+import main.java.tile.Stairs;
+import main.java.tile.Start;
+import main.java.tile.Tile;
+import main.java.tile.character.Enemy;
+
+/**
+ * A generated world flattened into primitive arrays for the BatchSimulator. Every floor's tiles are one byte
+ * each in a single grid array, floors are numbered in visiting order, and every enemy in the world is numbered,
+ * with its stats in one array per stat. Like the Map it is compiled from, it is never changed,
+ * so any number of games can share it.
+ *
+ * @version 1.2
+ * @author tp275
+ */
+final class CompiledWorld {
+
+    // tile codes
+    static final byte WALL = 0;
+    static final byte EMPTY = 1;
+    static final byte START = 2;
+    static final byte STAIRS = 3;
+    static final byte GOLD = 4;
+    static final byte ENEMY = 5;
+
+    // the number of dungeons, and the index of each dungeon's first floor
+    final int dungeonCount;
+    final int[] firstFloor;
+    // the number of floors in each dungeon
+    final int[] floorCount;
+
+    // per floor: size, where its tiles start in the grid, and start location
+    final int[] rows;
+    final int[] columns;
+    final int[] cellOffset;
+    final int[] startX;
+    final int[] startY;
+
+    // every floor's tiles, row by row
+    final byte[] cells;
+    // what each cell holds, parallel to cells: the enemy's number on ENEMY cells, the gold's value on GOLD cells
+    final int[] cellData;
+
+    // per enemy: the stats a battle needs
+    final int enemyCount;
+    final int[] enemyHp;
+    final int[] enemyDamage;
+    final int[] enemyXp;
+    final int[] enemyCritChance;
+    final int[] enemyCritMultiplier;
+    final int[] enemyPoisonDamage;
+    final int[] enemyPoisonTurns;
+
+    /**
+     * Flattens a generated world
+     *
+     * @param world The world to flatten
+     */
+    CompiledWorld(Map world) {
+        this.dungeonCount = world.getHowManyDungeons();
+        this.firstFloor = new int[this.dungeonCount];
+        this.floorCount = new int[this.dungeonCount];
+        int floors = 0;
+        int cellTotal = 0;
+        for (int d = 0; d < this.dungeonCount; d++) {
+            Dungeon dungeon = world.getDungeonByID(d);
+            this.firstFloor[d] = floors;
+            this.floorCount[d] = dungeon.getFloorCount();
+            for (int f = 0; f < this.floorCount[d]; f++) {
+                Floor floor = dungeon.getFloorByID(f);
+                cellTotal += floor.getRows() * floor.getColumns();
+            }
+            floors += this.floorCount[d];
+        }
+
+        this.rows = new int[floors];
+        this.columns = new int[floors];
+        this.cellOffset = new int[floors];
+        this.startX = new int[floors];
+        this.startY = new int[floors];
+        this.cells = new byte[cellTotal];
+        this.cellData = new int[cellTotal];
+
+        // first pass: tiles, counting enemies
+        int enemies = 0;
+        int offset = 0;
+        for (int d = 0; d < this.dungeonCount; d++) {
+            Dungeon dungeon = world.getDungeonByID(d);
+            for (int f = 0; f < this.floorCount[d]; f++) {
+                Floor floor = dungeon.getFloorByID(f);
+                int index = this.firstFloor[d] + f;
+                this.rows[index] = floor.getRows();
+                this.columns[index] = floor.getColumns();
+                this.cellOffset[index] = offset;
+                this.startX[index] = floor.getStartPos().x;
+                this.startY[index] = floor.getStartPos().y;
+                for (int x = 0; x < floor.getRows(); x++) {
+                    for (int y = 0; y < floor.getColumns(); y++) {
+                        Tile tile = floor.getTile(x, y);
+                        int cell = offset + x * floor.getColumns() + y;
+                        this.cells[cell] = code(tile);
+                        if (tile instanceof Enemy) {
+                            this.cellData[cell] = enemies++;
+                        } else if (tile instanceof Gold) {
+                            this.cellData[cell] = ((Gold) tile).getValue();
+                        }
+                    }
+                }
+                offset += floor.getRows() * floor.getColumns();
+            }
+        }
+
+        // second pass: enemy stats, in the same order they were numbered
+        this.enemyCount = enemies;
+        this.enemyHp = new int[enemies];
+        this.enemyDamage = new int[enemies];
+        this.enemyXp = new int[enemies];
+        this.enemyCritChance = new int[enemies];
+        this.enemyCritMultiplier = new int[enemies];
+        this.enemyPoisonDamage = new int[enemies];
+        this.enemyPoisonTurns = new int[enemies];
+        for (int d = 0; d < this.dungeonCount; d++) {
+            Dungeon dungeon = world.getDungeonByID(d);
+            for (int f = 0; f < this.floorCount[d]; f++) {
+                Floor floor = dungeon.getFloorByID(f);
+                int floorOffset = this.cellOffset[this.firstFloor[d] + f];
+                for (int x = 0; x < floor.getRows(); x++) {
+                    for (int y = 0; y < floor.getColumns(); y++) {
+                        int cell = floorOffset + x * floor.getColumns() + y;
+                        if (this.cells[cell] == ENEMY) {
+                            int e = this.cellData[cell];
+                            Enemy enemy = (Enemy) floor.getTile(x, y);
+                            this.enemyHp[e] = enemy.getHp();
+                            this.enemyDamage[e] = enemy.getDamage();
+                            this.enemyXp[e] = enemy.getXPOnDefeat();
+                            this.enemyCritChance[e] = enemy.getCritChance();
+                            this.enemyCritMultiplier[e] = enemy.getCritMultiplier();
+                            this.enemyPoisonDamage[e] = enemy.getPoisonDamage();
+                            this.enemyPoisonTurns[e] = enemy.getPoisonTurns();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the code of the given tile. Anything unrecognised is treated as a wall.
+     *
+     * @param tile The tile
+     * @return The tile's code
+     */
+    private static byte code(Tile tile) {
+        if (tile instanceof Enemy) {
+            return ENEMY;
+        } else if (tile instanceof Gold) {
+            return GOLD;
+        } else if (tile instanceof Stairs) {
+            return STAIRS;
+        } else if (tile instanceof Start) {
+            return START;
+        } else if (tile instanceof Empty) {
+            return EMPTY;
+        }
+        return WALL;
+    }
+
+    /**
+     * Returns the index of the grid cell at the given location, or -1 if it is off the floor
+     *
+     * @param floor The floor's index
+     * @param x The row
+     * @param y The column
+     * @return The cell's index in the grid, or -1
+     */
+    int cell(int floor, int x, int y) {
+        if (x < 0 || y < 0 || x >= this.rows[floor] || y >= this.columns[floor]) {
+            return -1;
+        }
+        return this.cellOffset[floor] + x * this.columns[floor] + y;
+    }
+}
@@ -0,0 +1,179 @@
+package main.java.sim;
+
+import java.nio.FloatBuffer;
+
+import main.java.tile.character.Player;
+
+/**
+ * A reinforcement learning environment over one game, in the style of Gym: reset(seed) starts a game,
+ * step(action) plays one move and returns its reward. Both write an observation of fixed size
+ * into a buffer the caller supplies. A step allocates nothing. A reset compiles the seed's world, unless it is
+ * the one the last game was played in, and only that one compiled world is kept, so resetting on a new seed
+ * every game holds no more memory than resetting on the same one.
+ *
+ * The observation is OBSERVATION_SIZE floats: the tile codes of the WINDOW x WINDOW square of tiles
+ * centred on the player, row by row (defeated enemies show as empty, anywhere off the floor as wall),
+ * followed by the player's hp, xp, level and gold and how many floors they have gone down.
+ *
+ * The reward is shaped on what the move gained: each gold, each xp earned and each floor gone down is
+ * worth its weight, winning the game is worth WIN_REWARD and dying costs DEATH_PENALTY. Gold tiles pay out
+ * every time they are walked onto, so gold is weighted lightly by default, lest agents learn to pace
+ * back and forth over one.
+ *
+ * @version 1.2
+ * @author tp275
+ */
+public class Environment {
+
+    // the actions - the moves, as the Player numbers them
+    public static final int MOVE_UP = Player.MOVE_UP;
+    public static final int MOVE_DOWN = Player.MOVE_DOWN;
+    public static final int MOVE_LEFT = Player.MOVE_LEFT;
+    public static final int MOVE_RIGHT = Player.MOVE_RIGHT;
+    public static final int ACTIONS = Player.MOVES;
+
+    // the tile codes in the observation
+    public static final int TILE_WALL = CompiledWorld.WALL;
+    public static final int TILE_EMPTY = CompiledWorld.EMPTY;
+    public static final int TILE_START = CompiledWorld.START;
+    public static final int TILE_STAIRS = CompiledWorld.STAIRS;
+    public static final int TILE_GOLD = CompiledWorld.GOLD;
+    public static final int TILE_ENEMY = CompiledWorld.ENEMY;
+
+    // the width and height of the square of tiles observed around the player
+    public static final int WINDOW = 9;
+    // the number of floats in an observation
+    public static final int OBSERVATION_SIZE = WINDOW * WINDOW + 5;
+
+    // the default reward weights
+    public static final float GOLD_WEIGHT = 0.01f;
+    public static final float XP_WEIGHT = 0.1f;
+    public static final float FLOOR_WEIGHT = 1f;
+    public static final float WIN_REWARD = 10f;
+    public static final float DEATH_PENALTY = 5f;
+
+    // the one game, simulated by a batch of one
+    private final BatchSimulator game = new BatchSimulator(1);
+    // the reward weights in use
+    private final float goldWeight;
+    private final float xpWeight;
+    private final float floorWeight;
+    // whether a game has been started
+    private boolean started = false;
+
+    /**
+     * Creates an environment with the default reward weights
+     */
+    public Environment() {
+        this(GOLD_WEIGHT, XP_WEIGHT, FLOOR_WEIGHT);
+    }
+
+    /**
+     * Creates an environment with the given reward weights
+     *
+     * @param goldWeight The reward per gold gained
+     * @param xpWeight The reward per xp earned
+     * @param floorWeight The reward per floor gone down
+     */
+    public Environment(float goldWeight, float xpWeight, float floorWeight) {
+        this.goldWeight = goldWeight;
+        this.xpWeight = xpWeight;
+        this.floorWeight = floorWeight;
+    }
+
+    /**
+     * Starts a new game in the world generated from the given seed
+     *
+     * @param seed The seed to generate the world from
+     * @param observation Where to write the first observation - OBSERVATION_SIZE floats from its position, which is left as it was
+     */
+    public void reset(long seed, FloatBuffer observation) {
+        this.game.reset(0, seed);
+        this.started = true;
+        observe(observation);
+    }
+
+    /**
+     * Plays one move. Once the game is done, moves change nothing and are worth nothing until the next reset.
+     *
+     * @param action The move to play
+     * @param observation Where to write the observation after the move - OBSERVATION_SIZE floats from its position,
+     *                    which is left as it was
+     * @return The move's reward
+     * @throws IllegalStateException If no game has been started
+     */
+    public float step(int action, FloatBuffer observation) {
+        if (!this.started) {
+            throw new IllegalStateException("reset must be called before step");
+        }
+        if (isDone()) {
+            observe(observation);
+            return 0;
+        }
+        int gold = this.game.getGold(0);
+        int xp = this.game.getXpEarned(0);
+        int progress = this.game.getProgress(0);
+
+        this.game.step(0, action);
+
+        float reward = this.goldWeight * (this.game.getGold(0) - gold)
+                + this.xpWeight * (this.game.getXpEarned(0) - xp)
+                + this.floorWeight * (this.game.getProgress(0) - progress);
+        if (this.game.getStatus(0) == BatchSimulator.VICTORIOUS) {
+            reward += WIN_REWARD;
+        } else if (this.game.getStatus(0) == BatchSimulator.DEAD) {
+            reward -= DEATH_PENALTY;
+        }
+        observe(observation);
+        return reward;
+    }
+
+    /**
+     * Returns the number of compiled worlds the environment is holding on to
+     *
+     * @return The number of compiled worlds held - at most one
+     */
+    public int getCompiledWorldCount() {
+        return this.game.getCompiledWorldCount();
+    }
+
+    /**
+     * Returns whether the game is over, won or lost
+     *
+     * @return True if the game is over
+     */
+    public boolean isDone() {
+        return this.game.getStatus(0) != BatchSimulator.PLAYING;
+    }
+
+    /**
+     * Returns whether the game was won
+     *
+     * @return True if the player won
+     */
+    public boolean isVictorious() {
+        return this.game.getStatus(0) == BatchSimulator.VICTORIOUS;
+    }
+
+    /**
+     * Writes the current observation into the buffer, from its position, without moving the position
+     *
+     * @param observation The buffer to write to
+     */
+    private void observe(FloatBuffer observation) {
+        int index = observation.position();
+        int half = WINDOW / 2;
+        int px = this.game.getX(0);
+        int py = this.game.getY(0);
+        for (int x = px - half; x <= px + half; x++) {
+            for (int y = py - half; y <= py + half; y++) {
+                observation.put(index++, this.game.getTile(0, x, y));
+            }
+        }
+        observation.put(index++, this.game.getHp(0));
+        observation.put(index++, this.game.getXp(0));
+        observation.put(index++, this.game.getLevel(0));
+        observation.put(index++, this.game.getGold(0));
+        observation.put(index, this.game.getProgress(0));
+    }
+}
@@ -0,0 +1,96 @@
+package main.java.sim;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Lets a trainer in another process, eg. Python, drive an Environment over stdin and stdout.
+ * The protocol is binary and little-endian, so replies can be read straight into a numpy array:
+ *
+ *   'R' [long seed]   -> [float observation x OBSERVATION_SIZE]
+ *   'S' [int action]  -> [float reward][byte done][float observation x OBSERVATION_SIZE]
+ *   'Q'               -> the bridge exits
+ *
+ * Requests and replies go through buffers allocated once, so a step allocates nothing.
+ *
+ * Usage: EnvironmentBridge  (nothing else may be written to stdout)
+ *
+ * @version 1.0
+ * @author tp275
+ */
+public final class EnvironmentBridge {
+
+    // request codes
+    public static final byte RESET = 'R';
+    public static final byte STEP = 'S';
+    public static final byte QUIT = 'Q';
+
+    // the environment being driven
+    private final Environment environment = new Environment();
+    // where requests are read from and replies written to
+    private final DataInputStream in;
+    private final OutputStream out;
+    // a request's argument, and a whole reply
+    private final ByteBuffer request = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer reply = ByteBuffer.allocate(Float.BYTES + 1 + Environment.OBSERVATION_SIZE * Float.BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    // the observation, as a view of the end of the reply
+    private final FloatBuffer observation;
+
+    /**
+     * Creates a bridge over the given streams
+     *
+     * @param in Where requests come from
+     * @param out Where replies go
+     */
+    public EnvironmentBridge(InputStream in, OutputStream out) {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        this.out = new BufferedOutputStream(out);
+        this.observation = this.reply.position(Float.BYTES + 1).slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+    }
+
+    /**
+     * Answers requests until told to quit or the input ends
+     *
+     * @throws IOException If a stream fails
+     */
+    public void serve() throws IOException {
+        try {
+            while (true) {
+                byte code = this.in.readByte();
+                if (code == RESET) {
+                    this.in.readFully(this.request.array(), 0, Long.BYTES);
+                    this.environment.reset(this.request.getLong(0), this.observation);
+                    this.out.write(this.reply.array(), Float.BYTES + 1, Environment.OBSERVATION_SIZE * Float.BYTES);
+                } else if (code == STEP) {
+                    this.in.readFully(this.request.array(), 0, Integer.BYTES);
+                    float reward = this.environment.step(this.request.getInt(0), this.observation);
+                    this.reply.putFloat(0, reward);
+                    this.reply.put(Float.BYTES, (byte) (this.environment.isDone() ? 1 : 0));
+                    this.out.write(this.reply.array(), 0, this.reply.capacity());
+                } else if (code == QUIT) {
+                    return;
+                } else {
+                    throw new IOException("Unknown request " + code);
+                }
+                this.out.flush();
+            }
+        } catch (EOFException e) {
+            // the trainer has gone
+        } finally {
+            this.out.flush();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        new EnvironmentBridge(System.in, System.out).serve();
+    }
+}
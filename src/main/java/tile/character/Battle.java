@@ -1,116 +1,242 @@
 package main.java.tile.character;
 
+import main.java.metrics.BattleResolvedEvent;
+import main.java.metrics.Metrics;
+import main.java.tile.character.BattleEvent.Type;
+
 /**
  * Handles the battling system, making the player and enemy take turns decreasing each other's hp
- * by certain amounts of damage, and ultimately returning a large string describing the battle
- * 
- * @version 1.0
+ * by certain amounts of damage. Everything that happens is reported to a BattleEventSink as a BattleEvent;
+ * turning those into text is left to the sink, so nothing is formatted unless someone wants to read it.
+ * Enemies may land critical hits and poison the player, depending on their archetype;
+ * chance events are drawn from the player's random stream so battles are reproducible from the game seed.
+ * A Battle belongs to one player and is reused for each enemy they fight, and a flight recorder event is only
+ * created while a recording wants it, so fighting allocates nothing.
+ * Enemies in the world are shared by every game on the same seed, so the enemy's hp is only tracked
+ * here for the length of the battle, and whether it was defeated is left to the caller to record.
+ *
+ * @version 3.2
  * @author tp275
  */
 public class Battle {
 
     // the Player object that will be battling the enemy
     private final Player player;
-    // the Enemy object that will be battling the player
-    private final Enemy enemy;
+    // the Enemy object currently battling the player
+    private Enemy enemy;
+    // the enemy's hp during the current battle
+    private int enemyHp;
+    // whether the enemy is still standing in the current battle
+    private boolean enemyAlive;
+    // where events are sent during the current battle
+    private BattleEventSink sink;
+    // the one event object reused for everything this battle reports
+    private final BattleEvent event = new BattleEvent();
+    // the damage the enemy's last hit did
+    private int enemyDamage;
+    // whether the enemy's last hit was critical
+    private boolean critical;
+    // the damage the poison did on the enemy's last turn, 0 if none
+    private int poisonDamage;
+    // how many more enemy turns the player will take poison damage for
+    private int poisonTurnsLeft;
 
     /**
-     * A class for handling a battle between the player and an enemy. 
-     * 
-     * @param player The Player object that will be battling the enemy
-     * @param enemy The Enemy object that will be battling the player
+     * A class for handling battles between the player and enemies.
+     *
+     * @param player The Player object that will be battling
      */
-    public Battle (Player player, Enemy enemy) {
+    public Battle(Player player) {
         this.player = player;
-        this.enemy = enemy;
+    }
+
+    /**
+     * Runs the battle logic against an enemy that belongs to the caller rather than to the world,
+     * marking the enemy itself as dead if the player defeats it
+     *
+     * @param enemy The Enemy object that will be battling the player
+     * @param sink Where to send the battle's events
+     */
+    public void fight(Enemy enemy, BattleEventSink sink) {
+        if (fight(enemy, enemy.isAlive(), sink)) {
+            enemy.setAlive(false);
+        }
     }
 
     /**
      * Runs the battle logic, making the player and enemy take turns decreasing each other's hp
-     * by certain amounts of damage, and ultimately returning a large string describing the battle
-     * 
-     * @return All of the text generated during the (automatic) battle, ready for printing by the UI
+     * by certain amounts of damage, and reporting each thing that happens to the sink.
+     * The enemy itself is left unchanged.
+     *
+     * @param enemy The Enemy object that will be battling the player
+     * @param alive Whether the enemy is still alive in this player's game - if not, the player just finds its corpse
+     * @param sink Where to send the battle's events
+     * @return True if the player defeated the enemy in this battle
      */
-    public String startBattle() {
-        // the battle intro
-        StringBuilder output = new StringBuilder("You encountered " + this.enemy.getName() + this.enemy.getDescription() + " Time to battle!");
+    public boolean fight(Enemy enemy, boolean alive, BattleEventSink sink) {
+        this.enemy = enemy;
+        this.sink = sink;
+        this.enemyHp = enemy.getHp();
+        this.enemyAlive = alive;
+        this.poisonTurnsLeft = 0;
 
-        // check if enemy is dead - return info and don't battle if so!
-        if (!this.enemy.isAlive()) {
-            return "Here lies the corpse of " + this.enemy.getName();
+        boolean defeated = false;
+        // check if enemy is dead - report it and don't battle if so!
+        if (!this.enemyAlive) {
+            emit(Type.CORPSE, 0);
+        } else {
+            BattleResolvedEvent event = BattleResolvedEvent.isRecording() ? new BattleResolvedEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+            // the battle intro
+            emit(Type.ENCOUNTER, 0);
+            battle();
+            defeated = !this.enemyAlive;
+            if (Metrics.ENABLED) {
+                Metrics.BATTLES_RESOLVED.increment();
+            }
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.dungeon = this.player.getCurrentDungeonID();
+                    event.floor = this.player.getCurrentFloorID();
+                    event.archetype = Bestiary.get().getArchetypeName(enemy.getArchetype());
+                    event.enemyLevel = enemy.getLevel();
+                    event.playerWon = this.player.isAlive();
+                    event.commit();
+                }
+            }
         }
+        this.enemy = null;
+        this.sink = null;
+        return defeated;
+    }
 
+    /**
+     * Makes the player and enemy take turns until one of them is defeated
+     */
+    private void battle() {
         while (isOngoing()) { // while both characters are alive
 
             if (!playerTurn()) { // carry out player's turn and check if enemy was defeated
-                // if enemy was defeated, add relevant messages to string, add xp to player and set enemy as defeated
-                output.append(playerHitEnemyMessage());
-                output.append("\n").append(this.enemy.getGoodbye());
-                output.append("\nYou were victorious! You gained ").append(this.enemy.getXPOnDefeat()).append(" xp.");
+                // if enemy was defeated, report it, add xp to player and set enemy as defeated
+                emit(Type.PLAYER_HIT, getPlayerDamage());
+                emit(Type.VICTORY, this.enemy.getXPOnDefeat());
                 if (addPlayerXP()) { // will return true on level up
-                    output.append("\nYou levelled up! Your new level is ").append(getLevel(this.player));
+                    emit(Type.LEVEL_UP, getLevel(this.player));
                 }
-                this.enemy.setAlive(false);
+                this.enemyAlive = false;
             }
 
             else if (!enemyTurn()) { // carry out enemy's turn and check if player was defeated
-                // if player was defeated, print relevant messages and set player as defeated
-                output.append(enemyHitPlayerMessage());
-                output.append("\n").append(this.enemy.getName()).append(" killed you!");
+                // if player was defeated, report it and set player as defeated
+                emitEnemyHit();
+                emit(Type.DEATH, 0);
                 this.player.setAlive(false);
             }
 
-            else { // if nobody was defeated, just add relevant info to string and loop
-                output.append(playerHitEnemyMessage());
-                output.append(enemyHitPlayerMessage());
+            else { // if nobody was defeated, just report the hits and loop
+                emit(Type.PLAYER_HIT, getPlayerDamage());
+                emitEnemyHit();
             }
         }
-        return output.toString();
+    }
+
+    /**
+     * Runs a battle against the given enemy and returns a large string describing it, ready for printing by the UI
+     *
+     * @param enemy The Enemy object that will be battling the player
+     * @return All of the text generated during the (automatic) battle
+     */
+    public String startBattle(Enemy enemy) {
+        BattleLog log = new BattleLog();
+        fight(enemy, log);
+        return log.drain();
     }
 
     /**
      * Adds XP to the player (using playerStats)
-     * 
+     *
      * @return True if the player levelled up, else false
      */
     private boolean addPlayerXP() {
-        return this.player.getStats().addXp(enemy.getXPOnDefeat());
+        return this.player.getStats().addXp(this.enemy.getXPOnDefeat());
     }
 
     /**
      * Handles the player's turn in the battle. Decreases HP from enemy and checks if it has died.
-     * 
+     * As with Character.decreaseHp, a killing blow leaves the hp as it was.
+     *
      * @return False if enemy is dead, else true
      */
     private boolean playerTurn() {
-        return this.enemy.decreaseHp(this.player.getStats().getDamage());
+        if (this.enemyHp - getPlayerDamage() > 0) {
+            this.enemyHp -= getPlayerDamage();
+            return true;
+        }
+        return false;
     }
 
     /**
-     * Handles the enemy's turn in the battle. Decreases HP from player and checks if it has died.
-     * 
+     * Handles the enemy's turn in the battle. Decreases HP from player, possibly by a critical hit,
+     * then applies any poison, and checks if the player has died.
+     *
      * @return False if player is dead, else true
      */
     private boolean enemyTurn() {
-        return this.player.decreaseHp(this.enemy.getDamage());
+        this.enemyDamage = this.enemy.getDamage();
+        // only roll for a critical hit if this enemy can land one, so as not to draw from the stream needlessly
+        this.critical = this.enemy.getCritChance() > 0 && this.player.getRandom().nextInt(100) < this.enemy.getCritChance();
+        if (this.critical) {
+            this.enemyDamage *= this.enemy.getCritMultiplier();
+        }
+        this.poisonDamage = 0;
+        if (!this.player.decreaseHp(this.enemyDamage)) {
+            return false;
+        }
+
+        // poison already in the player's blood burns, then this hit tops it back up
+        if (this.poisonTurnsLeft > 0) {
+            this.poisonTurnsLeft--;
+            this.poisonDamage = this.enemy.getPoisonDamage();
+            if (!this.player.decreaseHp(this.poisonDamage)) {
+                return false;
+            }
+        }
+        if (this.enemy.getPoisonTurns() > 0) {
+            this.poisonTurnsLeft = this.enemy.getPoisonTurns();
+        }
+        return true;
+    }
+
+    /**
+     * Reports the enemy's last hit, and the poison damage that followed it if there was any
+     */
+    private void emitEnemyHit() {
+        this.sink.onEvent(this.event.set(Type.ENEMY_HIT, this.enemy, this.enemyDamage, this.critical));
+        if (this.poisonDamage > 0) {
+            emit(Type.POISON, this.poisonDamage);
+        }
     }
 
     /**
-     * Returns a suitable String telling the player how much damage the enemy did
+     * Reports an event to the sink, reusing the one event object
      *
-     * @return A String telling the player how much damage the enemy did
+     * @param type What happened
+     * @param amount Damage, xp or level, depending on the type
      */
-    private String playerHitEnemyMessage() {
-        return "\nYou hit " + this.enemy.getName() + " for " + this.player.getStats().getDamage() + "HP.";
+    private void emit(Type type, int amount) {
+        this.sink.onEvent(this.event.set(type, this.enemy, amount, false));
     }
 
     /**
-     * Return a suitable String describing how much damage the enemy did to the player
+     * Returns the damage the player does per hit
      *
-     * @return A String describing how much damage the enemy did to the player
+     * @return The damage the player does per hit
      */
-    private String enemyHitPlayerMessage() {
-        return "\n" + this.enemy.getName() + " hits you for " + this.enemy.getDamage() + "HP.";
+    private int getPlayerDamage() {
+        return this.player.getStats().getDamage();
     }
 
     /**
@@ -119,7 +245,7 @@ public class Battle {
      * @return True if both player and enemy are still alive, else false
      */
     private boolean isOngoing() {
-        return player.isAlive() && enemy.isAlive();
+        return this.player.isAlive() && this.enemyAlive;
     }
 
     /**
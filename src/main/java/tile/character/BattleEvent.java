@@ -0,0 +1,96 @@
+package main.java.tile.character;
+
+/**
+ * Something that happened during a battle - a hit, a kill, a level up or a death.
+ * A Battle reuses one BattleEvent for everything it reports, so a sink must read what it needs
+ * from the event during onEvent and never hold on to it.
+ * 
+ * @version 1.0
+ * @author tp275
+ */
+public final class BattleEvent {
+
+    /**
+     * The kinds of thing that can happen in a battle
+     */
+    public enum Type {
+        // the player has met a living enemy
+        ENCOUNTER,
+        // the player has met an enemy that is already dead; nothing else happens
+        CORPSE,
+        // the player hit the enemy; amount = damage
+        PLAYER_HIT,
+        // the enemy hit the player; amount = damage, critical = whether it was a critical hit
+        ENEMY_HIT,
+        // poison hurt the player; amount = damage
+        POISON,
+        // the enemy was defeated; amount = xp gained
+        VICTORY,
+        // the player levelled up; amount = the new level
+        LEVEL_UP,
+        // the enemy killed the player
+        DEATH
+    }
+
+    // what happened
+    private Type type;
+    // the enemy the battle is against
+    private Enemy enemy;
+    // damage, xp or level, depending on the type
+    private int amount;
+    // whether an ENEMY_HIT was critical
+    private boolean critical;
+
+    /**
+     * Overwrites this event with a new one. Only Battle creates events.
+     * 
+     * @param type What happened
+     * @param enemy The enemy the battle is against
+     * @param amount Damage, xp or level, depending on the type
+     * @param critical Whether an ENEMY_HIT was critical
+     * @return This event, for passing straight to a sink
+     */
+    BattleEvent set(Type type, Enemy enemy, int amount, boolean critical) {
+        this.type = type;
+        this.enemy = enemy;
+        this.amount = amount;
+        this.critical = critical;
+        return this;
+    }
+
+    /**
+     * Returns what happened
+     * 
+     * @return What happened
+     */
+    public Type getType() {
+        return this.type;
+    }
+
+    /**
+     * Returns the enemy the battle is against
+     * 
+     * @return The enemy the battle is against
+     */
+    public Enemy getEnemy() {
+        return this.enemy;
+    }
+
+    /**
+     * Returns the damage, xp or level the event is about, depending on its type
+     * 
+     * @return The damage, xp or level the event is about
+     */
+    public int getAmount() {
+        return this.amount;
+    }
+
+    /**
+     * Returns whether an ENEMY_HIT was a critical hit
+     * 
+     * @return True if an ENEMY_HIT was a critical hit, else false
+     */
+    public boolean isCritical() {
+        return this.critical;
+    }
+}
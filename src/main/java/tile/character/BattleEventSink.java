@@ -0,0 +1,21 @@
+package main.java.tile.character;
+
+/**
+ * Receives the events of a battle as they happen. Plug one into a Player to watch battles
+ * without paying for them to be described in text.
+ * 
+ * @version 1.0
+ * @author tp275
+ */
+public interface BattleEventSink {
+
+    // a sink that ignores every event, for when nobody is watching
+    BattleEventSink IGNORE = event -> { };
+
+    /**
+     * Called for each event in a battle, in order. The event is reused afterwards, so must not be kept.
+     * 
+     * @param event What happened
+     */
+    void onEvent(BattleEvent event);
+}
@@ -0,0 +1,64 @@
+package main.java.tile.character;
+
+/**
+ * A BattleEventSink that describes each event in text, for the GUI's log to print.
+ * The text builds up until it is drained, and the buffer is reused for the next battle.
+ * 
+ * @version 1.0
+ * @author tp275
+ */
+public class BattleLog implements BattleEventSink {
+
+    // the description of the battle so far
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Appends a description of the given event to the text
+     * 
+     * @param event What happened
+     */
+    @Override
+    public void onEvent(BattleEvent event) {
+        Enemy enemy = event.getEnemy();
+        switch (event.getType()) {
+        case ENCOUNTER:
+            this.text.append("You encountered ").append(enemy.getName()).append(enemy.getDescription()).append(" Time to battle!");
+            break;
+        case CORPSE:
+            this.text.append("Here lies the corpse of ").append(enemy.getName());
+            break;
+        case PLAYER_HIT:
+            this.text.append("\nYou hit ").append(enemy.getName()).append(" for ").append(event.getAmount()).append("HP.");
+            break;
+        case ENEMY_HIT:
+            this.text.append("\n").append(enemy.getName())
+                .append(event.isCritical() ? " lands a critical hit! It hits you for " : " hits you for ")
+                .append(event.getAmount()).append("HP.");
+            break;
+        case POISON:
+            this.text.append("\nThe poison burns you for ").append(event.getAmount()).append("HP.");
+            break;
+        case VICTORY:
+            this.text.append("\n").append(enemy.getGoodbye());
+            this.text.append("\nYou were victorious! You gained ").append(event.getAmount()).append(" xp.");
+            break;
+        case LEVEL_UP:
+            this.text.append("\nYou levelled up! Your new level is ").append(event.getAmount());
+            break;
+        case DEATH:
+            this.text.append("\n").append(enemy.getName()).append(" killed you!");
+            break;
+        }
+    }
+
+    /**
+     * Returns the text describing everything since the last drain, and empties it ready for the next battle
+     * 
+     * @return The text describing the battle
+     */
+    public String drain() {
+        String result = this.text.toString();
+        this.text.setLength(0);
+        return result;
+    }
+}
@@ -0,0 +1,534 @@
+package main.java.tile.character;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The table of every enemy archetype, loaded once from bestiary.txt. Holds each archetype's names,
+ * descriptions and goodbyes, its stat curves and how likely it is to spawn in each dungeon.
+ * Everything is stored in flat arrays indexed by archetype, so an Enemy only needs to remember
+ * a few int indices into this table rather than its own Strings.
+ *
+ * @version 1.1
+ * @author tp275
+ */
+public final class Bestiary {
+
+    // the archetype used when no particular one is asked for - the first in the file
+    public static final int DEFAULT_ARCHETYPE = 0;
+    // the number of dungeon difficulty levels that spawn weights are given for
+    public static final int DIFFICULTIES = 5;
+    // where the table is loaded from, on the classpath
+    private static final String RESOURCE = "/main/res/bestiary.txt";
+
+    // the name of each archetype
+    private final String[] archetypeNames;
+
+    // every name, description and goodbye, grouped by archetype
+    private final String[] names;
+    private final String[] descriptions;
+    private final String[] goodbyes;
+    // where each archetype's group starts in the arrays above, and how big it is
+    private final int[] nameStart;
+    private final int[] nameCount;
+    private final int[] descriptionStart;
+    private final int[] descriptionCount;
+    private final int[] goodbyeStart;
+    private final int[] goodbyeCount;
+
+    // stat curves for each archetype
+    private final int[] hpBase;
+    private final int[] hpPerLevel;
+    private final int[] damageBase;
+    private final int[] damagePerLevel;
+    private final int[] xpPerDamage;
+
+    // abilities of each archetype: percent chance and multiplier of a critical hit,
+    // and damage per turn and duration of the poison its hits inflict
+    private final int[] critChance;
+    private final int[] critMultiplier;
+    private final int[] poisonDamage;
+    private final int[] poisonTurns;
+
+    // spawn weight of each archetype at each difficulty, at [difficulty * archetypes + archetype]
+    private final int[] spawnWeights;
+    // the sum of all archetypes' spawn weights at each difficulty
+    private final int[] spawnTotals;
+
+    /**
+     * Holds the one shared Bestiary, so it is loaded the first time it is needed and never again
+     */
+    private static final class Holder {
+        private static final Bestiary INSTANCE = loadResource();
+    }
+
+    /**
+     * Returns the shared Bestiary, loading it on first use
+     *
+     * @return The shared Bestiary
+     */
+    public static Bestiary get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Loads the bestiary from the classpath
+     *
+     * @return The loaded Bestiary
+     * @throws IllegalStateException if the file is missing or malformed
+     */
+    private static Bestiary loadResource() {
+        try (InputStream in = Bestiary.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Error: could not find bestiary file " + RESOURCE);
+            }
+            return load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error: could not read bestiary file", e);
+        }
+    }
+
+    /**
+     * Parses a bestiary, in the format described at the top of bestiary.txt, and compiles it into flat arrays
+     *
+     * @param in The stream to read the bestiary from
+     * @return The compiled Bestiary
+     * @throws IOException if the stream cannot be read
+     * @throws IllegalStateException if the bestiary is malformed, with the line number of the problem
+     */
+    public static Bestiary load(InputStream in) throws IOException {
+        Builder builder = new Builder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                builder.parseLine(line);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Error in bestiary at line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Stores the compiled arrays built by a Builder
+     */
+    private Bestiary(Builder b) {
+        int archetypes = b.archetypeNames.size();
+        this.archetypeNames = b.archetypeNames.toArray(new String[0]);
+        this.names = b.names.toArray(new String[0]);
+        this.descriptions = b.descriptions.toArray(new String[0]);
+        this.goodbyes = b.goodbyes.toArray(new String[0]);
+        this.nameStart = toArray(b.nameStart);
+        this.nameCount = toArray(b.nameCount);
+        this.descriptionStart = toArray(b.descriptionStart);
+        this.descriptionCount = toArray(b.descriptionCount);
+        this.goodbyeStart = toArray(b.goodbyeStart);
+        this.goodbyeCount = toArray(b.goodbyeCount);
+        this.hpBase = toArray(b.hpBase);
+        this.hpPerLevel = toArray(b.hpPerLevel);
+        this.damageBase = toArray(b.damageBase);
+        this.damagePerLevel = toArray(b.damagePerLevel);
+        this.xpPerDamage = toArray(b.xpPerDamage);
+        this.critChance = toArray(b.critChance);
+        this.critMultiplier = toArray(b.critMultiplier);
+        this.poisonDamage = toArray(b.poisonDamage);
+        this.poisonTurns = toArray(b.poisonTurns);
+
+        this.spawnWeights = new int[DIFFICULTIES * archetypes];
+        this.spawnTotals = new int[DIFFICULTIES];
+        for (int a = 0; a < archetypes; a++) {
+            int[] weights = b.spawn.get(a);
+            for (int d = 0; d < DIFFICULTIES; d++) {
+                this.spawnWeights[d * archetypes + a] = weights[d];
+                this.spawnTotals[d] += weights[d];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of archetypes in the bestiary
+     *
+     * @return The number of archetypes
+     */
+    public int getArchetypeCount() {
+        return this.archetypeNames.length;
+    }
+
+    /**
+     * Returns the name of the given archetype, eg. "Monster"
+     *
+     * @param archetype The archetype's index
+     * @return The archetype's name
+     */
+    public String getArchetypeName(int archetype) {
+        return this.archetypeNames[archetype];
+    }
+
+    /**
+     * Picks an archetype to spawn in a dungeon of the given difficulty, according to the spawn weights
+     *
+     * @param difficulty The difficulty of the dungeon, clamped to the range weights are given for
+     * @param random The stream to draw the choice from
+     * @return The index of the chosen archetype
+     */
+    public int pickArchetype(int difficulty, SplittableRandom random) {
+        int d = Math.max(0, Math.min(DIFFICULTIES - 1, difficulty));
+        int archetypes = this.archetypeNames.length;
+        int roll = random.nextInt(this.spawnTotals[d]);
+        for (int a = 0; a < archetypes; a++) {
+            roll -= this.spawnWeights[d * archetypes + a];
+            if (roll < 0) {
+                return a;
+            }
+        }
+        return DEFAULT_ARCHETYPE; // unreachable while the totals are right
+    }
+
+    /**
+     * Picks one of the given archetype's names at random
+     *
+     * @param archetype The archetype's index
+     * @param random The stream to draw the choice from
+     * @return The index of the name, for use with getName
+     */
+    public int pickName(int archetype, SplittableRandom random) {
+        return this.nameStart[archetype] + random.nextInt(this.nameCount[archetype]);
+    }
+
+    /**
+     * Picks one of the given archetype's descriptions at random
+     *
+     * @param archetype The archetype's index
+     * @param random The stream to draw the choice from
+     * @return The index of the description, for use with getDescription
+     */
+    public int pickDescription(int archetype, SplittableRandom random) {
+        return this.descriptionStart[archetype] + random.nextInt(this.descriptionCount[archetype]);
+    }
+
+    /**
+     * Picks one of the given archetype's goodbyes at random
+     *
+     * @param archetype The archetype's index
+     * @param random The stream to draw the choice from
+     * @return The index of the goodbye, for use with getGoodbye
+     */
+    public int pickGoodbye(int archetype, SplittableRandom random) {
+        return this.goodbyeStart[archetype] + random.nextInt(this.goodbyeCount[archetype]);
+    }
+
+    /**
+     * Returns the name at the given index
+     *
+     * @param index An index returned by pickName
+     * @return The name
+     */
+    public String getName(int index) {
+        return this.names[index];
+    }
+
+    /**
+     * Returns the description at the given index
+     *
+     * @param index An index returned by pickDescription
+     * @return The description
+     */
+    public String getDescription(int index) {
+        return this.descriptions[index];
+    }
+
+    /**
+     * Returns the goodbye at the given index
+     *
+     * @param index An index returned by pickGoodbye
+     * @return The goodbye
+     */
+    public String getGoodbye(int index) {
+        return this.goodbyes[index];
+    }
+
+    /**
+     * Returns the starting hitpoints of an enemy of the given archetype and level
+     *
+     * @param archetype The archetype's index
+     * @param level The enemy's level
+     * @return The enemy's starting hitpoints
+     */
+    public int getHp(int archetype, int level) {
+        return this.hpBase[archetype] + this.hpPerLevel[archetype] * level;
+    }
+
+    /**
+     * Returns the damage per hit of an enemy of the given archetype and level
+     *
+     * @param archetype The archetype's index
+     * @param level The enemy's level
+     * @return The enemy's damage per hit
+     */
+    public int getDamage(int archetype, int level) {
+        return this.damageBase[archetype] + this.damagePerLevel[archetype] * level;
+    }
+
+    /**
+     * Returns how much xp the given archetype gives per point of its damage
+     *
+     * @param archetype The archetype's index
+     * @return The xp given per point of damage
+     */
+    public int getXpPerDamage(int archetype) {
+        return this.xpPerDamage[archetype];
+    }
+
+    /**
+     * Returns the percent chance that a hit by the given archetype is critical
+     *
+     * @param archetype The archetype's index
+     * @return The percent chance (0-100) of a critical hit
+     */
+    public int getCritChance(int archetype) {
+        return this.critChance[archetype];
+    }
+
+    /**
+     * Returns what the given archetype's damage is multiplied by on a critical hit
+     *
+     * @param archetype The archetype's index
+     * @return The critical hit damage multiplier
+     */
+    public int getCritMultiplier(int archetype) {
+        return this.critMultiplier[archetype];
+    }
+
+    /**
+     * Returns the damage per turn of the poison the given archetype's hits inflict - 0 if not poisonous
+     *
+     * @param archetype The archetype's index
+     * @return The poison damage per turn
+     */
+    public int getPoisonDamage(int archetype) {
+        return this.poisonDamage[archetype];
+    }
+
+    /**
+     * Returns how many turns the poison inflicted by the given archetype lasts - 0 if not poisonous
+     *
+     * @param archetype The archetype's index
+     * @return The number of turns poison lasts
+     */
+    public int getPoisonTurns(int archetype) {
+        return this.poisonTurns[archetype];
+    }
+
+    /**
+     * Copies a list of Integers into an int[]
+     */
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Collects archetypes line by line while the file is parsed, and validates them
+     */
+    private static final class Builder {
+
+        private final List<String> archetypeNames = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<String> descriptions = new ArrayList<>();
+        private final List<String> goodbyes = new ArrayList<>();
+        private final List<Integer> nameStart = new ArrayList<>();
+        private final List<Integer> nameCount = new ArrayList<>();
+        private final List<Integer> descriptionStart = new ArrayList<>();
+        private final List<Integer> descriptionCount = new ArrayList<>();
+        private final List<Integer> goodbyeStart = new ArrayList<>();
+        private final List<Integer> goodbyeCount = new ArrayList<>();
+        private final List<Integer> hpBase = new ArrayList<>();
+        private final List<Integer> hpPerLevel = new ArrayList<>();
+        private final List<Integer> damageBase = new ArrayList<>();
+        private final List<Integer> damagePerLevel = new ArrayList<>();
+        private final List<Integer> xpPerDamage = new ArrayList<>();
+        private final List<Integer> critChance = new ArrayList<>();
+        private final List<Integer> critMultiplier = new ArrayList<>();
+        private final List<Integer> poisonDamage = new ArrayList<>();
+        private final List<Integer> poisonTurns = new ArrayList<>();
+        private final List<int[]> spawn = new ArrayList<>();
+
+        // whether an archetype is currently open, ie. between 'archetype' and 'end'
+        private boolean open = false;
+
+        /**
+         * Handles a single non-comment line of the file
+         */
+        void parseLine(String line) {
+            int space = line.indexOf(' ');
+            String keyword = (space < 0) ? line.trim() : line.substring(0, space);
+            String rest = (space < 0) ? "" : line.substring(space + 1);
+
+            if (keyword.equals("archetype")) {
+                if (this.open) {
+                    throw new IllegalArgumentException("'archetype' before 'end' of the previous one");
+                }
+                startArchetype(rest.trim());
+                return;
+            }
+            if (!this.open) {
+                throw new IllegalArgumentException("'" + keyword + "' outside of an archetype");
+            }
+            int a = this.archetypeNames.size() - 1;
+            switch (keyword) {
+            case "hp":
+                int[] hp = parseInts(rest, 2);
+                this.hpBase.set(a, hp[0]);
+                this.hpPerLevel.set(a, hp[1]);
+                break;
+            case "damage":
+                int[] damage = parseInts(rest, 2);
+                this.damageBase.set(a, damage[0]);
+                this.damagePerLevel.set(a, damage[1]);
+                break;
+            case "xp":
+                this.xpPerDamage.set(a, parseInts(rest, 1)[0]);
+                break;
+            case "crit":
+                int[] crit = parseInts(rest, 2);
+                if (crit[0] > 100 || crit[1] < 1) {
+                    throw new IllegalArgumentException("crit chance must be 0-100 and multiplier at least 1");
+                }
+                this.critChance.set(a, crit[0]);
+                this.critMultiplier.set(a, crit[1]);
+                break;
+            case "poison":
+                int[] poison = parseInts(rest, 2);
+                if ((poison[0] == 0) != (poison[1] == 0)) {
+                    throw new IllegalArgumentException("poison needs both damage and turns, or neither");
+                }
+                this.poisonDamage.set(a, poison[0]);
+                this.poisonTurns.set(a, poison[1]);
+                break;
+            case "spawn":
+                this.spawn.set(a, parseInts(rest, DIFFICULTIES));
+                break;
+            case "name":
+                this.names.add(rest);
+                this.nameCount.set(a, this.nameCount.get(a) + 1);
+                break;
+            case "description":
+                this.descriptions.add(rest);
+                this.descriptionCount.set(a, this.descriptionCount.get(a) + 1);
+                break;
+            case "goodbye":
+                this.goodbyes.add(rest);
+                this.goodbyeCount.set(a, this.goodbyeCount.get(a) + 1);
+                break;
+            case "end":
+                endArchetype(a);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown keyword '" + keyword + "'");
+            }
+        }
+
+        /**
+         * Opens a new archetype with default stats
+         */
+        private void startArchetype(String name) {
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("archetype has no name");
+            }
+            if (this.archetypeNames.contains(name)) {
+                throw new IllegalArgumentException("there is already an archetype called " + name);
+            }
+            this.open = true;
+            this.archetypeNames.add(name);
+            this.nameStart.add(this.names.size());
+            this.nameCount.add(0);
+            this.descriptionStart.add(this.descriptions.size());
+            this.descriptionCount.add(0);
+            this.goodbyeStart.add(this.goodbyes.size());
+            this.goodbyeCount.add(0);
+            this.hpBase.add(0);
+            this.hpPerLevel.add(3);
+            this.damageBase.add(0);
+            this.damagePerLevel.add(1);
+            this.xpPerDamage.add(5);
+            this.critChance.add(0);
+            this.critMultiplier.add(1);
+            this.poisonDamage.add(0);
+            this.poisonTurns.add(0);
+            this.spawn.add(new int[DIFFICULTIES]);
+        }
+
+        /**
+         * Closes the current archetype, checking it is usable
+         */
+        private void endArchetype(int a) {
+            String name = this.archetypeNames.get(a);
+            if (this.nameCount.get(a) == 0 || this.descriptionCount.get(a) == 0 || this.goodbyeCount.get(a) == 0) {
+                throw new IllegalArgumentException(name + " needs at least one name, description and goodbye");
+            }
+            if (this.hpBase.get(a) + this.hpPerLevel.get(a) <= 0 || this.damageBase.get(a) + this.damagePerLevel.get(a) <= 0) {
+                throw new IllegalArgumentException(name + " must have positive hp and damage from level 1");
+            }
+            this.open = false;
+        }
+
+        /**
+         * Parses exactly the given number of non-negative ints, separated by spaces
+         */
+        private static int[] parseInts(String text, int count) {
+            String[] parts = text.trim().split("\\s+");
+            if (parts.length != count) {
+                throw new IllegalArgumentException("expected " + count + " numbers but found " + parts.length);
+            }
+            int[] values = new int[count];
+            for (int i = 0; i < count; i++) {
+                try {
+                    values[i] = Integer.parseInt(parts[i]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("'" + parts[i] + "' is not a number");
+                }
+                if (values[i] < 0) {
+                    throw new IllegalArgumentException("'" + parts[i] + "' is negative");
+                }
+            }
+            return values;
+        }
+
+        /**
+         * Checks the bestiary as a whole, then compiles it
+         */
+        Bestiary build() {
+            if (this.open) {
+                throw new IllegalStateException("Error in bestiary: last archetype has no 'end'");
+            }
+            if (this.archetypeNames.isEmpty()) {
+                throw new IllegalStateException("Error in bestiary: no archetypes");
+            }
+            for (int d = 0; d < DIFFICULTIES; d++) {
+                int total = 0;
+                for (int[] weights : this.spawn) {
+                    total += weights[d];
+                }
+                if (total <= 0) {
+                    throw new IllegalStateException("Error in bestiary: nothing can spawn at difficulty " + d);
+                }
+            }
+            return new Bestiary(this);
+        }
+    }
+}
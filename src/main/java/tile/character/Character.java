@@ -10,7 +10,7 @@ import main.java.tile.Tile;
  * methods to set or increase/decrease them. 'goodbye' messages were removed with the Shopkeeper class -
  * there may need to be changes if this is added back in.
  * 
- * @version 1.0
+ * @version 1.1
  * @author tp275
  */
 public class Character extends Tile {
@@ -50,11 +50,23 @@ public class Character extends Tile {
         return this.hp;
     }
 
+    /**
+     * Sets the character's hitpoints to the given amount, used when restoring a previous state
+     *
+     * @param hp The hitpoints to set
+     */
+    void setHp(int hp) {
+        if (this.hp != hp) {
+            this.hp = hp;
+            hpChanged();
+        }
+    }
+
     /**
      * Sets the character's hitpoints with a formula dependent on level
      */
     public void resetHP() {
-        this.hp = level * 70;
+        setHp(level * 70);
     }
 
     /**
@@ -69,11 +81,18 @@ public class Character extends Tile {
             throw new InvalidParameterException("HP to decrease was <= 0");   
         } else if (this.hp - amount > 0) {
             this.hp -= amount;
+            hpChanged();
             return true;
         }
         return false;
     }
 
+    /**
+     * Called whenever the character's hitpoints change, eg. so the player can tell the HUD. Does nothing by default.
+     */
+    protected void hpChanged() {
+    }
+
     /**
      * Returns whether or not the character is alive
      *
@@ -1,67 +1,85 @@
 package main.java.tile.character;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * This class defines an enemy that can be stored within the floor plan
- * and encountered and fought by the player. Its name and description are randomly
- * chosen from lists defined within the class. It is a subclass of Character and
- * therefore has hp, a level and a living status to aid this as well as damage calculated here. 
- * 
- * @version 1.0
+ * and encountered and fought by the player. It belongs to one of the archetypes in the Bestiary,
+ * and its name, description and goodbye are randomly chosen from that archetype's lists.
+ * Only indices into the Bestiary are kept, not the Strings themselves. It is a subclass of Character and
+ * therefore has hp, a level and a living status to aid this, as well as damage taken from its archetype.
+ * An Enemy on a floor is shared by every game played on that floor's seed, so battles never change it:
+ * its hp is only the hp it starts each battle with, and its defeat is recorded by the player who defeated it.
+ *
+ * @version 2.1
  * @author tp275
  */
 public class Enemy extends Character {
 
-    // a Random object for use by this class
-    private final Random random = new Random();
-    // the 'goodbye' message for this Enemy
-    private String goodbye;
+    // the shared table of archetypes and their text
+    private static final Bestiary BESTIARY = Bestiary.get();
+
+    // the index of this Enemy's archetype in the Bestiary
+    private final int archetype;
+    // indices of this Enemy's name, description and 'goodbye' message in the Bestiary
+    private final int nameIndex;
+    private final int descriptionIndex;
+    private final int goodbyeIndex;
 
     /**
-     * The constructor automatically assigns the random name/description/goodbye
+     * Creates an Enemy of the default archetype, with its name/description/goodbye picked from an unseeded random stream
      *
      * @param level The Enemy's level
      */
     public Enemy(int level) {
+        this(level, Bestiary.DEFAULT_ARCHETYPE, new SplittableRandom());
+    }
+
+    /**
+     * Creates an Enemy of the given archetype, automatically assigning the random name/description/goodbye.
+     * The random stream is only borrowed, so it can be shared by every enemy on a floor.
+     *
+     * @param level The Enemy's level
+     * @param archetype The index of the Enemy's archetype in the Bestiary
+     * @param random The stream to draw the random choices from
+     */
+    public Enemy(int level, int archetype, SplittableRandom random) {
         super(level);
-        setName();
-        setDescription();
-        setGoodbye();
+        this.archetype = archetype;
+        this.nameIndex = BESTIARY.pickName(archetype, random);
+        this.descriptionIndex = BESTIARY.pickDescription(archetype, random);
+        this.goodbyeIndex = BESTIARY.pickGoodbye(archetype, random);
+        setHp(BESTIARY.getHp(archetype, level));
     }
 
     /**
-     * Sets a random enemy name from the list defined in the method
+     * Returns the index of this Enemy's archetype in the Bestiary
+     *
+     * @return The index of this Enemy's archetype
      */
-    private void setName() {
-        List<String> names = new ArrayList<>(Arrays.asList(
-                "Glarg", "Wharg", "Klang", "Blerp", "Herg", "Flumpk", "Drerf", "Karump", "Blarg", "Klerp"));
+    public int getArchetype() {
+        return this.archetype;
+    }
 
-        setName(getRandomListElement(names));
+    /**
+     * Returns the Enemy's name, as chosen from its archetype
+     *
+     * @return The Enemy's name
+     */
+    @Override
+    public String getName() {
+        return BESTIARY.getName(this.nameIndex);
     }
 
     /**
-     * Sets a random enemy description from the list defined in the method
+     * Returns the Enemy's description, as chosen from its archetype.
+     * Format: You encountered -name-, -description-.
+     *
+     * @return The Enemy's description
      */
-    private void setDescription() {
-        // Format: You encountered -name-, -description-.
-        List<String> descriptions = new ArrayList<>(Arrays.asList(
-                ", who is a very hairy monster.",
-                ", a terrifying beasty I must say.",
-                " - ew, slimy.",
-                ". He roars and stomps the ground. Uh-oh.",
-                ". \"Grr!\" they shout, very convincingly.",
-                ". It doesn't seem to like you.",
-                ". Watch out!",
-                ". Woah. Good luck!",
-                ", wow they look disgusting.",
-                ", who does not look happy to see you."
-                ));
-
-        setDescription(getRandomListElement(descriptions));
+    @Override
+    public String getDescription() {
+        return BESTIARY.getDescription(this.descriptionIndex);
     }
 
     /**
@@ -70,46 +88,60 @@ public class Enemy extends Character {
      * @return The set goodbye message for the enemy
      */
     public String getGoodbye() {
-        return this.goodbye;
+        return BESTIARY.getGoodbye(this.goodbyeIndex);
     }
 
     /**
-     * Sets a random enemy defeat message from the list defined in the method
+     * Returns the damage this enemy should do
+     *
+     * @return The damage this enemy should do per turn, from its archetype's damage curve
      */
-    private void setGoodbye() {
-        List<String> goodbyes = new ArrayList<>(Arrays.asList(
-                "The monster comes crashing to the floor...",
-                "Ka-chunk! Blergh!",
-                "Pow! Biff! Wallop! Knock out!"
-                ));
-
-        this.goodbye = getRandomListElement(goodbyes);
+    public int getDamage() {
+        return BESTIARY.getDamage(this.archetype, this.getLevel());
     }
 
     /**
-     * Returns a random element from a String list collection. Can handle any size that a Collection can.
+     * Returns the percent chance that this enemy's hit is critical
      *
-     * @return A random element from a String list collection
+     * @return The percent chance (0-100) of a critical hit
      */
-    private String getRandomListElement(List<String> list) {
-        return list.get(this.random.nextInt(list.size()));
+    public int getCritChance() {
+        return BESTIARY.getCritChance(this.archetype);
     }
-    
+
     /**
-     * Returns the damage this enemy should do
+     * Returns what this enemy's damage is multiplied by on a critical hit
      *
-     * @return The damage this enemy should do per turn - currently set at its level * 5
+     * @return The critical hit damage multiplier
      */
-    public int getDamage() {
-        return this.getLevel();
+    public int getCritMultiplier() {
+        return BESTIARY.getCritMultiplier(this.archetype);
+    }
+
+    /**
+     * Returns the damage per turn of the poison this enemy's hits inflict - 0 if it isn't poisonous
+     *
+     * @return The poison damage per turn
+     */
+    public int getPoisonDamage() {
+        return BESTIARY.getPoisonDamage(this.archetype);
+    }
+
+    /**
+     * Returns how many turns the poison this enemy inflicts lasts - 0 if it isn't poisonous
+     *
+     * @return The number of turns the poison lasts
+     */
+    public int getPoisonTurns() {
+        return BESTIARY.getPoisonTurns(this.archetype);
     }
 
     /**
-     * Returns the XP the player should gain on defeating this enemy - currently equal to the enemy's damage
+     * Returns the XP the player should gain on defeating this enemy - its damage times its archetype's xp multiplier
      *
      * @return The XP the player should gain on defeating this enemy
      */
     public int getXPOnDefeat() {
-        return getDamage() * 5;
+        return getDamage() * BESTIARY.getXpPerDamage(this.archetype);
     }
 }
@@ -1,76 +1,152 @@
 package main.java.tile.character;
 
 import java.awt.Point;
+import java.util.SplittableRandom;
 
 import main.java.locations.Dungeon;
 import main.java.locations.Floor;
 import main.java.locations.Map;
+import main.java.locations.RandomSource;
+import main.java.locations.WorldOverlay;
+import main.java.locations.WorldTemplates;
+import main.java.tile.Empty;
 import main.java.tile.Gold;
+import main.java.tile.Stairs;
+import main.java.tile.Start;
 import main.java.tile.Tile;
 
 /**
  * The Player object, containing the main playTile method, which carries out the relevant effects
  * on the player and gives the log a string to print
- * The map of the world, containing all Dungeon and Floor objects, is created, held and accessed here.
- * Also keeps track of the location of the player on the current floor.
+ * The map of the world, containing all Dungeon and Floor objects, is held and accessed here. It is shared
+ * with every other game on the same seed and never changed; what this player changes in it, such as which
+ * enemies they have defeated, is kept in their own WorldOverlay.
+ * Also keeps track of the location of the player on the current floor, as a row and column:
+ * a move is checked and made on those alone, without creating any objects.
+ * The current dungeon and floor are looked up once, when the player enters them, and kept to hand for every move.
+ * The stats shown on the HUD are tracked as they change, so the GUI only redraws the ones that did - see takeChangedStats.
  * 
- * @version 2.0
+ * @version 2.7
  * @author tp275
  */
 public class Player extends Character {
 
     // holds and provides methods for the player's xp, level and gold
     private final PlayerStats stats;
-    // the main Map object, holding all the dungeons and providing some utility methods
-    private final Map worldMap = new Map();
+    // the main Map object, holding all the dungeons and providing some utility methods - shared, never changed
+    private final Map worldMap;
+    // the tiles this player has cleared in the shared world
+    private final WorldOverlay overlay = new WorldOverlay();
+    // the seed the whole game was generated from
+    private final long seed;
+    // the entity ID the player's random stream is derived from
+    public static final long PLAYER_ENTITY_ID = 0;
+    // the player's own random stream, used for chance events in battle
+    private final SplittableRandom random;
     // records whether or not the player has won the game
     private boolean victory = false;
     // the id of the Dungeon object the player is currently in
     private int currentDungeonID;
     // the id of the Floor object the player is currently on
     private int currentFloorID;
-    // the current location of the player on the current floor
-    private Point floorLocation;
+    // the dungeon and floor with those IDs, looked up whenever the IDs change
+    private Dungeon currentDungeon;
+    private Floor currentFloor;
+    // the current location of the player on the current floor - the row, then the column
+    private int floorX;
+    private int floorY;
+    // the moves - one tile up, down, left or right. Every part of the game that numbers moves uses these
+    public static final int MOVE_UP = 0;
+    public static final int MOVE_DOWN = 1;
+    public static final int MOVE_LEFT = 2;
+    public static final int MOVE_RIGHT = 3;
+    // the number of moves
+    public static final int MOVES = 4;
+    // the row and column each move changes by, indexed by move
+    private static final int[] DX = { -1, 1, 0, 0 };
+    private static final int[] DY = { 0, 0, -1, 1 };
+    // one bit for each stat shown on the HUD, as returned by takeChangedStats
+    public static final int STAT_DUNGEON = 8;
+    public static final int STAT_FLOOR = 16;
+    public static final int STAT_HP = 32;
+    public static final int STAT_LEVEL = PlayerStats.LEVEL;
+    public static final int STAT_XP = PlayerStats.XP;
+    public static final int STAT_GOLD = PlayerStats.GOLD;
+    // the bits of the dungeon, floor and hp if they have changed since takeChangedStats was last called - the
+    // stats track their own
+    private int changedStats = STAT_DUNGEON | STAT_FLOOR | STAT_HP;
+    // how many turns the player is able to rewind
+    private static final int HISTORY_LENGTH = 100;
+    // remembers what recent turns changed, so they can be undone
+    private final TurnHistory history = new TurnHistory(HISTORY_LENGTH);
+    // runs every battle the player fights
+    private final Battle battle = new Battle(this);
+    // describes battles in text, for when nothing else is listening to them
+    private final BattleLog battleLog = new BattleLog();
+    // where battle events go - the battleLog, unless a headless caller has plugged in its own sink
+    private BattleEventSink battleSink = this.battleLog;
 
     /**
      * Creates a new PlayerStats object with the given player level, and sets
-     * the player's initial dungeon, floor, floor location and hp.
+     * the player's initial dungeon, floor, floor location and hp. The world is generated from a random seed.
      *
      * @param level The Player's level
      */
     public Player(int level) {
+        this(level, RandomSource.randomSeed());
+    }
+
+    /**
+     * Creates a new PlayerStats object with the given player level, finds the world generated from the given seed,
+     * and sets the player's initial dungeon, floor, floor location and hp.
+     * Two players created with the same level and seed play exactly the same game, in one shared world.
+     *
+     * @param level The Player's level
+     * @param seed The seed to generate the world from
+     */
+    public Player(int level, long seed) {
         super(level);
+        this.seed = seed;
+        this.worldMap = WorldTemplates.get(seed);
+        this.random = new RandomSource(seed).forEntity(PLAYER_ENTITY_ID);
         this.stats = new PlayerStats(level);
         this.currentDungeonID = 0;
         this.currentFloorID = 0;
+        enterCurrentFloor();
         resetHP();
         resetFloorLocation();
     }
 
     /**
      * May perform actions depending on the tile given, and returns a string for the ui's playTile
-     * method to print (or check for in the case of an enemy)
+     * method to print (or check for in the case of an enemy).
+     * The kind of tile is told by instanceof, not by its class's name, so playing a tile needs no reflection
      * 
      * @param tile The Tile to play
      * @return A descriptive String for the UI to print, or check for in the case of Enemy
      */
     public String playTile(Tile tile) {
-        switch (tile.getClass().getSimpleName()) {
-
-        case "Enemy":
-            // cast tile to Enemy
+        if (tile instanceof Enemy) {
+            // cast tile to Enemy and fight it
             Enemy enemy = (Enemy) tile;
-            // create battle
-            Battle battle = new Battle(this, enemy);
-            // start and print results
-            return battle.startBattle();
+            if (tile == getFloorTile()) {
+                // the enemy belongs to the shared world, so remember its defeat in the overlay rather than on it
+                long key = getFloorTileKey();
+                if (this.battle.fight(enemy, !this.overlay.isCleared(key), this.battleSink)) {
+                    this.overlay.clear(key);
+                }
+            } else {
+                this.battle.fight(enemy, this.battleSink);
+            }
+            // only describe the battle in text if nothing else is listening to it
+            return (this.battleSink == this.battleLog) ? this.battleLog.drain() : "";
 
-        case "Gold":
+        } else if (tile instanceof Gold) {
             Gold gold = (Gold)tile;
             stats.addGold(gold.getValue());
             return "There was " + gold.getValue() + " gold scattered here.";
 
-        case "Stairs":
+        } else if (tile instanceof Stairs) {
             // try to go down a floor. if there are no more floors to go to...
             if (!descendFloor()) {
                 // ...check if this is the last dungeon...
@@ -90,13 +166,23 @@ public class Player extends Character {
                 return "\nYou take the stairs, going down another floor...\n";
             }
 
-        case "Start":
+        } else if (tile instanceof Start) {
             return getCurrentDungeon().getIntro();
 
-        case "Empty":
+        } else if (tile instanceof Empty) {
             return tile.getDescription();
         }
-        return "Error: Player's playTile: end reached. Tile name = " + tile.getClass().getSimpleName();
+        return "Error: Player's playTile: end reached. Tile name = " + tile.getName();
+    }
+
+    /**
+     * Sends the events of the player's battles to the given sink instead of describing them in text.
+     * playTile then returns an empty String for battles. Pass null to go back to text.
+     * 
+     * @param sink Where to send battle events, or null for text
+     */
+    public void setBattleSink(BattleEventSink sink) {
+        this.battleSink = (sink == null) ? this.battleLog : sink;
     }
 
     /**
@@ -106,12 +192,103 @@ public class Player extends Character {
      * @return true if new location is valid, else false
      */
     public boolean updateLocation(Point direction) {
-        // create a copy of current location point 
-        Point clonedPoint = new Point(this.floorLocation.x, this.floorLocation.y);
-        // move in specified direction
-        clonedPoint.translate(direction.x, direction.y);
-        // check new location is valid, update current location if it is
-        return setFloorLocation(clonedPoint);
+        return updateLocation(direction.x, direction.y);
+    }
+
+    /**
+     * Returns the number of rows a move changes a location by
+     * 
+     * @param move The move - one of the MOVE constants
+     * @return -1, 0 or 1
+     */
+    public static int getMoveDX(int move) {
+        return DX[move];
+    }
+
+    /**
+     * Returns the number of columns a move changes a location by
+     * 
+     * @param move The move - one of the MOVE constants
+     * @return -1, 0 or 1
+     */
+    public static int getMoveDY(int move) {
+        return DY[move];
+    }
+
+    /**
+     * Makes one of the numbered moves, if the resulting location is valid
+     * 
+     * @param move The move - MOVE_UP, MOVE_DOWN, MOVE_LEFT or MOVE_RIGHT
+     * @return true if new location is valid, else false
+     */
+    public boolean move(int move) {
+        if (move < MOVE_UP || move > MOVE_RIGHT) {
+            throw new IllegalArgumentException("No such move: " + move);
+        }
+        return updateLocation(DX[move], DY[move]);
+    }
+
+    /**
+     * Updates the player's location on the floor by the given number of rows and columns, if the resulting location is valid
+     * 
+     * @param dx The number of rows to move by
+     * @param dy The number of columns to move by
+     * @return true if new location is valid, else false
+     */
+    public boolean updateLocation(int dx, int dy) {
+        int x = this.floorX + dx;
+        int y = this.floorY + dy;
+        // check new location is valid - if so, remember this turn and update current location
+        if (getCurrentFloor().isPassable(x, y)) {
+            this.history.record(this, getCurrentFloor().getTile(x, y), x, y);
+            this.floorX = x;
+            this.floorY = y;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Undoes the given number of turns, restoring the player (and any enemies defeated) to how they were before
+     *
+     * @param turns The number of turns to undo
+     * @return The number of turns actually undone, which is fewer than asked if the history runs out
+     */
+    public int rewind(int turns) {
+        return this.history.rewind(this, turns);
+    }
+
+    /**
+     * Returns the number of turns that can currently be rewound
+     *
+     * @return The number of turns that can currently be rewound
+     */
+    public int getRewindableTurns() {
+        return this.history.size();
+    }
+
+    /**
+     * Puts the player back into a previously recorded state. Used by TurnHistory when rewinding.
+     *
+     * @param x The floor row to return to
+     * @param y The floor column to return to
+     * @param dungeonID The ID of the dungeon to return to
+     * @param floorID The ID of the floor to return to
+     * @param hp The hitpoints to restore
+     * @param alive The living status to restore
+     * @param victory The victory flag to restore
+     */
+    void restoreState(int x, int y, int dungeonID, int floorID, int hp, boolean alive, boolean victory) {
+        if (dungeonID != this.currentDungeonID || floorID != this.currentFloorID) {
+            this.currentDungeonID = dungeonID;
+            this.currentFloorID = floorID;
+            enterCurrentFloor();
+        }
+        this.floorX = x;
+        this.floorY = y;
+        setHp(hp);
+        setAlive(alive);
+        this.victory = victory;
     }
 
     /**
@@ -120,9 +297,55 @@ public class Player extends Character {
      * @return The dungeon object that the player is currently in
      */
     public Dungeon getCurrentDungeon() {
-        return this.worldMap.getDungeonByID(currentDungeonID);
+        return this.currentDungeon;
     }
     
+    /**
+     * Returns the seed the game world was generated from
+     * 
+     * @return The seed the game world was generated from
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns the tiles this player has cleared in the shared world
+     * 
+     * @return The player's overlay on the world
+     */
+    WorldOverlay getOverlay() {
+        return this.overlay;
+    }
+
+    /**
+     * Returns whether the enemy at the given location on the current floor has been defeated in this game
+     * 
+     * @param location The enemy's location on the current floor
+     * @return True if this player has defeated the enemy there
+     */
+    public boolean isDefeated(Point location) {
+        return this.overlay.isCleared(WorldOverlay.key(this.currentDungeonID, this.currentFloorID, location.x, location.y));
+    }
+
+    /**
+     * Returns the overlay key of the tile the player is standing on
+     * 
+     * @return The overlay key of the player's current tile
+     */
+    private long getFloorTileKey() {
+        return WorldOverlay.key(this.currentDungeonID, this.currentFloorID, this.floorX, this.floorY);
+    }
+
+    /**
+     * Returns the player's random stream, which battles draw chance events from
+     * 
+     * @return The player's random stream
+     */
+    SplittableRandom getRandom() {
+        return this.random;
+    }
+
     /**
      * Returns the ID of the dungeon that the player is currently in
      * 
@@ -180,6 +403,7 @@ public class Player extends Character {
         if (id <= this.worldMap.getHowManyDungeons() && id >= 0) {
             this.currentDungeonID = id;
             this.currentFloorID = 0;
+            enterCurrentFloor();
             resetFloorLocation();
         } else {
             throw new IllegalArgumentException("The dungeon ID was not valid");
@@ -189,11 +413,12 @@ public class Player extends Character {
     /**
      * Attempts to change current floor to next floor in dungeon (ID+1)
      * 
-     * @return true if change is successful, false if floor ID is out of bounds (max. ID is dungeon's difficulty level)
+     * @return true if change is successful, false if floor ID is out of bounds (this is the dungeon's last floor)
      */
     private boolean descendFloor() {
-        if (this.currentFloorID+1 <= getCurrentFloor().getDifficulty()) {
+        if (this.currentFloorID+1 < getCurrentDungeon().getFloorCount()) {
             currentFloorID++;
+            enterCurrentFloor();
             resetFloorLocation(); // Reset start point
             return true;
         }
@@ -206,28 +431,56 @@ public class Player extends Character {
      * @return The Floor object that the player is currently on
      */
     private Floor getCurrentFloor() {
-        return this.getCurrentDungeon().getFloorByID(this.currentFloorID);
+        return this.currentFloor;
     }
 
     /**
-     * Sets the player's location on the current floor to be the given Point, if given Point is valid on the floor
-     * 
-     * @param location - The location on the floor to set as the player's location
-     * @return True if location is valid, else false
+     * Looks up the dungeon and floor with the current IDs, for getCurrentDungeon and getCurrentFloor to return
+     * until the player next changes floor
      */
-    private boolean setFloorLocation(Point location) {
-        if (getCurrentFloor().checkValidPlayerLocation(location)) {
-            this.floorLocation = location;
-            return true;
+    private void enterCurrentFloor() {
+        if (this.currentDungeon == null || this.currentDungeon.getID() != this.currentDungeonID) {
+            this.changedStats |= STAT_DUNGEON;
         }
-        return false;
+        this.changedStats |= STAT_FLOOR;
+        this.currentDungeon = this.worldMap.getDungeonByID(this.currentDungeonID);
+        this.currentFloor = this.currentDungeon.getFloorByID(this.currentFloorID);
     }
 
     /**
-     * Resets the player's floorLocation to the start tile
+     * Resets the player's location to the start tile
      */
     private void resetFloorLocation() {
-        this.floorLocation = getCurrentFloor().getStartPos();
+        this.floorX = getCurrentFloor().getStartX();
+        this.floorY = getCurrentFloor().getStartY();
+    }
+
+    /**
+     * Returns the player's current location on the current floor, as a new Point - use getFloorX and getFloorY
+     * where a move is being made
+     *
+     * @return The player's current location on the current floor
+     */
+    public Point getFloorLocation() {
+        return new Point(this.floorX, this.floorY);
+    }
+
+    /**
+     * Returns the row the player is on, on the current floor
+     *
+     * @return The player's row
+     */
+    public int getFloorX() {
+        return this.floorX;
+    }
+
+    /**
+     * Returns the column the player is on, on the current floor
+     *
+     * @return The player's column
+     */
+    public int getFloorY() {
+        return this.floorY;
     }
 
     /**
@@ -236,7 +489,7 @@ public class Player extends Character {
      * @return The floor Tile that the player is currently standing on
      */
     public Tile getFloorTile() {
-        return getCurrentFloor().getTileByPoint(this.floorLocation);
+        return getCurrentFloor().getTile(this.floorX, this.floorY);
     }
 
     /**
@@ -246,7 +499,7 @@ public class Player extends Character {
      * @return A string of the character representation of the floor plan
      */
     public String getPrintableMap() {
-        return getCurrentFloor().getFloorMap(this.floorLocation);
+        return getCurrentFloor().getFloorMap(this.floorX, this.floorY);
     }
 
     /**
@@ -273,4 +526,24 @@ public class Player extends Character {
     public PlayerStats getStats() {
         return this.stats;
     }
+
+    /**
+     * Notes that the player's hp has changed, for takeChangedStats
+     */
+    @Override
+    protected void hpChanged() {
+        this.changedStats |= STAT_HP;
+    }
+
+    /**
+     * Returns which of the stats shown on the HUD have changed since this was last called, and forgets them.
+     * Every stat counts as changed the first time it is called.
+     *
+     * @return The STAT_ bits of the stats that have changed
+     */
+    public int takeChangedStats() {
+        int changed = this.changedStats | this.stats.takeChanged();
+        this.changedStats = 0;
+        return changed;
+    }
 }
@@ -1,9 +1,10 @@
 package main.java.tile.character;
 
 /**
- * Holds relevant player stats - xp, level and amount of gold - and provides useful methods
+ * Holds relevant player stats - xp, level and amount of gold - and provides useful methods.
+ * Remembers which stats have changed since they were last asked about, so a display only redraws those.
  * 
- * @version 1.0
+ * @version 1.1
  * @author tp275
  */
 public class PlayerStats {
@@ -14,6 +15,12 @@ public class PlayerStats {
     private int level;
     // the amount of gold the player has
     private int gold;
+    // one bit for each stat, as used by takeChanged
+    public static final int LEVEL = 1;
+    public static final int XP = 2;
+    public static final int GOLD = 4;
+    // the bits of the stats that have changed since takeChanged was last called
+    private int changed = LEVEL | XP | GOLD;
 
     /**
      * Initially sets xp and gold to 0, and the level to the given parameter
@@ -40,8 +47,14 @@ public class PlayerStats {
      */
     private void incrementLevel() {
         this.level += 1;
+        this.changed |= LEVEL;
     }
-    
+
+    /**
+     * Returns the player's current xp
+     *
+     * @return The player's current xp
+     */
     public int getXp() {
         return this.xp;
     }
@@ -53,13 +66,18 @@ public class PlayerStats {
      * @return True if player has levelled up, else false
      */
     public boolean addXp(int xp) {
+        int before = this.xp;
         this.xp += xp;
+        boolean levelledUp = false;
         if ( xp > ((this.level+5) + (Math.pow(this.level, 2))) ) {
             incrementLevel();
             this.xp = 0;
-            return true;
+            levelledUp = true;
+        }
+        if (this.xp != before) {
+            this.changed |= XP;
         }
-        return false;
+        return levelledUp;
     }
 
     /**
@@ -77,7 +95,35 @@ public class PlayerStats {
      * @param gold Amount of gold to add to total gold
      */
     public void addGold(int gold) {
-        this.gold += gold;
+        if (gold != 0) {
+            this.gold += gold;
+            this.changed |= GOLD;
+        }
+    }
+
+    /**
+     * Overwrites all stats at once, used when rewinding turns
+     *
+     * @param xp The xp to restore
+     * @param level The level to restore
+     * @param gold The gold to restore
+     */
+    void restore(int xp, int level, int gold) {
+        this.changed |= (this.xp != xp ? XP : 0) | (this.level != level ? LEVEL : 0) | (this.gold != gold ? GOLD : 0);
+        this.xp = xp;
+        this.level = level;
+        this.gold = gold;
+    }
+
+    /**
+     * Returns which stats have changed since this was last called, and forgets them
+     *
+     * @return The LEVEL, XP and GOLD bits of the stats that have changed
+     */
+    int takeChanged() {
+        int stats = this.changed;
+        this.changed = 0;
+        return stats;
     }
 
     /**
@@ -0,0 +1,142 @@
+package main.java.tile.character;
+
+import main.java.locations.WorldOverlay;
+import main.java.tile.Tile;
+
+/**
+ * A bounded ring buffer holding, for each recent turn, the values that turn overwrote:
+ * the player's position, dungeon, floor, HP, XP, level and gold, plus any Enemy it moved onto
+ * that was still alive, so its defeat can be taken back out of the player's WorldOverlay. Rewinding a turn writes those values back, so it only costs as much as the turn changed.
+ * All storage is allocated up front - recording a turn never allocates.
+ *
+ * @version 1.2
+ * @author tp275
+ */
+public class TurnHistory {
+
+    // the maximum number of turns that can be remembered
+    private final int capacity;
+    // the slot the next turn will be recorded in
+    private int head = 0;
+    // how many turns are currently recorded
+    private int size = 0;
+
+    // the player's state before each recorded turn, one array per field
+    private final int[] x;
+    private final int[] y;
+    private final int[] dungeonID;
+    private final int[] floorID;
+    private final int[] hp;
+    private final int[] xp;
+    private final int[] level;
+    private final int[] gold;
+    private final boolean[] alive;
+    private final boolean[] victory;
+
+    // the overlay key of the living Enemy each turn moved onto, or NO_ENEMY
+    private final long[] enemyKey;
+    private static final long NO_ENEMY = -1;
+
+    /**
+     * Allocates storage for the given number of turns
+     *
+     * @param capacity The maximum number of turns that can be rewound
+     */
+    public TurnHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.x = new int[capacity];
+        this.y = new int[capacity];
+        this.dungeonID = new int[capacity];
+        this.floorID = new int[capacity];
+        this.hp = new int[capacity];
+        this.xp = new int[capacity];
+        this.level = new int[capacity];
+        this.gold = new int[capacity];
+        this.alive = new boolean[capacity];
+        this.victory = new boolean[capacity];
+        this.enemyKey = new long[capacity];
+    }
+
+    /**
+     * Records the player's current state, and the state of the tile it is about to play,
+     * as a new turn. Once full, the oldest turn is overwritten.
+     *
+     * @param player The Player whose state should be remembered
+     * @param destination The Tile the player is moving onto this turn
+     * @param destinationX The row the destination is on, on the player's current floor
+     * @param destinationY The column the destination is on
+     */
+    public void record(Player player, Tile destination, int destinationX, int destinationY) {
+        int slot = this.head;
+        this.x[slot] = player.getFloorX();
+        this.y[slot] = player.getFloorY();
+        this.dungeonID[slot] = player.getCurrentDungeonID();
+        this.floorID[slot] = player.getCurrentFloorID();
+        this.hp[slot] = player.getHp();
+        this.xp[slot] = player.getXp();
+        this.level[slot] = player.getLevel();
+        this.gold[slot] = player.getGold();
+        this.alive[slot] = player.isAlive();
+        this.victory[slot] = player.isVictorious();
+
+        this.enemyKey[slot] = NO_ENEMY;
+        if (destination instanceof Enemy) {
+            long key = WorldOverlay.key(player.getCurrentDungeonID(), player.getCurrentFloorID(),
+                    destinationX, destinationY);
+            if (!player.getOverlay().isCleared(key)) {
+                this.enemyKey[slot] = key;
+            }
+        }
+
+        this.head = (slot + 1) % this.capacity;
+        if (this.size < this.capacity) {
+            this.size++;
+        }
+    }
+
+    /**
+     * Undoes up to the given number of turns, most recent first
+     *
+     * @param player The Player to restore
+     * @param turns The number of turns to undo
+     * @return The number of turns actually undone - fewer than asked if the history runs out
+     */
+    public int rewind(Player player, int turns) {
+        int undone = 0;
+        while (undone < turns && this.size > 0) {
+            int slot = (this.head - 1 + this.capacity) % this.capacity;
+            player.restoreState(this.x[slot], this.y[slot], this.dungeonID[slot], this.floorID[slot],
+                    this.hp[slot], this.alive[slot], this.victory[slot]);
+            player.getStats().restore(this.xp[slot], this.level[slot], this.gold[slot]);
+
+            if (this.enemyKey[slot] != NO_ENEMY) {
+                player.getOverlay().restore(this.enemyKey[slot]);
+            }
+
+            this.head = slot;
+            this.size--;
+            undone++;
+        }
+        return undone;
+    }
+
+    /**
+     * Returns the number of turns that can currently be rewound
+     *
+     * @return The number of turns that can currently be rewound
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Forgets all recorded turns
+     */
+    public void clear() {
+        this.head = 0;
+        this.size = 0;
+    }
+}
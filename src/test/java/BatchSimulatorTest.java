@@ -0,0 +1,108 @@
+package test.java;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import main.java.locations.Floor;
+import main.java.sim.BatchSimulator;
+import main.java.tile.Stairs;
+import main.java.tile.character.BattleEventSink;
+import main.java.tile.character.Player;
+
+/**
+ * Contains tests covering the BatchSimulator
+ * 
+ * @version 1.0
+ * @author tp275
+ */
+class BatchSimulatorTest {
+
+    /**
+     * Plays the same random moves in the batch simulator and in Player objects,
+     * and tests that every game's state matches after every tick
+     */
+    @Test
+    void batchShouldMatchObjectEngine() {
+        int games = 64;
+        int ticks = 1000;
+        Point[] directions = { new Point(-1, 0), new Point(1, 0), new Point(0, -1), new Point(0, 1) };
+        BatchSimulator batch = new BatchSimulator(games);
+        Player[] players = new Player[games];
+        for (int game = 0; game < games; game++) {
+            long seed = game % 8; // some games share a world
+            batch.reset(game, seed);
+            players[game] = new Player(1, seed);
+            players[game].setBattleSink(BattleEventSink.IGNORE);
+        }
+
+        SplittableRandom random = new SplittableRandom(7);
+        int[] moves = new int[games];
+        for (int tick = 0; tick < ticks; tick++) {
+            for (int game = 0; game < games; game++) {
+                // mostly head for the stairs, so games reach the later dungeons and their deadlier enemies
+                int toStairs = moveTowardStairs(players[game], directions);
+                moves[game] = (toStairs < 0 || random.nextInt(4) == 0) ? random.nextInt(4) : toStairs;
+            }
+            batch.step(moves);
+            for (int game = 0; game < games; game++) {
+                Player player = players[game];
+                if (player.isAlive() && player.updateLocation(directions[moves[game]])) {
+                    player.playTile(player.getFloorTile());
+                }
+                assertSameState(player, batch, game);
+            }
+        }
+    }
+
+    /**
+     * Returns the first move of a shortest path from the player to the stairs on their floor
+     *
+     * @param player The player
+     * @param directions The moves, as vectors
+     * @return The index of the move, or -1 if the stairs can't be reached
+     */
+    private int moveTowardStairs(Player player, Point[] directions) {
+        Floor floor = player.getCurrentDungeon().getFloorByID(player.getCurrentFloorID());
+        HashMap<Point, Integer> firstMove = new HashMap<>();
+        ArrayDeque<Point> queue = new ArrayDeque<>();
+        firstMove.put(player.getFloorLocation(), -1);
+        queue.add(player.getFloorLocation());
+        while (!queue.isEmpty()) {
+            Point point = queue.poll();
+            if (floor.getTileByPoint(point) instanceof Stairs) {
+                return firstMove.get(point);
+            }
+            for (int move = 0; move < directions.length; move++) {
+                Point next = new Point(point.x + directions[move].x, point.y + directions[move].y);
+                if (floor.checkValidPlayerLocation(next) && !firstMove.containsKey(next)) {
+                    firstMove.put(next, (firstMove.get(point) < 0) ? move : firstMove.get(point));
+                    queue.add(next);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Asserts that a game in the batch is in the same state as the given player
+     */
+    private void assertSameState(Player player, BatchSimulator batch, int game) {
+        assertEquals(player.getFloorLocation().x, batch.getX(game));
+        assertEquals(player.getFloorLocation().y, batch.getY(game));
+        assertEquals(player.getCurrentDungeonID(), batch.getDungeon(game));
+        assertEquals(player.getCurrentFloorID(), batch.getFloor(game));
+        assertEquals(player.getHp(), batch.getHp(game));
+        assertEquals(player.getXp(), batch.getXp(game));
+        assertEquals(player.getLevel(), batch.getLevel(game));
+        assertEquals(player.getGold(), batch.getGold(game));
+        byte status = player.isVictorious() ? BatchSimulator.VICTORIOUS
+                : player.isAlive() ? BatchSimulator.PLAYING : BatchSimulator.DEAD;
+        assertEquals(status, batch.getStatus(game));
+    }
+}
@@ -0,0 +1,197 @@
+package test.java;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import main.java.tile.character.Battle;
+import main.java.tile.character.BattleEvent;
+import main.java.tile.character.BattleEvent.Type;
+import main.java.tile.character.BattleEventSink;
+import main.java.tile.character.Bestiary;
+import main.java.tile.character.Enemy;
+import main.java.tile.character.Player;
+
+/**
+ * Contains tests covering battles: critical hits, poison, and a Battle being reused from one enemy to the next
+ *
+ * @version 1.0
+ * @author tp275
+ */
+class BattleTest {
+
+    // the player fighting, on a fixed seed so the critical hits rolled are always the same
+    private Player player;
+    // the player's battle, reused for every enemy as the player reuses theirs
+    private Battle battle;
+    // the events of the last battle fought
+    private final List<Recorded> events = new ArrayList<>();
+    // copies each event, as the battle reuses the one event object
+    private final BattleEventSink recorder = event -> this.events.add(new Recorded(event));
+
+    /**
+     * One event of a battle, copied out of the reused BattleEvent
+     */
+    private static final class Recorded {
+        final Type type;
+        final int amount;
+        final boolean critical;
+
+        Recorded(BattleEvent event) {
+            this.type = event.getType();
+            this.amount = event.getAmount();
+            this.critical = event.isCritical();
+        }
+    }
+
+    /**
+     * Creates a level 1 player on a fixed seed, and their battle
+     */
+    @BeforeEach
+    void setUp() {
+        this.player = new Player(1, 42L);
+        this.player.setBattleSink(BattleEventSink.IGNORE);
+        this.battle = new Battle(this.player);
+    }
+
+    /**
+     * Fights many goblins, which land critical hits, and tests that every critical hit does the enemy's damage
+     * times its multiplier and every other hit its plain damage, and that both happen. Then fights monsters,
+     * which have no critical chance, and tests that they never land one.
+     */
+    @Test
+    void criticalHitsShouldMultiplyDamage() {
+        Enemy goblin = enemy("Goblin", 5);
+        assertTrue(goblin.getCritChance() > 0);
+        int crits = 0;
+        int plain = 0;
+        for (int i = 0; i < 30; i++) {
+            fight(goblin);
+            for (Recorded event : this.events) {
+                if (event.type == Type.ENEMY_HIT) {
+                    int expected = event.critical ? goblin.getDamage() * goblin.getCritMultiplier() : goblin.getDamage();
+                    assertEquals(expected, event.amount);
+                    if (event.critical) {
+                        crits++;
+                    } else {
+                        plain++;
+                    }
+                }
+            }
+        }
+        assertTrue(crits > 0, "some of the goblins' hits should be critical");
+        assertTrue(plain > crits, "most of the goblins' hits should not be critical");
+
+        Enemy monster = enemy("Monster", 5);
+        assertEquals(0, monster.getCritChance());
+        for (int i = 0; i < 10; i++) {
+            fight(monster);
+            for (Recorded event : this.events) {
+                assertFalse(event.critical);
+            }
+        }
+    }
+
+    /**
+     * Fights spiders, whose hits poison, and tests that the poison first burns on the enemy turn after the first
+     * hit, then once after every hit the player survives - each hit poisons for the archetype's number of turns
+     * again, so the poison never runs out mid-battle - and that the hp lost is exactly the hits and poison reported
+     */
+    @Test
+    void poisonShouldTickOnEveryEnemyTurnAfterTheFirstHit() {
+        Enemy spider = enemy("Spider", 20);
+        assertTrue(spider.getPoisonTurns() > 0);
+        for (int i = 0; i < 10; i++) {
+            int hpBefore = this.player.getHp();
+            fight(spider);
+            int hits = 0;
+            int ticks = 0;
+            int expectedTicks = 0;
+            int lost = 0;
+            for (int e = 0; e < this.events.size(); e++) {
+                Recorded event = this.events.get(e);
+                if (event.type == Type.ENEMY_HIT) {
+                    hits++;
+                    lost += event.amount;
+                    // the poison from earlier hits burns straight after this one - never after the first,
+                    // nor after a hit that kills the player
+                    Type next = (e + 1 < this.events.size()) ? this.events.get(e + 1).type : null;
+                    boolean shouldBurn = hits > 1 && next != Type.DEATH;
+                    assertEquals(shouldBurn, next == Type.POISON, "hit " + hits + " of battle " + i);
+                    if (shouldBurn) {
+                        expectedTicks++;
+                    }
+                } else if (event.type == Type.POISON) {
+                    ticks++;
+                    lost += event.amount;
+                    assertEquals(spider.getPoisonDamage(), event.amount);
+                }
+            }
+            assertTrue(hits > 1, "each battle should last long enough for the poison to burn");
+            assertEquals(expectedTicks, ticks);
+            if (this.player.isAlive()) {
+                assertEquals(hpBefore - lost, this.player.getHp());
+            }
+        }
+    }
+
+    /**
+     * Leaves the player poisoned at the end of a battle, then tests that the same Battle fighting an enemy that
+     * doesn't poison reports no poison, and that the next poisonous enemy's first hit isn't followed by any either
+     */
+    @Test
+    void poisonShouldNotCarryIntoTheNextBattle() {
+        Enemy spider = enemy("Spider", 20);
+        fight(spider);
+        assertTrue(this.events.stream().anyMatch(event -> event.type == Type.POISON), "the player should be poisoned");
+
+        fight(enemy("Monster", 3));
+        assertTrue(this.events.stream().noneMatch(event -> event.type == Type.POISON),
+                "poison from the last battle should not burn in this one");
+
+        fight(spider);
+        int firstHit = -1;
+        for (int e = 0; e < this.events.size() && firstHit < 0; e++) {
+            if (this.events.get(e).type == Type.ENEMY_HIT) {
+                firstHit = e;
+            }
+        }
+        assertTrue(firstHit >= 0);
+        assertTrue(firstHit + 1 == this.events.size() || this.events.get(firstHit + 1).type != Type.POISON,
+                "the first hit of a new battle should not be followed by poison");
+    }
+
+    /**
+     * Fights an enemy with the player at full health, recording the battle's events
+     *
+     * @param enemy The enemy to fight
+     */
+    private void fight(Enemy enemy) {
+        this.player.setAlive(true);
+        this.player.resetHP();
+        this.events.clear();
+        this.battle.fight(enemy, true, this.recorder);
+    }
+
+    /**
+     * Creates an enemy of the named archetype
+     *
+     * @param archetype The archetype's name in the bestiary
+     * @param level The enemy's level
+     * @return The enemy
+     */
+    private static Enemy enemy(String archetype, int level) {
+        Bestiary bestiary = Bestiary.get();
+        for (int a = 0; a < bestiary.getArchetypeCount(); a++) {
+            if (bestiary.getArchetypeName(a).equals(archetype)) {
+                return new Enemy(level, a, new SplittableRandom(a));
+            }
+        }
+        throw new IllegalArgumentException("no archetype " + archetype);
+    }
+}
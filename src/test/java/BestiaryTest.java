@@ -0,0 +1,143 @@
+package test.java;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import main.java.tile.character.Bestiary;
+
+/**
+ * Contains tests covering the bestiary file and the tables compiled from it
+ *
+ * @version 1.0
+ * @author tp275
+ */
+class BestiaryTest {
+
+    // a small bestiary: one archetype with every stat given, and one left to the defaults
+    private static final String TABLE = "# two archetypes\n"
+            + "archetype Bat\n"
+            + "hp 2 4\n"
+            + "damage 1 2\n"
+            + "xp 7\n"
+            + "crit 25 3\n"
+            + "poison 2 5\n"
+            + "spawn 1 0 0 0 3\n"
+            + "name Flappy\n"
+            + "name  Squeaky\n"
+            + "description a bat.\n"
+            + "goodbye Gone!\n"
+            + "end\n"
+            + "\n"
+            + "archetype Blob\n"
+            + "spawn 0 1 1 1 0\n"
+            + "name Blob\n"
+            + "description a blob.\n"
+            + "goodbye Splat.\n"
+            + "end\n";
+
+    /**
+     * Loads a small table, and tests that each archetype's stats, abilities and text compile as written,
+     * with the defaults where nothing is given
+     */
+    @Test
+    void tableShouldCompileAsWritten() throws IOException {
+        Bestiary bestiary = load(TABLE);
+        assertEquals(2, bestiary.getArchetypeCount());
+        assertEquals("Bat", bestiary.getArchetypeName(0));
+        assertEquals("Blob", bestiary.getArchetypeName(1));
+
+        assertEquals(2 + 4 * 3, bestiary.getHp(0, 3));
+        assertEquals(1 + 2 * 3, bestiary.getDamage(0, 3));
+        assertEquals(7, bestiary.getXpPerDamage(0));
+        assertEquals(25, bestiary.getCritChance(0));
+        assertEquals(3, bestiary.getCritMultiplier(0));
+        assertEquals(2, bestiary.getPoisonDamage(0));
+        assertEquals(5, bestiary.getPoisonTurns(0));
+
+        // the defaults: hp 0 3, damage 0 1, xp 5, no crit, no poison
+        assertEquals(3 * 4, bestiary.getHp(1, 4));
+        assertEquals(4, bestiary.getDamage(1, 4));
+        assertEquals(5, bestiary.getXpPerDamage(1));
+        assertEquals(0, bestiary.getCritChance(1));
+        assertEquals(1, bestiary.getCritMultiplier(1));
+        assertEquals(0, bestiary.getPoisonDamage(1));
+        assertEquals(0, bestiary.getPoisonTurns(1));
+
+        // text is kept after the single space following the keyword, and each archetype only picks its own
+        SplittableRandom random = new SplittableRandom(1L);
+        for (int i = 0; i < 50; i++) {
+            String name = bestiary.getName(bestiary.pickName(0, random));
+            assertTrue(name.equals("Flappy") || name.equals(" Squeaky"), name);
+            assertEquals("Blob", bestiary.getName(bestiary.pickName(1, random)));
+            assertEquals("a blob.", bestiary.getDescription(bestiary.pickDescription(1, random)));
+            assertEquals("Gone!", bestiary.getGoodbye(bestiary.pickGoodbye(0, random)));
+        }
+    }
+
+    /**
+     * Tests that archetypes spawn only at the difficulties they have weight at, and that difficulties
+     * beyond those given use the nearest
+     */
+    @Test
+    void archetypesShouldSpawnByTheirWeights() throws IOException {
+        Bestiary bestiary = load(TABLE);
+        SplittableRandom random = new SplittableRandom(2L);
+        int[] atFour = new int[2];
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, bestiary.pickArchetype(0, random));
+            assertEquals(1, bestiary.pickArchetype(2, random));
+            assertEquals(0, bestiary.pickArchetype(-3, random));
+            atFour[bestiary.pickArchetype(Bestiary.DIFFICULTIES + 10, random)]++;
+        }
+        assertEquals(1000, atFour[0], "only the bat has weight at the highest difficulty");
+    }
+
+    /**
+     * Tests that mistakes in a bestiary file are reported with the line they are on
+     */
+    @Test
+    void malformedBestiaryShouldReportItsLine() {
+        assertLoadFails("line 3", "archetype Bat\nhp 1 2\nhp 1 x\nend\n"); // a bad number
+        assertLoadFails("line 2", "archetype Bat\nhp 2\nend\n"); // too few numbers
+        assertLoadFails("line 2", "archetype Bat\ndamage -1 2\nend\n"); // negative
+        assertLoadFails("line 2", "archetype Bat\ncrit 101 2\nend\n"); // chance over 100
+        assertLoadFails("line 2", "archetype Bat\npoison 2 0\nend\n"); // poison without turns
+        assertLoadFails("line 4", "archetype Bat\nname Flappy\ndescription a bat.\nend\n"); // no goodbye
+        assertLoadFails("line 6", "archetype Bat\nhp 0 0\nname A\ndescription b\ngoodbye C\nend\n"); // no hp
+        assertLoadFails("line 7", "archetype Bat\nspawn 1 1 1 1 1\nname A\ndescription b\ngoodbye C\nend\n"
+                + "archetype Bat\n"); // a duplicate archetype
+        assertLoadFails("line 1", "hp 1 1\n"); // outside an archetype
+        assertLoadFails("line 2", "archetype Bat\nwings 2\nend\n"); // unknown keyword
+        assertLoadFails("line 2", "archetype Bat\narchetype Cat\n"); // no 'end'
+        assertLoadFails("no 'end'", "archetype Bat\n");
+        assertLoadFails("no archetypes", "# nothing here\n");
+        assertLoadFails("difficulty 1", "archetype Bat\nspawn 1 0 1 1 1\nname A\ndescription b\ngoodbye C\nend\n");
+    }
+
+    /**
+     * Loads a bestiary from text
+     *
+     * @param text The bestiary file's contents
+     * @return The loaded Bestiary
+     */
+    private Bestiary load(String text) throws IOException {
+        return Bestiary.load(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Tests that a bestiary fails to load, with the given text in the message
+     *
+     * @param expected Text the error message should contain
+     * @param text The bestiary file's contents
+     */
+    private void assertLoadFails(String expected, String text) {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> load(text));
+        assertTrue(e.getMessage().contains(expected), e.getMessage());
+    }
+}
@@ -0,0 +1,112 @@
+package test.java;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import main.java.locations.Campaign;
+import main.java.locations.Dungeon;
+import main.java.locations.Map;
+import main.java.locations.RandomSource;
+
+/**
+ * Contains tests covering the campaign file and the worlds made from it
+ * 
+ * @version 1.1
+ * @author tp275
+ */
+class CampaignTest {
+
+    /**
+     * Tests that campaign.txt describes the four dungeons the game has always had
+     */
+    @Test
+    void shippedCampaignShouldHaveFourDungeons() {
+        Campaign campaign = Campaign.get();
+        assertEquals(Map.DEFAULT_DUNGEONS, campaign.getDungeonCount());
+        for (int d = 0; d < campaign.getDungeonCount(); d++) {
+            assertEquals(d, campaign.getDifficulty(d));
+            assertEquals(d + 1, campaign.getFloorCount(d));
+            assertEquals("/main/res/dungeon" + d + ".jpg", campaign.getImage(d));
+        }
+        assertTrue(campaign.getIntro(0).contains("Caverns of Adoddle"));
+    }
+
+    /**
+     * Tests that a long campaign made with 'repeat' starts without generating its dungeons, and that each
+     * dungeon is generated once, the first time it is asked for, from the block it is in
+     */
+    @Test
+    void repeatedDungeonsShouldBeGeneratedWhenFirstAskedFor() throws IOException {
+        Campaign campaign = load("dungeon Shallows\ndifficulty 0\nfloors 2\nimage dungeon0.jpg\nintro In.\nrepeat 999\nend\n"
+                + "dungeon Depths\ndifficulty 3\nimage dungeon3.jpg\nintro Down.\nend\n");
+        assertEquals(1000, campaign.getDungeonCount());
+        assertEquals(2, campaign.getFloorCount(998));
+        assertEquals(4, campaign.getFloorCount(999));
+        assertEquals("Down.", campaign.getIntro(999));
+
+        Map world = new Map(new RandomSource(7L), campaign);
+        assertEquals(1000, world.getHowManyDungeons());
+        Dungeon last = world.getDungeonByID(999);
+        assertSame(last, world.getDungeonByID(999));
+        assertTrue(last.isLastDungeon());
+        assertEquals(3, last.getDifficulty());
+        assertEquals(4, last.getFloorCount());
+        assertFalse(world.getDungeonByID(500).isLastDungeon());
+        assertNull(world.getDungeonByID(1000));
+    }
+
+    /**
+     * Tests that stretching the campaign spreads its dungeons evenly, as a map with more dungeons than the file always has
+     */
+    @Test
+    void stretchedCampaignShouldSpreadDungeonsEvenly() {
+        Campaign campaign = Campaign.get().stretch(10);
+        assertEquals(10, campaign.getDungeonCount());
+        for (int d = 0; d < 10; d++) {
+            assertEquals(d * Map.DIFFICULTY_LEVELS / 10, campaign.getDifficulty(d));
+        }
+        assertEquals(2, Campaign.get().stretch(2).getDifficulty(1));
+    }
+
+    /**
+     * Tests that mistakes in a campaign file are reported with the line they are on
+     */
+    @Test
+    void malformedCampaignShouldReportItsLine() {
+        assertLoadFails("line 3", "dungeon A\ndifficulty 0\ndifficulty 9\nend\n");
+        assertLoadFails("line 2", "# a comment\nfloors 2\n");
+        assertLoadFails("line 4", "dungeon A\ndifficulty 0\nintro Hi\nimage nowhere.jpg\nend\n");
+        assertLoadFails("line 2", "dungeon A\nrepeat 0\nend\n");
+        assertLoadFails("line 5", "dungeon A\ndifficulty 1\n\nimage dungeon1.jpg\nend\n");
+        assertLoadFails("no dungeons", "# nothing here\n");
+        assertLoadFails("no 'end'", "dungeon A\ndifficulty 0\n");
+        assertLoadFails("more than " + Map.MAX_DUNGEONS + " dungeons",
+                "dungeon A\ndifficulty 0\nimage dungeon0.jpg\nintro Hi\nrepeat " + (Map.MAX_DUNGEONS + 1) + "\nend\n");
+    }
+
+    /**
+     * Loads a campaign from text
+     * 
+     * @param text The campaign file's contents
+     * @return The loaded Campaign
+     */
+    private Campaign load(String text) throws IOException {
+        return Campaign.load(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Tests that a campaign fails to load, with the given text in the message
+     * 
+     * @param expected Text the error message should contain
+     * @param text The campaign file's contents
+     */
+    private void assertLoadFails(String expected, String text) {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> load(text));
+        assertTrue(e.getMessage().contains(expected), e.getMessage());
+    }
+}
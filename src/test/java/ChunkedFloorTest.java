@@ -0,0 +1,90 @@
+package test.java;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import main.java.locations.ChunkStore;
+import main.java.locations.ChunkedFloor;
+
+/**
+ * Contains tests covering endless floors
+ *
+ * @version 1.1
+ * @author tp275
+ */
+class ChunkedFloorTest {
+
+    @TempDir
+    Path folder;
+
+    /**
+     * Walks far away from the start and back, and tests that the chunks dropped on the way come back as they were,
+     * that a change to a tile survives its chunk being dropped, and that no more chunks are loaded than the capacity
+     */
+    @Test
+    void chunksShouldComeBackAsTheyWereLeft() throws IOException {
+        // chunks are made on this thread, so each arrives as soon as it is asked for
+        ChunkedFloor floor = new ChunkedFloor(99L, 3, 1, new ChunkStore(this.folder), Runnable::run);
+        ChunkedFloor fresh = new ChunkedFloor(99L, 3, 1, new ChunkStore(this.folder.resolve("fresh")), Runnable::run);
+        floor.setCentre(ChunkedFloor.START_X, ChunkedFloor.START_Y);
+        fresh.setCentre(ChunkedFloor.START_X, ChunkedFloor.START_Y);
+        assertEquals('s', floor.getTile(ChunkedFloor.START_X, ChunkedFloor.START_Y));
+
+        byte[] before = new byte[64 * 64];
+        for (int i = 0; i < before.length; i++) {
+            before[i] = floor.getTile(i / 64, i % 64);
+            assertEquals(before[i], fresh.getTile(i / 64, i % 64));
+        }
+        floor.setTile(5, 7, (byte) 'g');
+
+        // walk west along the middle corridor, well past where anything near the start could still be kept
+        for (int y = ChunkedFloor.START_Y; y > -64 * 40; y--) {
+            floor.setCentre(ChunkedFloor.START_X, y);
+            assertTrue(floor.isPassable(ChunkedFloor.START_X, y));
+            assertTrue(floor.getLoadedChunkCount() <= floor.getCapacity());
+        }
+        assertEquals(ChunkedFloor.UNLOADED, floor.getTile(ChunkedFloor.START_X, ChunkedFloor.START_Y));
+
+        floor.setCentre(ChunkedFloor.START_X, ChunkedFloor.START_Y);
+        assertEquals('g', floor.getTile(5, 7));
+        for (int i = 0; i < before.length; i++) {
+            if (i != 5 * 64 + 7) {
+                assertEquals(before[i], floor.getTile(i / 64, i % 64));
+            }
+        }
+    }
+
+    /**
+     * Tests that asking for chunks on the background threads never waits for them, and that they do arrive
+     */
+    @Test
+    void chunksShouldArriveInTheBackground() throws IOException, InterruptedException {
+        ChunkedFloor floor = new ChunkedFloor(7L, 0, 2, new ChunkStore(this.folder));
+        floor.setCentre(-1000, 5000);
+        assertTrue(floor.awaitLoaded(10_000));
+        assertEquals(25, floor.getLoadedChunkCount());
+        assertNotEquals(ChunkedFloor.UNLOADED, floor.getTile(-1000 + 128, 5000 - 128));
+    }
+
+    /**
+     * Tests that a chunk which can't be loaded is reported by awaitLoaded as soon as it fails,
+     * rather than being waited for until the timeout
+     */
+    @Test
+    void chunkThatCannotLoadShouldBeReportedAtOnce() throws IOException {
+        ChunkStore store = new ChunkStore(this.folder);
+        Files.write(this.folder.resolve("0_0_0.chunk"), new byte[10]); // too short to be a chunk
+        ChunkedFloor floor = new ChunkedFloor(7L, 0, 0, store);
+        floor.setCentre(ChunkedFloor.START_X, ChunkedFloor.START_Y);
+        long start = System.nanoTime();
+        assertThrows(UncheckedIOException.class, () -> floor.awaitLoaded(30_000));
+        assertTrue(System.nanoTime() - start < 10_000_000_000L, "the failure should not wait for the timeout");
+    }
+}
@@ -0,0 +1,107 @@
+package test.java;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import main.java.sim.Environment;
+import main.java.sim.EnvironmentBridge;
+
+/**
+ * Contains tests covering the reinforcement learning Environment and its bridge
+ * 
+ * @version 1.1
+ * @author tp275
+ */
+class EnvironmentTest {
+
+    /**
+     * Tests that a new game's observation shows the player standing on the start tile
+     * with base stats, and that walking into a wall changes nothing and earns nothing
+     */
+    @Test
+    void resetShouldObserveStartAndWallsShouldEarnNothing() {
+        Environment environment = new Environment();
+        FloatBuffer observation = FloatBuffer.allocate(Environment.OBSERVATION_SIZE);
+        environment.reset(1234L, observation);
+
+        int centre = (Environment.WINDOW / 2) * Environment.WINDOW + Environment.WINDOW / 2;
+        int stats = Environment.WINDOW * Environment.WINDOW;
+        assertEquals(Environment.TILE_START, observation.get(centre));
+        assertEquals(70, observation.get(stats)); // hp
+        assertEquals(1, observation.get(stats + 2)); // level
+        assertFalse(environment.isDone());
+
+        // find a move into a wall, and check it is a no-op
+        int[] neighbours = { centre - Environment.WINDOW, centre + Environment.WINDOW, centre - 1, centre + 1 };
+        for (int action = 0; action < Environment.ACTIONS; action++) {
+            if (observation.get(neighbours[action]) == Environment.TILE_WALL) {
+                float[] before = new float[Environment.OBSERVATION_SIZE];
+                observation.get(0, before);
+                assertEquals(0, environment.step(action, observation));
+                float[] after = new float[Environment.OBSERVATION_SIZE];
+                observation.get(0, after);
+                assertArrayEquals(before, after);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Resets on a new seed every game, as a training loop would, and tests that the environment only ever
+     * holds on to one compiled world, and that going back to an earlier seed still starts the same game
+     */
+    @Test
+    void resettingOnNewSeedsShouldHoldOneWorld() {
+        Environment environment = new Environment();
+        FloatBuffer observation = FloatBuffer.allocate(Environment.OBSERVATION_SIZE);
+        environment.reset(0L, observation);
+        float[] first = new float[Environment.OBSERVATION_SIZE];
+        observation.get(0, first);
+        for (long seed = 1; seed <= 200; seed++) {
+            environment.reset(seed, observation);
+            environment.step(Environment.MOVE_RIGHT, observation);
+            assertEquals(1, environment.getCompiledWorldCount());
+        }
+        environment.reset(0L, observation);
+        float[] again = new float[Environment.OBSERVATION_SIZE];
+        observation.get(0, again);
+        assertArrayEquals(first, again);
+    }
+
+    /**
+     * Drives the bridge with a reset, a step and a quit, and tests that the replies are the expected sizes
+     * and match an Environment driven directly
+     */
+    @Test
+    void bridgeShouldAnswerLikeEnvironment() throws IOException {
+        ByteBuffer requests = ByteBuffer.allocate(1 + 8 + 1 + 4 + 1).order(ByteOrder.LITTLE_ENDIAN);
+        requests.put(EnvironmentBridge.RESET).putLong(99L).put(EnvironmentBridge.STEP).putInt(Environment.MOVE_DOWN)
+                .put(EnvironmentBridge.QUIT);
+        ByteArrayOutputStream replies = new ByteArrayOutputStream();
+        new EnvironmentBridge(new ByteArrayInputStream(requests.array()), replies).serve();
+
+        int observationBytes = Environment.OBSERVATION_SIZE * Float.BYTES;
+        assertEquals(observationBytes + 5 + observationBytes, replies.size());
+
+        Environment environment = new Environment();
+        FloatBuffer expected = FloatBuffer.allocate(Environment.OBSERVATION_SIZE);
+        environment.reset(99L, expected);
+        float reward = environment.step(Environment.MOVE_DOWN, expected);
+
+        ByteBuffer reply = ByteBuffer.wrap(replies.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        reply.position(observationBytes);
+        assertEquals(reward, reply.getFloat());
+        assertEquals(environment.isDone() ? 1 : 0, reply.get());
+        for (int i = 0; i < Environment.OBSERVATION_SIZE; i++) {
+            assertEquals(expected.get(i), reply.getFloat());
+        }
+    }
+}
@@ -3,15 +3,20 @@ package test.java;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.awt.Point;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
 
 import org.junit.jupiter.api.Test;
 
 import main.java.locations.Floor;
+import main.java.locations.FloorFormatException;
+import main.java.tile.Tile;
 
 /**
  * Contains tests covering the Floor class
  * 
- * @version 1.0
+ * @version 1.2
  * @author tp275
  */
 class FloorTest {
@@ -29,6 +34,76 @@ class FloorTest {
         assertFalse(floor.checkValidPlayerLocation(new Point(-1, -1)));
     }
 
+    /**
+     * Tests that the passability bitmap agrees with the floor's tiles everywhere on, and just off, the floor,
+     * and that the neighbour mask agrees with checking each neighbour in turn
+     */
+    @Test
+    void passabilityShouldMatchTiles() {
+        this.floor = new Floor(2, 0);
+        for (int x = -1; x <= this.floor.getRows(); x++) {
+            for (int y = -1; y <= this.floor.getColumns(); y++) {
+                Tile tile = this.floor.getTileByPoint(new Point(x, y));
+                assertEquals(tile != null && !tile.getName().equals("Wall"), this.floor.isPassable(x, y));
+
+                int expected = (this.floor.isPassable(x - 1, y) ? 1 : 0) | (this.floor.isPassable(x + 1, y) ? 2 : 0)
+                        | (this.floor.isPassable(x, y - 1) ? 4 : 0) | (this.floor.isPassable(x, y + 1) ? 8 : 0);
+                assertEquals(expected, this.floor.getPassableNeighbours(x, y));
+            }
+        }
+    }
+
+    /**
+     * Tests that a floor loaded from a stream matches its plan, and that malformed plans are reported
+     * at the row and column of the mistake
+     */
+    @Test
+    void floorPlanShouldLoadOrReportWhereItIsWrong() {
+        this.floor = load("3\n4\n----\n-sx-  \n----\n");
+        assertEquals(new Point(1, 1), this.floor.getStartPos());
+        assertEquals("-----Px-----", this.floor.getFloorMap(new Point(1, 1)));
+
+        assertFormatError(4, 3, "3\n4\n----\n-s?-\n----\n"); // not a tile
+        assertFormatError(4, 3, "3\n4\n----\n-s\n----\n"); // row too short
+        assertFormatError(4, 5, "3\n4\n----\n-sxo-\n----\n"); // row too long
+        assertFormatError(5, 1, "3\n4\n----\n-sx-\n"); // too few rows
+        assertFormatError(1, 1, "three\n4\n"); // no size
+    }
+
+    /**
+     * Tests that a plan without exactly one start tile is reported when it is read, at the second start tile
+     * or at the end of the file, rather than loading a floor the player can't be put on
+     */
+    @Test
+    void floorPlanShouldHaveOneStart() {
+        assertFormatError(6, 1, "3\n4\n----\n-ox-\n----\n"); // no start
+        assertFormatError(5, 3, "3\n4\n----\n-sx-\n-xs-\n"); // two starts
+        assertFormatError(4, 3, "3\n4\n----\n-ss-\n----\n"); // two starts in one row
+    }
+
+    /**
+     * Loads a floor from the given plan
+     *
+     * @param plan The floor plan file's contents
+     * @return The floor
+     */
+    private Floor load(String plan) {
+        return new Floor(0, 0, new SplittableRandom(1), new ByteArrayInputStream(plan.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Tests that loading the given plan fails, pointing at the given place in it
+     *
+     * @param row The 1-based line of the file the mistake is on
+     * @param column The 1-based character of the line the mistake is at
+     * @param plan The malformed floor plan file's contents
+     */
+    private void assertFormatError(int row, int column, String plan) {
+        FloorFormatException e = assertThrows(FloorFormatException.class, () -> load(plan));
+        assertEquals(row, e.getRow(), e.getMessage());
+        assertEquals(column, e.getColumn(), e.getMessage());
+    }
+
     /**
      * Tests that the start point of a new 0-difficulty floor is one of the possible 3
      */
@@ -0,0 +1,246 @@
+package test.java;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import main.java.server.GameSession;
+import main.java.server.SessionManager;
+import main.java.tile.character.BattleEventSink;
+import main.java.tile.character.Player;
+
+/**
+ * Contains tests covering GameSessions hosted by a SessionManager: that each plays its commands one at a time,
+ * in the order they were sent, and starts a new game when the player dies
+ *
+ * @version 1.1
+ * @author tp275
+ */
+class GameSessionTest {
+
+    // more threads than sessions, so a session scheduled twice would be played on two at once
+    private final SessionManager manager = new SessionManager(4);
+
+    /**
+     * Stops the manager's threads
+     */
+    @AfterEach
+    void tearDown() {
+        this.manager.shutdown();
+    }
+
+    /**
+     * Sends commands to one session from several threads at once, and tests that they are played one at a time,
+     * that each thread's commands are played in the order it sent them, and that the game ends up as a Player
+     * sent the same commands in the same order would
+     */
+    @Test
+    void commandsFromManyThreadsShouldBePlayedOneAtATimeInOrder() throws InterruptedException {
+        int senders = 4;
+        int perSender = 500;
+        long seed = 5L;
+        GameSession session = this.manager.openSession(seed);
+        AtomicInteger playing = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        // each command played, as sender * perSender + its number from that sender, and the move it was
+        List<Integer> played = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> moves = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(senders * perSender);
+
+        Thread[] threads = new Thread[senders];
+        for (int s = 0; s < senders; s++) {
+            int sender = s;
+            threads[s] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(sender);
+                for (int i = 0; i < perSender; i++) {
+                    int tag = sender * perSender + i;
+                    session.send(random.nextInt(4), (playedBy, command, accepted, sentAt) -> {
+                        if (playing.incrementAndGet() > 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        played.add(tag);
+                        moves.add(command);
+                        playing.decrementAndGet();
+                        done.countDown();
+                    });
+                }
+            });
+            threads[s].start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS), "every command should be played");
+        assertEquals(0, overlaps.get(), "commands should never be played at the same time");
+
+        int[] last = new int[senders];
+        Arrays.fill(last, -1);
+        for (int tag : played) {
+            int sender = tag / perSender;
+            assertTrue(tag % perSender > last[sender], "sender " + sender + "'s commands should be played in order");
+            last[sender] = tag % perSender;
+        }
+
+        // replay the commands in the order they were played, restarting on death as the session does
+        long restartSeed = seed;
+        Player expected = headlessPlayer(restartSeed);
+        for (int move : moves) {
+            if (expected.isAlive() && expected.move(move)) {
+                expected.playTile(expected.getFloorTile());
+                if (!expected.isAlive() && !expected.isVictorious()) {
+                    expected = headlessPlayer(++restartSeed);
+                }
+            }
+        }
+        GameSession[] seen = new GameSession[1];
+        CountDownLatch checked = new CountDownLatch(1);
+        Player[] actual = new Player[1];
+        session.send(GameSession.MOVE_UP, (playedBy, command, accepted, sentAt) -> {
+            seen[0] = playedBy;
+            actual[0] = playedBy.getPlayer();
+            checked.countDown();
+        });
+        assertTrue(checked.await(10, TimeUnit.SECONDS));
+        if (expected.isAlive() && expected.move(GameSession.MOVE_UP)) {
+            expected.playTile(expected.getFloorTile());
+        }
+        assertSame(session, seen[0]);
+        assertEquals(senders * perSender + 1, session.getCommandsPlayed());
+        assertSameGame(expected, actual[0]);
+    }
+
+    /**
+     * Holds a session's thread inside one command while more are sent, and tests that none of them are played
+     * until it is let go - a session that is draining must not be scheduled onto a second thread
+     */
+    @Test
+    void drainingSessionShouldNotBeScheduledTwice() throws InterruptedException {
+        GameSession session = this.manager.openSession(9L);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger playedCount = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(11);
+        session.send(GameSession.MOVE_UP, (playedBy, command, accepted, sentAt) -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            playedCount.incrementAndGet();
+            done.countDown();
+        });
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            session.send(GameSession.MOVE_DOWN, (playedBy, command, accepted, sentAt) -> {
+                playedCount.incrementAndGet();
+                done.countDown();
+            });
+        }
+        Thread.sleep(200); // time enough for an idle pool thread to pick up a second drain
+        assertEquals(0, playedCount.get(), "no command should be played while the session is draining");
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(11, playedCount.get());
+    }
+
+    /**
+     * Sends a command whose listener throws, and tests that the session carries on playing the commands after it
+     */
+    @Test
+    void failingListenerShouldNotStopTheSession() throws InterruptedException {
+        GameSession session = this.manager.openSession(11L);
+        session.send(GameSession.MOVE_UP, (playedBy, command, accepted, sentAt) -> {
+            throw new IllegalStateException("a listener that fails");
+        });
+        CountDownLatch done = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            session.send(GameSession.MOVE_DOWN, (playedBy, command, accepted, sentAt) -> done.countDown());
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS), "commands after the failing one should still be played");
+
+        // and once the mailbox has emptied, the session is scheduled again for the next command
+        CountDownLatch later = new CountDownLatch(1);
+        long[] played = new long[1];
+        session.send(GameSession.MOVE_UP, (playedBy, command, accepted, sentAt) -> {
+            played[0] = playedBy.getCommandsPlayed();
+            later.countDown();
+        });
+        assertTrue(later.await(10, TimeUnit.SECONDS));
+        assertEquals(12, played[0]);
+    }
+
+    /**
+     * Plays a game to the player's death, and tests that the session starts a new game from the next seed
+     */
+    @Test
+    void deathShouldRestartOnTheNextSeed() throws InterruptedException {
+        // find a seed and a random walk on which the player dies
+        long seed = -1;
+        List<Integer> walk = new ArrayList<>();
+        for (long candidate = 0; seed < 0; candidate++) {
+            walk.clear();
+            Player player = headlessPlayer(candidate);
+            SplittableRandom random = new SplittableRandom(candidate);
+            while (player.isAlive() && walk.size() < 100_000) {
+                int move = random.nextInt(4);
+                walk.add(move);
+                if (player.move(move)) {
+                    player.playTile(player.getFloorTile());
+                }
+            }
+            if (!player.isAlive() && !player.isVictorious()) {
+                seed = candidate;
+            }
+        }
+
+        GameSession session = this.manager.openSession(seed);
+        CountDownLatch done = new CountDownLatch(walk.size());
+        int[] restarts = new int[1];
+        Player[] after = new Player[1];
+        for (int i = 0; i < walk.size(); i++) {
+            boolean last = (i == walk.size() - 1);
+            session.send(walk.get(i), (playedBy, command, accepted, sentAt) -> {
+                if (last) {
+                    restarts[0] = playedBy.getRestarts();
+                    after[0] = playedBy.getPlayer();
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(1, restarts[0]);
+        assertSameGame(headlessPlayer(seed + 1), after[0]);
+    }
+
+    /**
+     * Creates a level 1 player whose battles aren't described in text, as a session's are
+     */
+    private static Player headlessPlayer(long seed) {
+        Player player = new Player(1, seed);
+        player.setBattleSink(BattleEventSink.IGNORE);
+        return player;
+    }
+
+    /**
+     * Asserts that two players are in the same game and the same state
+     */
+    private static void assertSameGame(Player expected, Player actual) {
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getFloorX(), actual.getFloorX());
+        assertEquals(expected.getFloorY(), actual.getFloorY());
+        assertEquals(expected.getCurrentDungeonID(), actual.getCurrentDungeonID());
+        assertEquals(expected.getCurrentFloorID(), actual.getCurrentFloorID());
+        assertEquals(expected.getHp(), actual.getHp());
+        assertEquals(expected.getXp(), actual.getXp());
+        assertEquals(expected.getLevel(), actual.getLevel());
+        assertEquals(expected.getGold(), actual.getGold());
+    }
+}
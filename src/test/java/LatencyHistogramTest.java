@@ -0,0 +1,117 @@
+package test.java;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import main.java.metrics.LatencyHistogram;
+
+/**
+ * Contains tests covering the latency histogram's buckets and percentiles
+ *
+ * @version 1.0
+ * @author tp275
+ */
+class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    /**
+     * Tests that an empty histogram reports 0 for everything rather than failing
+     */
+    @Test
+    void emptyHistogramShouldReportZero() {
+        assertEquals(0, this.histogram.getCount());
+        assertEquals(0, this.histogram.getMax());
+        assertEquals(0, this.histogram.getMean());
+        assertEquals(0, this.histogram.getPercentile(0));
+        assertEquals(0, this.histogram.getPercentile(50));
+        assertEquals(0, this.histogram.getPercentile(100));
+    }
+
+    /**
+     * Tests the percentile rank - the smallest value with at least ceil(n * p / 100) values at or below it -
+     * on values small enough to be counted exactly
+     */
+    @Test
+    void percentilesShouldBeRankedByCeiling() {
+        for (int v = 1; v <= 10; v++) {
+            this.histogram.record(v);
+        }
+        assertEquals(1, this.histogram.getPercentile(0));
+        assertEquals(1, this.histogram.getPercentile(10));
+        assertEquals(2, this.histogram.getPercentile(11));
+        assertEquals(5, this.histogram.getPercentile(50));
+        assertEquals(6, this.histogram.getPercentile(50.1));
+        assertEquals(10, this.histogram.getPercentile(100));
+        assertEquals(5.5, this.histogram.getMean());
+        this.histogram.record(-7); // counted as 0
+        assertEquals(0, this.histogram.getPercentile(0));
+        assertEquals(11, this.histogram.getCount());
+    }
+
+    /**
+     * Tests that 31, the last value counted exactly, and 32, the first shared with another, are told apart,
+     * and that 32 and 33 share a bucket reported as its top
+     */
+    @Test
+    void exactBucketsShouldEndAt31() {
+        this.histogram.record(31);
+        this.histogram.record(32);
+        this.histogram.record(33);
+        this.histogram.record(1000);
+        assertEquals(31, this.histogram.getPercentile(25));
+        assertEquals(33, this.histogram.getPercentile(50));
+        assertEquals(33, this.histogram.getPercentile(75));
+        assertEquals(1000, this.histogram.getPercentile(100));
+    }
+
+    /**
+     * Tests that 63 and 64, either side of a power of two, fall in different buckets, each reported as its top
+     */
+    @Test
+    void powerOfTwoShouldStartANewBucket() {
+        this.histogram.record(63);
+        this.histogram.record(64);
+        this.histogram.record(1 << 20);
+        assertEquals(63, this.histogram.getPercentile(33));
+        assertEquals(67, this.histogram.getPercentile(66)); // 64-67 is the first bucket of 64's power of two
+        assertEquals(1 << 20, this.histogram.getPercentile(100));
+    }
+
+    /**
+     * Tests that the biggest value there is lands in the last bucket and is reported exactly
+     */
+    @Test
+    void longMaxValueShouldBeRecorded() {
+        this.histogram.record(1);
+        this.histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, this.histogram.getMax());
+        assertEquals(1, this.histogram.getPercentile(50));
+        assertEquals(Long.MAX_VALUE, this.histogram.getPercentile(100));
+        this.histogram.reset();
+        this.histogram.record(Long.MAX_VALUE - 1);
+        this.histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, this.histogram.getPercentile(50), "both are in the last bucket");
+    }
+
+    /**
+     * Records values of every size, and tests that each one's bucket is reported as no less than the value
+     * and no more than 1/16 above it
+     */
+    @Test
+    void percentilesShouldBeWithinOneSixteenth() {
+        SplittableRandom random = new SplittableRandom(16L);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong(Long.MAX_VALUE) >>> random.nextInt(63);
+            this.histogram.reset();
+            this.histogram.record(value);
+            this.histogram.record(Long.MAX_VALUE); // so the value's bucket isn't cut down to the max
+            long reported = this.histogram.getPercentile(50);
+            assertTrue(reported >= value && reported - value <= value / 16,
+                    value + " was reported as " + reported);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package test.java;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import main.java.gui.LogHistory;
+
+/**
+ * Contains tests covering the game log's history of lines
+ *
+ * @version 1.1
+ * @author tp275
+ */
+class LogHistoryTest {
+
+    @TempDir
+    Path folder;
+
+    /**
+     * Adds many more lines than are held in memory, and tests that every one reads back as it was added -
+     * the older ones from the transcript, in any order - and that the transcript holds exactly the lines
+     */
+    @Test
+    void linesShouldReadBackLongAfterLeavingMemory() throws IOException {
+        Path file = this.folder.resolve("log.txt");
+        LogHistory history = new LogHistory(file, 10);
+        String longLine = "x".repeat(100_000);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(2, history.append("line " + i + "\n" + (i == 500 ? longLine : "é " + i) + "\n"));
+        }
+        assertEquals(1, history.append("no newline"));
+        assertEquals(2001, history.size());
+
+        assertEquals("no newline", history.get(2000));
+        assertEquals(longLine, history.get(1001));
+        for (int i = 999; i >= 0; i -= 7) {
+            assertEquals("line " + i, history.get(2 * i));
+        }
+        assertEquals("é 3", history.get(7));
+        assertThrows(IndexOutOfBoundsException.class, () -> history.get(2001));
+
+        history.close();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(2001, lines.size());
+        assertEquals("line 0", lines.get(0));
+        assertEquals(longLine, lines.get(1001));
+    }
+
+    /**
+     * Tests that blank lines are kept, as the game uses them to space its messages out
+     */
+    @Test
+    void blankLinesShouldBeKept() {
+        LogHistory history = new LogHistory(5);
+        assertEquals(3, history.append("\n***\n\n"));
+        assertEquals("", history.get(0));
+        assertEquals("***", history.get(1));
+        assertEquals("", history.get(2));
+    }
+
+    /**
+     * Tests that without a transcript, lines that have left memory are shown as missing rather than failing
+     */
+    @Test
+    void linesWithoutTranscriptShouldGoMissing() {
+        LogHistory history = new LogHistory(3);
+        history.append("a\nb\nc\nd\n");
+        assertEquals(LogHistory.MISSING_LINE, history.get(0));
+        assertEquals("b", history.get(1));
+        assertEquals("d", history.get(3));
+    }
+
+    /**
+     * Tests that once the transcript can't be written, the history carries on as if it had none - the latest lines
+     * are still held, and older ones are shown as missing rather than read back wrong. Written to /dev/full,
+     * which fails every write, so only run where there is one.
+     */
+    @Test
+    void linesShouldGoMissingOnceTranscriptFails() throws IOException {
+        Path full = Path.of("/dev/full");
+        assumeTrue(Files.isWritable(full));
+        LogHistory history = new LogHistory(full, 3);
+        for (int i = 0; i < 10_000; i++) {
+            history.append("line " + i + "\n"); // far more than fits in the bytes waiting to be written
+        }
+        assertEquals(10_000, history.size());
+        assertEquals(LogHistory.MISSING_LINE, history.get(0));
+        assertEquals(LogHistory.MISSING_LINE, history.get(9_000));
+        assertEquals("line 9999", history.get(9_999));
+        history.append("one more");
+        assertEquals("one more", history.get(10_000));
+        history.close();
+    }
+}
@@ -0,0 +1,242 @@
+package test.java;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import main.java.server.NetworkServer;
+import main.java.server.Protocol;
+import main.java.tile.character.BattleEventSink;
+import main.java.tile.character.Player;
+
+/**
+ * Contains tests covering the network server, played over loopback connections against a Player
+ * on the same seed played alongside
+ *
+ * @version 1.1
+ * @author tp275
+ */
+class NetworkServerTest {
+
+    // the seed of the first connection's game
+    private static final long SEED = 31L;
+
+    // the server under test, on a free port
+    private NetworkServer server;
+
+    /**
+     * Starts a server with one event loop
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new NetworkServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1, SEED);
+    }
+
+    /**
+     * Stops the server
+     */
+    @AfterEach
+    void tearDown() {
+        this.server.close();
+    }
+
+    /**
+     * Tests that the first STATE carries every field, and that the reply to each COMMAND is accepted as the
+     * move was, and carries exactly the fields that changed, with their new values
+     */
+    @Test
+    void commandsShouldBeAnsweredWithOnlyTheChangedFields() throws IOException {
+        Player expected = new Player(1, SEED);
+        expected.setBattleSink(BattleEventSink.IGNORE);
+        int[] state = new int[Protocol.FIELDS];
+        try (Socket socket = connect()) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+
+            ByteBuffer first = readFrame(in);
+            assertEquals(Protocol.STATE, first.get());
+            assertEquals(0xFF, first.get(first.position() + 1) & 0xFF, "the first STATE should carry every field");
+            assertEquals(Protocol.ALIVE, Protocol.readState(first, state));
+            assertArrayEquals(stateOf(expected), state);
+
+            SplittableRandom moves = new SplittableRandom(SEED);
+            for (int turn = 0; turn < 200; turn++) {
+                int move = moves.nextInt(4);
+                int[] before = stateOf(expected);
+                boolean moved = expected.move(move);
+                if (moved) {
+                    expected.playTile(expected.getFloorTile());
+                }
+                if (!expected.isAlive()) {
+                    break; // the server starts a new game on death - not what this test is about
+                }
+                int[] after = stateOf(expected);
+                int changed = 0;
+                for (int i = 0; i < Protocol.FIELDS; i++) {
+                    if (before[i] != after[i]) {
+                        changed |= 1 << i;
+                    }
+                }
+
+                out.write(command(move));
+                ByteBuffer reply = readFrame(in);
+                assertEquals(3 + Integer.bitCount(changed) * Integer.BYTES, reply.remaining(), "turn " + turn);
+                assertEquals(Protocol.STATE, reply.get());
+                assertEquals(changed, reply.get(reply.position() + 1) & 0xFF, "turn " + turn);
+                int flags = Protocol.readState(reply, state);
+                assertEquals(moved, (flags & Protocol.ACCEPTED) != 0, "turn " + turn);
+                assertArrayEquals(after, state, "turn " + turn);
+            }
+        }
+    }
+
+    /**
+     * Tests that a client which sends many more commands than fit in the server's buffers before reading any
+     * replies still gets every reply, in order - the server stops reading until it has room to reply
+     */
+    @Test
+    void pipelinedCommandsShouldAllBeAnswered() throws IOException {
+        int commands = 2000;
+        try (Socket socket = connect()) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            ByteBuffer all = ByteBuffer.allocate(commands * Protocol.COMMAND_FRAME);
+            for (int i = 0; i < commands; i++) {
+                Protocol.writeCommand(all, i % 2); // up and down, so the player never walks far
+            }
+            socket.getOutputStream().write(all.array());
+            readFrame(in); // the first STATE
+            for (int i = 0; i < commands; i++) {
+                assertEquals(Protocol.STATE, readFrame(in).get(), "reply " + i);
+            }
+        }
+    }
+
+    /**
+     * Plays a connection to the player's death, and tests that the reply to the move that killed them carries
+     * the state of a new game from the next seed - built off the event loop, but replied to as if it weren't -
+     * and that the commands sent after it are played in the new game
+     */
+    @Test
+    void deathShouldRestartOnTheNextSeed() throws IOException {
+        // find a seed and a random walk on which the player dies
+        long seed = -1;
+        List<Integer> walk = new ArrayList<>();
+        for (long candidate = 0; seed < 0; candidate++) {
+            walk.clear();
+            Player player = headlessPlayer(candidate);
+            SplittableRandom random = new SplittableRandom(candidate);
+            while (player.isAlive() && walk.size() < 100_000) {
+                int move = random.nextInt(4);
+                walk.add(move);
+                if (player.move(move)) {
+                    player.playTile(player.getFloorTile());
+                }
+            }
+            if (!player.isAlive() && !player.isVictorious()) {
+                seed = candidate;
+            }
+        }
+
+        this.server.close();
+        this.server = new NetworkServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1, seed);
+        int[] state = new int[Protocol.FIELDS];
+        try (Socket socket = connect()) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            readState(in, state); // the first STATE
+            for (int i = 0; i < walk.size(); i++) {
+                out.write(command(walk.get(i)));
+                int flags = readState(in, state);
+                assertEquals(Protocol.ALIVE, flags & Protocol.ALIVE, "the player should be alive after reply " + i);
+            }
+            Player next = headlessPlayer(seed + 1);
+            assertArrayEquals(stateOf(next), state, "the death should be answered with the next game");
+            out.write(command(Player.MOVE_UP));
+            boolean moved = (readState(in, state) & Protocol.ACCEPTED) != 0;
+            assertEquals(next.move(Player.MOVE_UP), moved);
+            if (moved) {
+                next.playTile(next.getFloorTile());
+            }
+            assertArrayEquals(stateOf(next), state);
+        }
+    }
+
+    /**
+     * Tests that a frame with a length no frame can have closes the connection
+     */
+    @Test
+    void badFrameLengthShouldCloseTheConnection() throws IOException {
+        try (Socket socket = connect()) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            readFrame(in); // the first STATE
+            new DataOutputStream(socket.getOutputStream()).writeShort(0);
+            assertEquals(-1, in.read(), "the server should have closed the connection");
+        }
+    }
+
+    /**
+     * Creates a level 1 player whose battles aren't described in text, as a connection's are
+     */
+    private static Player headlessPlayer(long seed) {
+        Player player = new Player(1, seed);
+        player.setBattleSink(BattleEventSink.IGNORE);
+        return player;
+    }
+
+    /**
+     * Connects to the server, giving up on any read after a few seconds
+     */
+    private Socket connect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.server.getPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    /**
+     * Reads one frame and returns its body
+     */
+    private static ByteBuffer readFrame(DataInputStream in) throws IOException {
+        byte[] body = new byte[in.readUnsignedShort()];
+        in.readFully(body);
+        return ByteBuffer.wrap(body);
+    }
+
+    /**
+     * Reads one STATE frame, applying its fields to the given state, and returns its flags
+     */
+    private static int readState(DataInputStream in, int[] state) throws IOException {
+        ByteBuffer frame = readFrame(in);
+        assertEquals(Protocol.STATE, frame.get());
+        return Protocol.readState(frame, state);
+    }
+
+    /**
+     * Encodes one COMMAND frame
+     */
+    private static byte[] command(int command) {
+        ByteBuffer frame = ByteBuffer.allocate(Protocol.COMMAND_FRAME);
+        Protocol.writeCommand(frame, command);
+        return frame.array();
+    }
+
+    /**
+     * Returns a player's state, indexed by STATE field
+     */
+    private static int[] stateOf(Player player) {
+        return new int[] { player.getFloorX(), player.getFloorY(), player.getCurrentDungeonID(),
+                player.getCurrentFloorID(), player.getHp(), player.getXp(), player.getLevel(), player.getGold() };
+    }
+}
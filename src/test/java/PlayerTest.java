@@ -2,6 +2,8 @@ package test.java;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.awt.Point;
+
 import org.junit.jupiter.api.Test;
 
 import main.java.tile.Gold;
@@ -12,7 +14,7 @@ import main.java.tile.character.Player;
 /**
  * Contains tests covering the Player class
  * 
- * @version 1.0
+ * @version 1.2
  * @author tp275
  */
 class PlayerTest {
@@ -92,4 +94,75 @@ class PlayerTest {
         assertEquals(2, this.player.getCurrentDungeonID());
         assertEquals(0, this.player.getCurrentFloorID());
     }
+
+    /**
+     * Moves and plays a tile, then tests that rewinding the turn
+     * puts the player's location and stats back how they were
+     */
+    @Test
+    void rewindShouldRestorePreviousTurn() {
+        this.player = new Player(1);
+        Point start = new Point(this.player.getFloorLocation());
+        Point[] directions = { new Point(-1, 0), new Point(1, 0), new Point(0, -1), new Point(0, 1) };
+        for (Point direction : directions) {
+            if (this.player.updateLocation(direction)) {
+                break;
+            }
+        }
+        this.player.playTile(this.player.getFloorTile());
+        assertEquals(1, this.player.getRewindableTurns());
+
+        assertEquals(1, this.player.rewind(5));
+        assertEquals(start, this.player.getFloorLocation());
+        assertEquals(0, this.player.getXp());
+        assertEquals(0, this.player.getGold());
+        assertEquals(70, this.player.getHp());
+        assertEquals(0, this.player.getRewindableTurns());
+    }
+
+    /**
+     * Tests that the numbered moves go the same way as the direction Points, and that moving the player
+     * leaves the floor's start tile where it was
+     */
+    @Test
+    void movesShouldMatchDirectionsAndLeaveStartInPlace() {
+        this.player = new Player(1, 99L);
+        Point start = this.player.getCurrentDungeon().getFloorByID(0).getStartPos();
+        int[] moves = { Player.MOVE_UP, Player.MOVE_DOWN, Player.MOVE_LEFT, Player.MOVE_RIGHT };
+        Point[] directions = { new Point(-1, 0), new Point(1, 0), new Point(0, -1), new Point(0, 1) };
+        for (int i = 0; i < moves.length; i++) {
+            Point expected = new Point(start.x + directions[i].x, start.y + directions[i].y);
+            if (this.player.move(moves[i])) {
+                assertEquals(expected, this.player.getFloorLocation());
+                assertEquals(expected.x, this.player.getFloorX());
+                assertEquals(expected.y, this.player.getFloorY());
+                assertEquals(1, this.player.rewind(1));
+            } else {
+                assertFalse(this.player.updateLocation(directions[i]));
+            }
+            assertEquals(start, this.player.getFloorLocation());
+        }
+        assertEquals(start, this.player.getCurrentDungeon().getFloorByID(0).getStartPos());
+        assertThrows(IllegalArgumentException.class, () -> this.player.move(4));
+    }
+
+    /**
+     * Tests that the player reports every HUD stat as changed at first, then only the ones that really changed
+     */
+    @Test
+    void changedStatsShouldOnlyReportRealChanges() {
+        this.player = new Player(1, 99L);
+        int all = Player.STAT_DUNGEON | Player.STAT_FLOOR | Player.STAT_LEVEL | Player.STAT_HP | Player.STAT_XP | Player.STAT_GOLD;
+        assertEquals(all, this.player.takeChangedStats());
+        assertEquals(0, this.player.takeChangedStats());
+
+        this.player.getStats().addGold(0);
+        this.player.resetHP();
+        assertEquals(0, this.player.takeChangedStats());
+
+        this.player.getStats().addGold(5);
+        this.player.decreaseHp(1);
+        assertEquals(Player.STAT_GOLD | Player.STAT_HP, this.player.takeChangedStats());
+        assertEquals(0, this.player.takeChangedStats());
+    }
 }
@@ -0,0 +1,111 @@
+package test.java;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import main.java.locations.Dungeon;
+import main.java.locations.Floor;
+import main.java.locations.Map;
+import main.java.locations.RandomSource;
+import main.java.tile.Tile;
+import main.java.tile.character.Player;
+
+/**
+ * Contains tests covering games generated from a seed
+ * 
+ * @version 1.2
+ * @author tp275
+ */
+class SeedTest {
+
+    /**
+     * Plays two games from the same seed with the same moves, and tests that everything they print is identical
+     * and that the worlds they were played in are too - every floor, not just the ones the moves reach
+     */
+    @Test
+    void gamesWithSameSeedShouldProduceIdenticalLogs() {
+        assertEquals(playScriptedGame(1234L), playScriptedGame(1234L));
+        assertEquals(describeWorld(1234L), describeWorld(1234L));
+    }
+
+    /**
+     * Generates the worlds of several seeds, and tests that no two have the same floor layouts and enemies -
+     * a seed that was ignored somewhere would make every game the same
+     */
+    @Test
+    void differentSeedsShouldGenerateDifferentWorlds() {
+        Set<String> worlds = new HashSet<>();
+        for (long seed = 0; seed < 10; seed++) {
+            assertTrue(worlds.add(describeWorld(seed)), "seed " + seed + " generated the same world as another seed");
+        }
+    }
+
+    /**
+     * Plays two games from the same seed side by side, turn by turn, and tests that they share one world
+     * but that enemies defeated in one game are still alive in the other
+     */
+    @Test
+    void gamesWithSameSeedShouldShareWorldButNotDefeats() {
+        Player first = new Player(1, 5678L);
+        Player second = new Player(1, 5678L);
+        assertSame(first.getCurrentDungeon(), second.getCurrentDungeon());
+
+        Point[] moves = { new Point(1, 0), new Point(0, 1), new Point(1, 0), new Point(0, -1), new Point(-1, 0) };
+        for (int turn = 0; turn < 500 && first.isAlive(); turn++) {
+            Point move = moves[turn % moves.length];
+            assertEquals(first.updateLocation(move), second.updateLocation(move));
+            // the first player always plays their tile first, so the second would find corpses if defeats were shared
+            assertEquals(first.playTile(first.getFloorTile()), second.playTile(second.getFloorTile()));
+        }
+    }
+
+    /**
+     * Describes every floor of a seed's world: its layout, and what is on each of its tiles
+     * 
+     * @param seed The seed to generate the world from
+     * @return The world's description
+     */
+    private String describeWorld(long seed) {
+        Map map = new Map(new RandomSource(seed));
+        StringBuilder world = new StringBuilder();
+        for (int d = 0; d < map.getHowManyDungeons(); d++) {
+            Dungeon dungeon = map.getDungeonByID(d);
+            for (int f = 0; f < dungeon.getFloorCount(); f++) {
+                Floor floor = dungeon.getFloorByID(f);
+                world.append(floor.getFloorMap(floor.getStartPos())).append('\n');
+                for (int x = 0; x < floor.getRows(); x++) {
+                    for (int y = 0; y < floor.getColumns(); y++) {
+                        Tile tile = floor.getTile(x, y);
+                        world.append((tile == null) ? "-" : tile.getName()).append(',');
+                    }
+                }
+                world.append('\n');
+            }
+        }
+        return world.toString();
+    }
+
+    /**
+     * Plays a fixed sequence of moves, logging every tile played and the map after each turn
+     * 
+     * @param seed The seed to generate the game from
+     * @return The game's log
+     */
+    private String playScriptedGame(long seed) {
+        Player player = new Player(1, seed);
+        Point[] moves = { new Point(1, 0), new Point(0, 1), new Point(1, 0), new Point(0, -1), new Point(-1, 0) };
+        StringBuilder log = new StringBuilder();
+        for (int turn = 0; turn < 500 && player.isAlive(); turn++) {
+            if (player.updateLocation(moves[turn % moves.length])) {
+                log.append(player.playTile(player.getFloorTile())).append('\n');
+                log.append(player.getPrintableMap()).append('\n');
+            }
+        }
+        return log.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package test.java;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import main.java.bot.AutoPlayer;
+import main.java.bot.AutoPlayer.Outcome;
+import main.java.locations.Map;
+import main.java.locations.WorldTemplates;
+import main.java.tile.character.Player;
+
+/**
+ * Plays many whole games with every bundled policy and checks the game's invariants after every turn.
+ * Plays a few hundred games by default; for a full soak run eg.
+ *   gradle test --tests '*SoakTest' -Psoak.games=1000000 -Psoak.worlds=1000
+ * 
+ * @version 1.0
+ * @author tp275
+ */
+class SoakTest {
+
+    // the bundled policies, taken in turn
+    private static final String[] POLICIES = { "random", "stairs", "gold", "explore" };
+
+    /**
+     * Plays soak.games games, spread over soak.worlds worlds and every policy, checking invariants every turn,
+     * and tests that every game ends in victory or death
+     */
+    @Test
+    void gamesShouldKeepInvariantsToTheEnd() {
+        int games = Integer.getInteger("soak.games", 400);
+        int worlds = Integer.getInteger("soak.worlds", 20);
+        Map[] pinned = new Map[worlds]; // keep the worlds from being collected between games
+        for (int world = 0; world < worlds; world++) {
+            pinned[world] = WorldTemplates.get(world);
+        }
+
+        AutoPlayer[] autoPlayers = new AutoPlayer[POLICIES.length];
+        for (int i = 0; i < POLICIES.length; i++) {
+            autoPlayers[i] = new AutoPlayer(AutoPlayer.policy(POLICIES[i], i), 200_000);
+        }
+        int[] outcomes = new int[Outcome.values().length];
+        for (int game = 0; game < games; game++) {
+            Outcome outcome = autoPlayers[game % POLICIES.length].play(game % worlds, new InvariantChecker());
+            outcomes[outcome.ordinal()]++;
+        }
+        assertEquals(0, outcomes[Outcome.TURN_LIMIT.ordinal()], "games that never ended");
+        assertEquals(games, outcomes[Outcome.VICTORY.ordinal()] + outcomes[Outcome.DEATH.ordinal()]);
+    }
+
+    /**
+     * Checks the invariants of one game after every turn
+     */
+    private static final class InvariantChecker implements AutoPlayer.TurnListener {
+
+        private int gold = 0;
+        private int level = 1;
+
+        @Override
+        public void onTurn(Player player, int move, boolean moved) {
+            assertTrue(player.getHp() > 0, "hp went to " + player.getHp());
+            assertTrue(player.getXp() >= 0, "xp went to " + player.getXp());
+            assertTrue(player.getLevel() >= this.level, "level went down");
+            assertTrue(player.getGold() >= this.gold, "gold went down");
+            this.level = player.getLevel();
+            this.gold = player.getGold();
+
+            assertNotNull(player.getCurrentDungeon(), "no such dungeon " + player.getCurrentDungeonID());
+            assertTrue(player.getCurrentFloorID() >= 0
+                    && player.getCurrentFloorID() < player.getCurrentDungeon().getFloorCount(), "no such floor");
+            assertNotEquals("Wall", player.getFloorTile().getName(), "standing in a wall");
+
+            if (player.isVictorious()) {
+                assertFalse(player.isAlive(), "won but still playing");
+                assertTrue(player.getCurrentDungeon().isLastDungeon(), "won before the last dungeon");
+                assertEquals(player.getCurrentDungeon().getFloorCount() - 1, player.getCurrentFloorID(),
+                        "won before the last floor");
+            }
+        }
+    }
+}
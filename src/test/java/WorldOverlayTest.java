@@ -0,0 +1,132 @@
+package test.java;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import main.java.locations.Map;
+import main.java.locations.RandomSource;
+import main.java.locations.WorldOverlay;
+
+/**
+ * Contains tests covering a player's overlay of cleared tiles on the shared world
+ *
+ * @version 1.0
+ * @author tp275
+ */
+class WorldOverlayTest {
+
+    /**
+     * Tests that tiles differing in only one part of their location, at either end of its range,
+     * get different keys, and that no key is negative, as the overlay marks empty slots with -1
+     */
+    @Test
+    void keysShouldNotAliasAtTheirLimits() {
+        int lastDungeon = Map.MAX_DUNGEONS - 1;
+        long[] keys = {
+                WorldOverlay.key(0, 0, 0, 0),
+                WorldOverlay.key(lastDungeon, 0, 0, 0),
+                WorldOverlay.key(0, 0xFFFF, 0, 0),
+                WorldOverlay.key(0, 0, 0xFFFF, 0),
+                WorldOverlay.key(0, 0, 0, 0xFFFF),
+                WorldOverlay.key(lastDungeon, 0xFFFF, 0xFFFF, 0xFFFF),
+                WorldOverlay.key(1, 0, 0, 0),
+                WorldOverlay.key(0, 1, 0, 0),
+                WorldOverlay.key(0, 0, 1, 0),
+                WorldOverlay.key(0, 0, 0, 1) };
+        Set<Long> distinct = new HashSet<>();
+        for (long key : keys) {
+            assertTrue(key >= 0, Long.toHexString(key));
+            assertTrue(distinct.add(key), "two tiles share the key " + Long.toHexString(key));
+        }
+
+        WorldOverlay overlay = new WorldOverlay();
+        overlay.clear(WorldOverlay.key(lastDungeon, 2, 3, 4));
+        assertFalse(overlay.isCleared(WorldOverlay.key(0, 2, 3, 4)));
+        assertFalse(overlay.isCleared(WorldOverlay.key(lastDungeon - 1, 2, 3, 4)));
+    }
+
+    /**
+     * Tests that a map can't be made with more dungeons than keys can tell apart
+     */
+    @Test
+    void mapsShouldNotHaveMoreDungeonsThanKeysCanHold() {
+        assertEquals(Map.MAX_DUNGEONS, new Map(new RandomSource(1L), Map.MAX_DUNGEONS).getHowManyDungeons());
+        assertThrows(IllegalArgumentException.class, () -> new Map(new RandomSource(1L), Map.MAX_DUNGEONS + 1));
+    }
+
+    /**
+     * Clears three tiles whose keys all want the same slot, rewinds the first, and tests that the other two,
+     * which had been pushed along after it, are still found
+     */
+    @Test
+    void restoringShouldKeepCollidingKeysReachable() {
+        // keys that share a home slot in the overlay's first, 8-slot table
+        List<Long> colliding = new ArrayList<>();
+        int home = homeSlot(WorldOverlay.key(0, 0, 0, 0), 8);
+        for (int y = 0; colliding.size() < 3; y++) {
+            long key = WorldOverlay.key(0, 0, 0, y);
+            if (homeSlot(key, 8) == home) {
+                colliding.add(key);
+            }
+        }
+        WorldOverlay overlay = new WorldOverlay();
+        for (long key : colliding) {
+            assertTrue(overlay.clear(key));
+        }
+        assertTrue(overlay.restore(colliding.get(0)));
+        assertFalse(overlay.isCleared(colliding.get(0)));
+        assertTrue(overlay.isCleared(colliding.get(1)));
+        assertTrue(overlay.isCleared(colliding.get(2)));
+        assertFalse(overlay.restore(colliding.get(0)));
+        assertEquals(2, overlay.size());
+
+        assertTrue(overlay.restore(colliding.get(1)));
+        assertTrue(overlay.isCleared(colliding.get(2)));
+        assertEquals(1, overlay.size());
+    }
+
+    /**
+     * Clears and restores many tiles from a small part of the world, so the table is crowded and grows,
+     * and tests that the overlay always agrees with a HashSet doing the same
+     */
+    @Test
+    void overlayShouldAgreeWithASet() {
+        SplittableRandom random = new SplittableRandom(3L);
+        WorldOverlay overlay = new WorldOverlay();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            long key = WorldOverlay.key(random.nextInt(2), random.nextInt(2), random.nextInt(20), random.nextInt(20));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), overlay.restore(key));
+            } else {
+                assertEquals(expected.add(key), overlay.clear(key));
+            }
+            assertEquals(expected.size(), overlay.size());
+        }
+        for (int d = 0; d < 2; d++) {
+            for (int f = 0; f < 2; f++) {
+                for (int x = 0; x < 20; x++) {
+                    for (int y = 0; y < 20; y++) {
+                        long key = WorldOverlay.key(d, f, x, y);
+                        assertEquals(expected.contains(key), overlay.isCleared(key));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the slot a key starts looking from in a table of the given size, as the overlay works it out
+     */
+    private static int homeSlot(long key, int tableSize) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (tableSize - 1);
+    }
+}
@@ -0,0 +1,137 @@
+package test.java;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import main.java.locations.Dungeon;
+import main.java.locations.Floor;
+import main.java.locations.Map;
+import main.java.locations.RandomSource;
+import main.java.locations.WorldStore;
+import main.java.tile.Tile;
+import main.java.tile.character.Enemy;
+
+/**
+ * Contains tests covering worlds saved in a WorldStore
+ *
+ * @version 1.1
+ * @author tp275
+ */
+class WorldStoreTest {
+
+    @TempDir
+    Path folder;
+
+    /**
+     * Saves a generated world, opens it again, and tests that every dungeon and floor is the same as the one
+     * generated - down to each enemy's stats, which are drawn from the floor's random stream as it is opened
+     */
+    @Test
+    void savedWorldShouldOpenAsItWasGenerated() throws IOException {
+        Map generated = new Map(new RandomSource(2024L), 9);
+        Path file = this.folder.resolve("world.ddc");
+        WorldStore.write(file, generated);
+        Map opened = new Map(WorldStore.open(file));
+
+        assertEquals(generated.getSeed(), opened.getSeed());
+        assertEquals(generated.getHowManyDungeons(), opened.getHowManyDungeons());
+        for (int d = 0; d < generated.getHowManyDungeons(); d++) {
+            Dungeon expected = generated.getDungeonByID(d);
+            Dungeon actual = opened.getDungeonByID(d);
+            assertEquals(expected.getDifficulty(), actual.getDifficulty());
+            assertEquals(expected.getFloorCount(), actual.getFloorCount());
+            assertEquals(expected.isLastDungeon(), actual.isLastDungeon());
+            assertEquals(expected.getIntro(), actual.getIntro());
+            // open the floors back to front, so nothing depends on the order they are asked for in
+            for (int f = expected.getFloorCount() - 1; f >= 0; f--) {
+                assertSameFloor(expected.getFloorByID(f), actual.getFloorByID(f));
+            }
+        }
+    }
+
+    /**
+     * Tests that a file that isn't a saved world is refused
+     */
+    @Test
+    void otherFilesShouldNotOpen() throws IOException {
+        Path file = Files.writeString(this.folder.resolve("notes.txt"), "this is not a world, just some notes");
+        assertThrows(IOException.class, () -> WorldStore.open(file));
+    }
+
+    /**
+     * Damages the records of a saved world in ways that point outside the file, and tests that each is refused
+     * as it is opened: a grid past the end, a grid too big for an int to count, floors past the floor records,
+     * and more dungeons than a map can have
+     */
+    @Test
+    void damagedRecordsShouldNotOpen() throws IOException {
+        Map generated = new Map(new RandomSource(2024L), 2);
+        Path saved = this.folder.resolve("world.ddc");
+        WorldStore.write(saved, generated);
+        int floorRecords = 32 + generated.getHowManyDungeons() * 16;
+        long size = Files.size(saved);
+
+        // the first floor's grid, moved to the last byte of the file
+        assertDamageRefused(saved, floorRecords + 16, ByteBuffer.allocate(8).putLong(0, size - 1));
+        // the first floor's rows and columns, whose product overflows an int
+        assertDamageRefused(saved, floorRecords + 4, ByteBuffer.allocate(8).putInt(0, 1 << 16).putInt(4, 1 << 16));
+        // the first dungeon's floor count, reaching past the floor records
+        assertDamageRefused(saved, 32 + 8, ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE));
+        // the number of dungeons, more than a map can have
+        assertDamageRefused(saved, 16, ByteBuffer.allocate(4).putInt(0, 1 << 27));
+    }
+
+    /**
+     * Copies a saved world, overwrites some of its bytes, and tests that the copy is refused when it is opened
+     *
+     * @param saved The saved world
+     * @param at Where to overwrite
+     * @param bytes What to overwrite with
+     * @throws IOException If the copy can't be written
+     */
+    private void assertDamageRefused(Path saved, long at, ByteBuffer bytes) throws IOException {
+        Path damaged = this.folder.resolve("damaged.ddc");
+        Files.copy(saved, damaged, StandardCopyOption.REPLACE_EXISTING);
+        try (FileChannel channel = FileChannel.open(damaged, StandardOpenOption.WRITE)) {
+            channel.write(bytes, at);
+        }
+        assertThrows(IOException.class, () -> WorldStore.open(damaged));
+    }
+
+    /**
+     * Tests that two floors have the same layout and the same enemies
+     *
+     * @param expected The floor as generated
+     * @param actual The floor as opened from the store
+     */
+    private void assertSameFloor(Floor expected, Floor actual) {
+        assertEquals(expected.getStartPos(), actual.getStartPos());
+        assertEquals(expected.getFloorMap(expected.getStartPos()), actual.getFloorMap(actual.getStartPos()));
+        for (int x = 0; x < expected.getRows(); x++) {
+            for (int y = 0; y < expected.getColumns(); y++) {
+                Tile tile = expected.getTileByPoint(new Point(x, y));
+                Tile other = actual.getTileByPoint(new Point(x, y));
+                assertEquals(tile.getName(), other.getName());
+                if (tile instanceof Enemy) {
+                    Enemy enemy = (Enemy) tile;
+                    Enemy same = (Enemy) other;
+                    assertEquals(enemy.getArchetype(), same.getArchetype());
+                    assertEquals(enemy.getHp(), same.getHp());
+                    assertEquals(enemy.getDamage(), same.getDamage());
+                    assertEquals(enemy.getXPOnDefeat(), same.getXPOnDefeat());
+                }
+            }
+        }
+    }
+}